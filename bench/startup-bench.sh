@@ -0,0 +1,102 @@
+#!/bin/bash
+# Time-to-first-successful-scrape benchmark for Tibero Exporter (Linux/macOS)
+#
+# Starts the exporter repeatedly and measures the time from process launch
+# until /metrics reports "tibero_up 1". Runs once without and once with the
+# AppCDS archive (target/tibero-exporter.jsa, built with: mvn -Pappcds package).
+#
+# Usage:
+#   bench/startup-bench.sh [RUNS] -- [exporter options...]
+#
+# Example:
+#   bench/startup-bench.sh 5 -- --db.host 192.168.0.140 --db.user sys --db.password tibero
+
+set -e
+
+RUNS=${1:-5}
+shift || true
+if [ "$1" == "--" ]; then
+    shift
+fi
+
+JAR="target/tibero-exporter.jar"
+JSA="target/tibero-exporter.jsa"
+PORT=${BENCH_PORT:-19162}
+TIMEOUT_SECONDS=${BENCH_TIMEOUT:-60}
+
+if [ ! -f "$JAR" ]; then
+    echo "[ERROR] $JAR not found. Build it first: mvn package"
+    exit 1
+fi
+
+if ! command -v curl &> /dev/null; then
+    echo "[ERROR] curl is required"
+    exit 1
+fi
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Run the exporter once and print the milliseconds until the first successful scrape
+run_once() {
+    local start end pid
+    start=$(now_ms)
+    java "$@" -jar "$JAR" --web.listen-address 127.0.0.1 --web.listen-port "$PORT" "${EXPORTER_ARGS[@]}" > /dev/null 2>&1 &
+    pid=$!
+
+    while true; do
+        if curl -s "http://127.0.0.1:$PORT/metrics" 2> /dev/null | grep -q '^tibero_up 1'; then
+            end=$(now_ms)
+            break
+        fi
+        if [ $(( $(now_ms) - start )) -gt $(( TIMEOUT_SECONDS * 1000 )) ]; then
+            end=""
+            break
+        fi
+        sleep 0.05
+    done
+
+    kill "$pid" 2> /dev/null || true
+    wait "$pid" 2> /dev/null || true
+
+    if [ -z "$end" ]; then
+        echo "timeout"
+    else
+        echo $(( end - start ))
+    fi
+}
+
+# Run several times and print each result and the average
+bench() {
+    local label=$1
+    shift
+    local total=0 count=0 result
+    for i in $(seq 1 "$RUNS"); do
+        result=$(run_once "$@")
+        echo "  [$label] run $i: ${result}ms"
+        if [ "$result" != "timeout" ]; then
+            total=$(( total + result ))
+            count=$(( count + 1 ))
+        fi
+    done
+    if [ "$count" -gt 0 ]; then
+        echo "  [$label] average: $(( total / count ))ms over $count runs"
+    fi
+}
+
+EXPORTER_ARGS=("$@")
+
+echo "========================================"
+echo "Tibero Exporter - Startup Benchmark"
+echo "========================================"
+echo "Metric: time from launch to first 'tibero_up 1'"
+echo
+
+bench "default" -Xshare:auto
+
+if [ -f "$JSA" ]; then
+    bench "appcds" -XX:SharedArchiveFile="$JSA"
+else
+    echo "  [appcds] skipped: $JSA not found (build with: mvn -Pappcds package)"
+fi
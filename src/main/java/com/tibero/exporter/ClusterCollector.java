@@ -0,0 +1,257 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.GaugeMetricFamily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TAC(Tibero Active Cluster) 노드별 메트릭을 동시에 수집하는 Prometheus Collector 클래스
+ * 노드마다 작은 연결 풀과 TiberoCollector를 두고, 각 노드에 직접 접속해 노드 로컬 V$ 뷰를 조회합니다.
+ * 모든 노드를 병렬로 수집하므로 스크래핑 지연 시간은 가장 느린 노드 하나 수준이며,
+ * 클러스터 전체의 모니터링 부하가 한 노드에 몰리지 않습니다.
+ * 노드별 결과는 instance_name 레이블로 구분되어 같은 이름의 메트릭 패밀리로 합쳐지고,
+ * 중단되었거나 마감 시각까지 응답하지 않은 노드는 tibero_up 0만 남기고 결과에서 빠집니다.
+ */
+public class ClusterCollector extends ManagedCollector {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterCollector.class);
+
+    private final List<ClusterNode> nodes;              // 클러스터 노드 목록
+    private final List<MetricConfig> metricsConfig;     // 메트릭 설정 목록 (streaming 메트릭 순회용)
+    private final List<TiberoCollector> collectors;     // 노드별 수집기 (nodes와 같은 순서)
+    private final ExecutorService executor;             // 노드별 병렬 수집 스레드 풀
+
+    // 패밀리 이름 -> 마지막으로 병합한 결과 (노드별 패밀리 객체가 모두 같으면 재사용)
+    private final Map<String, MergedFamily> mergedFamilies = new HashMap<>();
+
+    /**
+     * ClusterCollector 생성자
+     * 노드마다 전용 연결 풀과 수집기를 만듭니다. 데이터베이스 연결은 start() 호출 시 시작됩니다.
+     *
+     * @param config 설정 정보
+     * @param metricsConfig 메트릭 설정 목록 (모든 노드에 동일하게 적용)
+     */
+    public ClusterCollector(Config config, List<MetricConfig> metricsConfig) {
+        this.nodes = config.getClusterNodeList();
+        this.metricsConfig = metricsConfig;
+        this.collectors = new ArrayList<>(nodes.size());
+        ShardSelector shardSelector = ShardSelector.fromConfig(config);  // 모든 노드 수집기가 공유
+        for (ClusterNode node : nodes) {
+            collectors.add(new TiberoCollector(config, metricsConfig,
+                    new ConnectionManager(config, node), node.getName(), shardSelector));
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(nodes.size(), r -> {
+            Thread t = new Thread(r, "tibero-cluster-" + threadIndex.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 모든 노드의 연결 풀 초기화를 백그라운드에서 시작합니다.
+     */
+    @Override
+    public void start() {
+        logger.info("Cluster mode: collecting from {} nodes {}", nodes.size(), nodes);
+        for (TiberoCollector collector : collectors) {
+            collector.start();
+        }
+    }
+
+    /**
+     * 모든 노드의 메트릭을 병렬로 수집하여 반환합니다 (synchronized).
+     * 요청 스레드의 스크래핑 마감 시각, 스크래핑 기록과 범위를 각 노드 수집 스레드에 그대로 전달합니다.
+     *
+     * @return 노드별 결과를 패밀리 이름으로 합친 메트릭 패밀리 샘플 리스트
+     */
+    @Override
+    public synchronized List<MetricFamilySamples> collect() {
+        ScrapeDeadline deadline = ScrapeDeadline.current();
+        ScrapeTrace trace = ScrapeTrace.current();
+        ScrapeScope scope = ScrapeScope.current();
+
+        List<Future<List<MetricFamilySamples>>> futures = new ArrayList<>(collectors.size());
+        for (TiberoCollector collector : collectors) {
+            futures.add(executor.submit(() -> {
+                ScrapeDeadline.bind(deadline);
+                ScrapeTrace.bind(trace);
+                ScrapeScope.bind(scope);
+                try {
+                    return collector.collect();
+                } finally {
+                    ScrapeDeadline.unbind();
+                    ScrapeTrace.unbind();
+                    ScrapeScope.unbind();
+                }
+            }));
+        }
+
+        // 패밀리 이름 -> 노드별 패밀리 목록 (처음 나타난 순서 유지)
+        Map<String, List<MetricFamilySamples>> byName = new LinkedHashMap<>();
+        for (int i = 0; i < futures.size(); i++) {
+            List<MetricFamilySamples> nodeResult = awaitNode(nodes.get(i), futures.get(i), deadline);
+            for (MetricFamilySamples family : nodeResult) {
+                byName.computeIfAbsent(family.name, k -> new ArrayList<>(nodes.size())).add(family);
+            }
+        }
+
+        List<MetricFamilySamples> mfs = new ArrayList<>(byName.size());
+        for (Map.Entry<String, List<MetricFamilySamples>> entry : byName.entrySet()) {
+            mfs.add(merge(entry.getKey(), entry.getValue()));
+        }
+        mergedFamilies.keySet().retainAll(byName.keySet());
+        return mfs;
+    }
+
+    /**
+     * 노드 하나의 수집 결과를 기다립니다.
+     * 마감 시각이 있으면 남은 시간만큼만 기다리고, 응답하지 않은 노드는 tibero_up 0으로 대체합니다.
+     * 늦은 노드의 수집은 마감 시각 감시에 의해 스스로 취소됩니다.
+     */
+    private List<MetricFamilySamples> awaitNode(ClusterNode node, Future<List<MetricFamilySamples>> future,
+                                                ScrapeDeadline deadline) {
+        try {
+            if (deadline.isUnbounded()) {
+                return future.get();
+            }
+            return future.get(Math.max(deadline.remainingMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Cluster node {} did not finish before the scrape deadline", node.getName());
+        } catch (ExecutionException e) {
+            logger.error("Error collecting cluster node {}: {}", node.getName(), e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.singletonList(nodeDown(node));
+    }
+
+    /**
+     * 결과를 얻지 못한 노드의 tibero_up 0 메트릭을 만듭니다.
+     */
+    private static MetricFamilySamples nodeDown(ClusterNode node) {
+        GaugeMetricFamily upMetric = new GaugeMetricFamily(
+                TiberoCollector.NAMESPACE + "_up",
+                TiberoCollector.UP_HELP,
+                Collections.singletonList(MetricSeriesCache.INSTANCE_LABEL)
+        );
+        upMetric.addMetric(Collections.singletonList(node.getName()), 0);
+        return upMetric;
+    }
+
+    /**
+     * 같은 이름의 노드별 메트릭 패밀리를 하나로 합칩니다.
+     * 노드가 하나뿐이면 그대로 반환하고, 노드별 패밀리 객체가 지난 스크래핑과 모두 같으면
+     * 이전 병합 결과를 재사용하여 노출 형식 캐시가 변경 없음으로 판단할 수 있도록 합니다.
+     */
+    private MetricFamilySamples merge(String name, List<MetricFamilySamples> parts) {
+        if (parts.size() == 1) {
+            mergedFamilies.remove(name);
+            return parts.get(0);
+        }
+
+        MergedFamily previous = mergedFamilies.get(name);
+        if (previous != null && previous.sameParts(parts)) {
+            return previous.merged;
+        }
+
+        int sampleCount = 0;
+        for (MetricFamilySamples part : parts) {
+            sampleCount += part.samples.size();
+        }
+        List<MetricFamilySamples.Sample> samples = new ArrayList<>(sampleCount);
+        for (MetricFamilySamples part : parts) {
+            samples.addAll(part.samples);
+        }
+
+        MetricFamilySamples first = parts.get(0);
+        MetricFamilySamples merged = new MetricFamilySamples(first.name, first.unit, first.type, first.help, samples);
+        mergedFamilies.put(name, new MergedFamily(parts, merged));
+        return merged;
+    }
+
+    @Override
+    public boolean hasMetrics(ScrapeScope scope) {
+        return !collectors.isEmpty() && collectors.get(0).hasMetrics(scope);
+    }
+
+    @Override
+    public boolean isCacheable(ScrapeScope scope) {
+        return !collectors.isEmpty() && collectors.get(0).isCacheable(scope);
+    }
+
+    @Override
+    public boolean hasStreamingMetrics() {
+        return !collectors.isEmpty() && collectors.get(0).hasStreamingMetrics();
+    }
+
+    /**
+     * streaming 메트릭을 메트릭별로 모든 노드에서 차례로 기록합니다.
+     * 같은 패밀리의 노드별 샘플이 응답에서 한 블록으로 이어지도록 병렬로 실행하지 않습니다.
+     *
+     * @param out 응답 스트림 기록기
+     * @throws IOException 응답 스트림 쓰기 실패 시
+     */
+    @Override
+    public void stream(StreamingExposition out) throws IOException {
+        for (MetricConfig metricConfig : metricsConfig) {
+            if (!metricConfig.isStreaming()) {
+                continue;
+            }
+            for (TiberoCollector collector : collectors) {
+                collector.streamMetric(metricConfig, out);
+            }
+        }
+    }
+
+    /**
+     * 모든 노드의 연결 풀과 수집 스레드를 종료합니다.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (TiberoCollector collector : collectors) {
+            collector.close();
+        }
+    }
+
+    /**
+     * 병합에 사용한 노드별 패밀리 객체와 병합 결과
+     */
+    private static class MergedFamily {
+        private final List<MetricFamilySamples> parts;  // 병합에 사용한 노드별 패밀리 객체
+        private final MetricFamilySamples merged;       // 병합 결과
+
+        MergedFamily(List<MetricFamilySamples> parts, MetricFamilySamples merged) {
+            this.parts = parts;
+            this.merged = merged;
+        }
+
+        boolean sameParts(List<MetricFamilySamples> candidate) {
+            if (candidate.size() != parts.size()) {
+                return false;
+            }
+            for (int i = 0; i < parts.size(); i++) {
+                if (candidate.get(i) != parts.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.tibero.exporter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TAC(Tibero Active Cluster) 노드 하나의 접속 정보
+ * --db.cluster-nodes 옵션의 "[이름=]호스트:포트" 항목에서 생성됩니다.
+ * 이름을 생략하면 "호스트:포트"를 인스턴스 레이블 값으로 사용합니다.
+ */
+public class ClusterNode {
+    private final String name;      // 인스턴스 레이블 값
+    private final String host;      // 노드 호스트 주소
+    private final int port;         // 노드 리스너 포트
+
+    /**
+     * ClusterNode 생성자
+     *
+     * @param name 인스턴스 레이블 값
+     * @param host 노드 호스트 주소
+     * @param port 노드 리스너 포트
+     */
+    public ClusterNode(String name, String host, int port) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 노드에 직접 접속하는 JDBC URL을 생성합니다.
+     *
+     * @param dbName DB 이름
+     * @return JDBC 연결 URL
+     */
+    public String getJdbcUrl(String dbName) {
+        return String.format("jdbc:tibero:thin:@%s:%d:%s", host, port, dbName);
+    }
+
+    /**
+     * 쉼표로 구분된 노드 목록을 파싱합니다.
+     * 각 항목은 "호스트:포트" 또는 "이름=호스트:포트" 형식입니다.
+     *
+     * @param spec 노드 목록 문자열 (예: "tac1=10.0.0.1:8629,tac2=10.0.0.2:8629")
+     * @return 노드 목록 (spec이 비어 있으면 빈 리스트)
+     * @throws IllegalArgumentException 항목 형식이 올바르지 않은 경우
+     */
+    public static List<ClusterNode> parseList(String spec) {
+        List<ClusterNode> nodes = new ArrayList<>();
+        if (spec == null || spec.trim().isEmpty()) {
+            return nodes;
+        }
+
+        for (String entry : spec.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+
+            String name = null;
+            String endpoint = entry;
+            int eq = entry.indexOf('=');
+            if (eq >= 0) {
+                name = entry.substring(0, eq).trim();
+                endpoint = entry.substring(eq + 1).trim();
+            }
+
+            int colon = endpoint.lastIndexOf(':');
+            if (colon <= 0 || colon == endpoint.length() - 1) {
+                throw new IllegalArgumentException("Invalid cluster node (expected [name=]host:port): " + entry);
+            }
+            String host = endpoint.substring(0, colon);
+            int port;
+            try {
+                port = Integer.parseInt(endpoint.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid port in cluster node: " + entry);
+            }
+            if (port < 1 || port > 65535) {
+                throw new IllegalArgumentException("Invalid port in cluster node: " + entry);
+            }
+
+            nodes.add(new ClusterNode(name == null || name.isEmpty() ? endpoint : name, host, port));
+        }
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + host + ":" + port + ")";
+    }
+}
@@ -0,0 +1,105 @@
+package com.tibero.exporter;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 결과 컬럼을 읽는 방식을 나타내는 열거형
+ * ResultSetMetaData의 SQL 타입 또는 YAML의 columntypes 힌트로 결정되며,
+ * NUMBER 컬럼을 rs.getObject()로 읽을 때 생기는 BigDecimal 할당을 피하기 위해 사용합니다.
+ */
+public enum ColumnType {
+    DOUBLE,     // rs.getDouble() - 메트릭 값 컬럼
+    LONG,       // rs.getLong() - 정수 값 컬럼
+    STRING,     // rs.getString() - 레이블 컬럼
+    OBJECT;     // rs.getObject() - 알 수 없는 타입 (기존 동작)
+
+    /**
+     * YAML columntypes 힌트 문자열을 컬럼 타입으로 변환합니다.
+     *
+     * @param hint 힌트 문자열 (double, number, long, integer, string, label, object)
+     * @return 컬럼 타입 (알 수 없는 힌트면 null)
+     */
+    public static ColumnType fromHint(String hint) {
+        if (hint == null) {
+            return null;
+        }
+        switch (hint.trim().toLowerCase()) {
+            case "double":
+            case "number":
+            case "float":
+                return DOUBLE;
+            case "long":
+            case "integer":
+            case "int":
+                return LONG;
+            case "string":
+            case "label":
+                return STRING;
+            case "object":
+                return OBJECT;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * ResultSetMetaData의 SQL 타입으로 컬럼 타입을 결정합니다.
+     *
+     * @param metadata 결과 메타데이터
+     * @param column 컬럼 인덱스 (1부터 시작)
+     * @return 컬럼 타입
+     * @throws SQLException 메타데이터 조회 실패 시
+     */
+    public static ColumnType fromMetadata(ResultSetMetaData metadata, int column) throws SQLException {
+        switch (metadata.getColumnType(column)) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.LONGNVARCHAR:
+                return STRING;
+            default:
+                return OBJECT;
+        }
+    }
+
+    /**
+     * 현재 행에서 컬럼 값을 읽습니다.
+     *
+     * @param rs 결과 집합
+     * @param column 컬럼 인덱스 (1부터 시작)
+     * @return 컬럼 값 (NULL이면 null)
+     * @throws SQLException 값 조회 실패 시
+     */
+    public Object read(ResultSet rs, int column) throws SQLException {
+        switch (this) {
+            case DOUBLE: {
+                double value = rs.getDouble(column);
+                return rs.wasNull() ? null : value;
+            }
+            case LONG: {
+                long value = rs.getLong(column);
+                return rs.wasNull() ? null : value;
+            }
+            case STRING:
+                return rs.getString(column);
+            default:
+                return rs.getObject(column);
+        }
+    }
+}
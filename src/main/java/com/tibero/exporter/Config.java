@@ -24,11 +24,42 @@ public class Config {
 
     // 쿼리 및 스크래핑 설정
     private int queryTimeout = 30;                    // 쿼리 타임아웃 (초)
+    private int fetchSize = 100;                      // 기본 JDBC fetch size (행 수)
+    private boolean queryCostSampling = false;        // 메트릭 쿼리 전후 세션 통계로 데이터베이스 비용 측정 여부
+    private boolean planCost = false;                 // 메트릭 쿼리의 실행 계획 비용 확인 여부
+    private double planCostBudget = 0;                // 계획 비용 예산 (0이면 비용만 노출, 0보다 크면 계획 비용 확인 사용)
+    private String planCostAction = "flag";           // 예산 초과 시 처리 방식 (flag, reject, throttle)
+    private String planCostFile = "";                 // EXPLAIN PLAN 대신 사용할 쿼리별 계획 비용 파일 (비어 있으면 데이터베이스에 확인)
     private int scrapeInterval = 15;                  // 스크래핑 간격 (초)
+    private boolean scrapeStagger = false;            // 메트릭 쿼리를 스크래핑 간격 전체에 나누어 백그라운드에서 실행할지 여부
+    private double scrapeTimeoutOffset = 0.5;         // 스크래핑 타임아웃 헤더에서 차감할 여유 시간 (초)
+    private int scrapeTraceSize = 10;                 // /debug/scrape-trace에 보관할 최근 스크래핑 수 (0이면 비활성화)
+
+    // 연결 실패 시 반환할 수집 결과 스냅샷 설정
+    private int snapshotMemoryBudget = 64;            // 스냅샷 메모리 예산 (MB, 0이면 무제한)
+    private boolean snapshotOffHeap = false;          // 스냅샷 값 배열을 힙 외부에 저장할지 여부
+
+    // 스크래핑 간격보다 짧은 주기의 V$SYSSTAT 폴링 설정
+    private String sysstatPollStats = "";             // 폴링할 V$SYSSTAT 통계 이름 (쉼표 구분, 비어 있으면 비활성화)
+    private int sysstatPollInterval = 1000;           // 폴링 주기 (밀리초)
+
+    // 능동/대기 구성 설정
+    private String haLockFile = "";                   // 리더 선출용 잠금 파일 경로 (비어 있으면 비활성화)
+
+    // 인스턴스 로그 파일 추적 설정
+    private String logFiles = "";                     // 추적할 Tibero 로그 파일 (쉼표 구분, 비어 있으면 비활성화)
+    private String logPatternsFile = "";              // 로그 패턴 YAML 파일 (비어 있으면 기본 패턴)
+    private int logPollInterval = 1000;               // 로그 읽기 주기 (밀리초)
+
+    // 쿼리 결과 기록/재생 설정 (오프라인 성능 회귀 테스트용)
+    private String recordFile = "";                   // 메트릭 쿼리 결과를 기록할 파일 (비어 있으면 비활성화)
+    private String replayFile = "";                   // 데이터베이스 대신 재생할 기록 파일 (비어 있으면 비활성화)
+    private double replaySpeed = 1.0;                 // 재생 속도 배율 (1 = 기록된 쿼리 소요 시간 그대로, 0 = 지연 없음)
 
     // 메트릭 파일 설정
     private String metricsFile = "default_metrics.yaml";  // 기본 메트릭 파일 경로
     private String customMetricsFile = "";                // 커스텀 메트릭 파일 경로
+    private String pluginDir = "";                        // 수집 플러그인 JAR 디렉터리 (비어 있으면 클래스패스만)
 
     // 연결 풀 설정 (HikariCP)
     private int maxPoolSize = 10;                     // 최대 연결 풀 크기
@@ -37,6 +68,15 @@ public class Config {
     private int idleTimeout = 600000;                 // 유휴 타임아웃 (밀리초, 10분)
     private int maxLifetime = 1800000;                // 최대 연결 수명 (밀리초, 30분)
 
+    // TAC 클러스터 설정
+    private String clusterNodes = "";                 // TAC 노드 목록 ("[이름=]호스트:포트" 쉼표 구분, 비어 있으면 단일 노드 모드)
+    private int clusterPoolSize = 2;                  // 노드별 최대 연결 풀 크기
+
+    // 복제본 간 샤딩 설정
+    private String shardSelf = "";                    // 이 복제본의 구성원 ID
+    private String shardPeers = "";                   // 구성원 ID 목록 (쉼표 구분)
+    private String shardPeersFile = "";               // 구성원 ID 목록 파일 (한 줄에 하나, 변경 시 자동 재분배)
+
     // Getter 및 Setter 메소드
     public String getDbHost() {
         return dbHost;
@@ -118,6 +158,57 @@ public class Config {
         this.queryTimeout = queryTimeout;
     }
 
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public boolean isQueryCostSampling() {
+        return queryCostSampling;
+    }
+
+    public void setQueryCostSampling(boolean queryCostSampling) {
+        this.queryCostSampling = queryCostSampling;
+    }
+
+    /**
+     * 계획 비용 확인 사용 여부 (--query.plan-cost 또는 예산 지정 시)
+     */
+    public boolean isPlanCostEnabled() {
+        return planCost || planCostBudget > 0;
+    }
+
+    public void setPlanCost(boolean planCost) {
+        this.planCost = planCost;
+    }
+
+    public double getPlanCostBudget() {
+        return planCostBudget;
+    }
+
+    public void setPlanCostBudget(double planCostBudget) {
+        this.planCostBudget = planCostBudget;
+    }
+
+    public String getPlanCostAction() {
+        return planCostAction;
+    }
+
+    public void setPlanCostAction(String planCostAction) {
+        this.planCostAction = planCostAction;
+    }
+
+    public String getPlanCostFile() {
+        return planCostFile;
+    }
+
+    public void setPlanCostFile(String planCostFile) {
+        this.planCostFile = planCostFile;
+    }
+
     public int getScrapeInterval() {
         return scrapeInterval;
     }
@@ -126,6 +217,126 @@ public class Config {
         this.scrapeInterval = scrapeInterval;
     }
 
+    public boolean isScrapeStagger() {
+        return scrapeStagger;
+    }
+
+    public void setScrapeStagger(boolean scrapeStagger) {
+        this.scrapeStagger = scrapeStagger;
+    }
+
+    public double getScrapeTimeoutOffset() {
+        return scrapeTimeoutOffset;
+    }
+
+    public void setScrapeTimeoutOffset(double scrapeTimeoutOffset) {
+        this.scrapeTimeoutOffset = scrapeTimeoutOffset;
+    }
+
+    public int getScrapeTraceSize() {
+        return scrapeTraceSize;
+    }
+
+    public void setScrapeTraceSize(int scrapeTraceSize) {
+        this.scrapeTraceSize = scrapeTraceSize;
+    }
+
+    public int getSnapshotMemoryBudget() {
+        return snapshotMemoryBudget;
+    }
+
+    public void setSnapshotMemoryBudget(int snapshotMemoryBudget) {
+        this.snapshotMemoryBudget = snapshotMemoryBudget;
+    }
+
+    public boolean isSnapshotOffHeap() {
+        return snapshotOffHeap;
+    }
+
+    public void setSnapshotOffHeap(boolean snapshotOffHeap) {
+        this.snapshotOffHeap = snapshotOffHeap;
+    }
+
+    public String getSysstatPollStats() {
+        return sysstatPollStats;
+    }
+
+    public void setSysstatPollStats(String sysstatPollStats) {
+        this.sysstatPollStats = sysstatPollStats;
+    }
+
+    public int getSysstatPollInterval() {
+        return sysstatPollInterval;
+    }
+
+    public void setSysstatPollInterval(int sysstatPollInterval) {
+        this.sysstatPollInterval = sysstatPollInterval;
+    }
+
+    public String getHaLockFile() {
+        return haLockFile;
+    }
+
+    public void setHaLockFile(String haLockFile) {
+        this.haLockFile = haLockFile;
+    }
+
+    public String getPluginDir() {
+        return pluginDir;
+    }
+
+    public void setPluginDir(String pluginDir) {
+        this.pluginDir = pluginDir;
+    }
+
+    public String getLogFiles() {
+        return logFiles;
+    }
+
+    public void setLogFiles(String logFiles) {
+        this.logFiles = logFiles;
+    }
+
+    public String getLogPatternsFile() {
+        return logPatternsFile;
+    }
+
+    public void setLogPatternsFile(String logPatternsFile) {
+        this.logPatternsFile = logPatternsFile;
+    }
+
+    public int getLogPollInterval() {
+        return logPollInterval;
+    }
+
+    public void setLogPollInterval(int logPollInterval) {
+        this.logPollInterval = logPollInterval;
+    }
+
+    public String getRecordFile() {
+        return recordFile;
+    }
+
+    public void setRecordFile(String recordFile) {
+        this.recordFile = recordFile;
+    }
+
+    public String getReplayFile() {
+        return replayFile;
+    }
+
+    public void setReplayFile(String replayFile) {
+        this.replayFile = replayFile;
+    }
+
+    public double getReplaySpeed() {
+        return replaySpeed;
+    }
+
+    public void setReplaySpeed(double replaySpeed) {
+        this.replaySpeed = replaySpeed;
+    }
+
     public String getMetricsFile() {
         return metricsFile;
     }
@@ -182,6 +393,75 @@ public class Config {
         this.maxLifetime = maxLifetime;
     }
 
+    public String getClusterNodes() {
+        return clusterNodes;
+    }
+
+    public void setClusterNodes(String clusterNodes) {
+        this.clusterNodes = clusterNodes;
+    }
+
+    public int getClusterPoolSize() {
+        return clusterPoolSize;
+    }
+
+    public void setClusterPoolSize(int clusterPoolSize) {
+        this.clusterPoolSize = clusterPoolSize;
+    }
+
+    public String getShardSelf() {
+        return shardSelf;
+    }
+
+    public void setShardSelf(String shardSelf) {
+        this.shardSelf = shardSelf;
+    }
+
+    public String getShardPeers() {
+        return shardPeers;
+    }
+
+    public void setShardPeers(String shardPeers) {
+        this.shardPeers = shardPeers;
+    }
+
+    public String getShardPeersFile() {
+        return shardPeersFile;
+    }
+
+    public void setShardPeersFile(String shardPeersFile) {
+        this.shardPeersFile = shardPeersFile;
+    }
+
+    /**
+     * 복제본 간 샤딩 사용 여부를 반환합니다.
+     *
+     * @return 구성원 목록 또는 구성원 파일이 설정되어 있으면 true
+     */
+    public boolean isShardingEnabled() {
+        return (shardPeers != null && !shardPeers.trim().isEmpty())
+                || (shardPeersFile != null && !shardPeersFile.trim().isEmpty());
+    }
+
+    /**
+     * TAC 클러스터 모드 여부를 반환합니다.
+     *
+     * @return 클러스터 노드 목록이 설정되어 있으면 true
+     */
+    public boolean isClusterMode() {
+        return clusterNodes != null && !clusterNodes.trim().isEmpty();
+    }
+
+    /**
+     * 클러스터 노드 목록을 파싱하여 반환합니다.
+     *
+     * @return 노드 목록 (클러스터 모드가 아니면 빈 리스트)
+     * @throws IllegalArgumentException 노드 목록 형식이 올바르지 않은 경우
+     */
+    public List<ClusterNode> getClusterNodeList() {
+        return ClusterNode.parseList(clusterNodes);
+    }
+
     /**
      * 설정 정보로부터 JDBC URL을 생성합니다.
      * DSN이 설정되어 있으면 DSN을 사용하고, 없으면 호스트/포트/DB명으로 URL을 생성합니다.
@@ -259,10 +539,84 @@ public class Config {
             errors.add("Invalid query_timeout: " + queryTimeout + " (must be >= 1)");
         }
 
+        if (fetchSize < 1) {
+            errors.add("Invalid fetch_size: " + fetchSize + " (must be >= 1)");
+        }
+
         if (scrapeInterval < 1) {
             errors.add("Invalid scrape_interval: " + scrapeInterval + " (must be >= 1)");
         }
 
+        if (planCostBudget < 0) {
+            errors.add("Invalid plan_cost_budget: " + planCostBudget + " (must be >= 0)");
+        }
+
+        try {
+            QueryCostGate.Action.parse(planCostAction);
+        } catch (IllegalArgumentException e) {
+            errors.add("Invalid plan_cost_action: " + planCostAction + " (must be flag, reject or throttle)");
+        }
+
+        if (scrapeTimeoutOffset < 0) {
+            errors.add("Invalid scrape_timeout_offset: " + scrapeTimeoutOffset + " (must be >= 0)");
+        }
+
+        if (scrapeTraceSize < 0) {
+            errors.add("Invalid scrape_trace_size: " + scrapeTraceSize + " (must be >= 0)");
+        }
+
+        if (snapshotMemoryBudget < 0) {
+            errors.add("Invalid snapshot_memory_budget: " + snapshotMemoryBudget + " (must be >= 0)");
+        }
+
+        if (sysstatPollInterval < 100) {
+            errors.add("Invalid sysstat_poll_interval: " + sysstatPollInterval + " (must be >= 100)");
+        }
+
+        if (logPollInterval < 100) {
+            errors.add("Invalid log_poll_interval: " + logPollInterval + " (must be >= 100)");
+        }
+
+        if (replaySpeed < 0) {
+            errors.add("Invalid replay_speed: " + replaySpeed + " (must be >= 0)");
+        }
+
+        if (!recordFile.isEmpty() && !replayFile.isEmpty()) {
+            errors.add("record_file and replay_file cannot be used together");
+        }
+
+        // 클러스터 노드 목록 유효성 검사
+        if (isClusterMode()) {
+            try {
+                List<ClusterNode> nodes = getClusterNodeList();
+                List<String> names = new ArrayList<>();
+                for (ClusterNode node : nodes) {
+                    if (names.contains(node.getName())) {
+                        errors.add("Duplicate cluster node name: " + node.getName());
+                    }
+                    names.add(node.getName());
+                }
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage());
+            }
+            if (dbName == null || dbName.isEmpty()) {
+                errors.add("db_name is required in cluster mode");
+            }
+        }
+
+        // 샤딩 설정 유효성 검사
+        if (isShardingEnabled() && (shardSelf == null || shardSelf.trim().isEmpty())) {
+            errors.add("shard_self is required when shard_peers or shard_peers_file is set");
+        }
+        if (shardPeers != null && !shardPeers.trim().isEmpty()
+                && shardPeersFile != null && !shardPeersFile.trim().isEmpty()) {
+            errors.add("Use either shard_peers or shard_peers_file, not both");
+        }
+
+        if (clusterPoolSize < 1) {
+            errors.add("Invalid cluster_pool_size: " + clusterPoolSize + " (must be >= 1)");
+        }
+
         return errors;
     }
 
@@ -305,9 +659,103 @@ public class Config {
         if ((envValue = System.getenv("QUERY_TIMEOUT")) != null) {
             queryTimeout = Integer.parseInt(envValue);
         }
+        if ((envValue = System.getenv("QUERY_FETCH_SIZE")) != null) {
+            fetchSize = Integer.parseInt(envValue);
+        }
+        if ((envValue = System.getenv("QUERY_COST_SAMPLING")) != null) {
+            queryCostSampling = Boolean.parseBoolean(envValue);
+        }
+        if ((envValue = System.getenv("QUERY_PLAN_COST")) != null) {
+            planCost = Boolean.parseBoolean(envValue);
+        }
+        if ((envValue = System.getenv("QUERY_PLAN_COST_BUDGET")) != null) {
+            planCostBudget = Double.parseDouble(envValue);
+        }
+        if ((envValue = System.getenv("QUERY_PLAN_COST_ACTION")) != null) {
+            planCostAction = envValue;
+        }
+        if ((envValue = System.getenv("QUERY_PLAN_COST_FILE")) != null) {
+            planCostFile = envValue;
+        }
         if ((envValue = System.getenv("SCRAPE_INTERVAL")) != null) {
             scrapeInterval = Integer.parseInt(envValue);
         }
+        if ((envValue = System.getenv("SCRAPE_STAGGER")) != null) {
+            scrapeStagger = Boolean.parseBoolean(envValue);
+        }
+        if ((envValue = System.getenv("SCRAPE_TIMEOUT_OFFSET")) != null) {
+            scrapeTimeoutOffset = Double.parseDouble(envValue);
+        }
+        if ((envValue = System.getenv("SCRAPE_TRACE_SIZE")) != null) {
+            scrapeTraceSize = Integer.parseInt(envValue);
+        }
+
+        // 스냅샷 설정
+        if ((envValue = System.getenv("SNAPSHOT_MEMORY_BUDGET_MB")) != null) {
+            snapshotMemoryBudget = Integer.parseInt(envValue);
+        }
+        if ((envValue = System.getenv("SNAPSHOT_OFF_HEAP")) != null) {
+            snapshotOffHeap = Boolean.parseBoolean(envValue);
+        }
+
+        // 능동/대기 구성 설정
+        if ((envValue = System.getenv("HA_LOCK_FILE")) != null) {
+            haLockFile = envValue;
+        }
+
+        // 수집 플러그인 설정
+        if ((envValue = System.getenv("PLUGIN_DIR")) != null) {
+            pluginDir = envValue;
+        }
+
+        // 로그 파일 추적 설정
+        if ((envValue = System.getenv("LOG_FILES")) != null) {
+            logFiles = envValue;
+        }
+        if ((envValue = System.getenv("LOG_PATTERNS_FILE")) != null) {
+            logPatternsFile = envValue;
+        }
+        if ((envValue = System.getenv("LOG_POLL_INTERVAL_MS")) != null) {
+            logPollInterval = Integer.parseInt(envValue);
+        }
+
+        // 쿼리 결과 기록/재생 설정
+        if ((envValue = System.getenv("RECORD_FILE")) != null) {
+            recordFile = envValue;
+        }
+        if ((envValue = System.getenv("REPLAY_FILE")) != null) {
+            replayFile = envValue;
+        }
+        if ((envValue = System.getenv("REPLAY_SPEED")) != null) {
+            replaySpeed = Double.parseDouble(envValue);
+        }
+
+        // V$SYSSTAT 폴링 설정
+        if ((envValue = System.getenv("SYSSTAT_POLL_STATS")) != null) {
+            sysstatPollStats = envValue;
+        }
+        if ((envValue = System.getenv("SYSSTAT_POLL_INTERVAL_MS")) != null) {
+            sysstatPollInterval = Integer.parseInt(envValue);
+        }
+
+        // TAC 클러스터 설정
+        if ((envValue = System.getenv("TIBERO_CLUSTER_NODES")) != null) {
+            clusterNodes = envValue;
+        }
+        if ((envValue = System.getenv("CLUSTER_POOL_SIZE")) != null) {
+            clusterPoolSize = Integer.parseInt(envValue);
+        }
+
+        // 샤딩 설정
+        if ((envValue = System.getenv("SHARD_SELF")) != null) {
+            shardSelf = envValue;
+        }
+        if ((envValue = System.getenv("SHARD_PEERS")) != null) {
+            shardPeers = envValue;
+        }
+        if ((envValue = System.getenv("SHARD_PEERS_FILE")) != null) {
+            shardPeersFile = envValue;
+        }
 
         // 메트릭 파일 설정
         if ((envValue = System.getenv("DEFAULT_METRICS_FILE")) != null) {
@@ -0,0 +1,359 @@
+package com.tibero.exporter;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HikariCP 연결 풀의 생성과 장애 복구를 담당하는 클래스
+ * 쿼리 오류를 쿼리 수준과 연결 수준으로 구분하여, 연결 수준 오류일 때만 해당 연결을 풀에서 제거합니다.
+ * 풀 전체가 사용 불가능하면 백그라운드 스레드에서 지수 백오프로 재연결을 시도하며,
+ * 스크래핑 스레드는 재연결을 기다리지 않고 즉시 실패합니다.
+ */
+public class ConnectionManager {
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionManager.class);
+
+    private static final String VALIDATION_QUERY = "SELECT 1 FROM DUAL";
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;    // 첫 재연결 대기 시간 (1초)
+    private static final long MAX_BACKOFF_MILLIS = 60000;       // 최대 재연결 대기 시간 (60초)
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;    // 오류 분류 시 연결 검증 타임아웃
+
+    /**
+     * SQL 오류의 종류
+     */
+    public enum FailureKind {
+        QUERY,          // 쿼리 자체의 오류 (SQL 문법, 권한, 존재하지 않는 뷰 등) - 연결은 정상
+        CONNECTION      // 연결이 끊어졌거나 사용할 수 없는 상태
+    }
+
+    private final Config config;                        // 설정 정보
+    private final String jdbcUrl;                       // 접속할 JDBC URL
+    private final String poolName;                      // HikariCP 풀 이름
+    private final String endpoint;                      // 로그용 접속 대상 (호스트:포트)
+    private final int maxPoolSize;                      // 최대 연결 풀 크기
+    private final int minIdle;                          // 최소 유휴 연결 수
+    private volatile HikariDataSource dataSource;       // HikariCP 데이터소스 (연결 풀)
+    private volatile boolean available = false;         // 연결 풀 사용 가능 여부
+
+    // 다음 재연결 대기 시간 (스크래핑 스레드가 락을 기다리지 않도록 원자 변수 사용)
+    private final AtomicLong backoffMillis = new AtomicLong(INITIAL_BACKOFF_MILLIS);
+
+    // 재연결 작업이 이미 예약되어 있는지 여부 (중복 예약 방지)
+    private final AtomicBoolean reconnectScheduled = new AtomicBoolean(false);
+
+    // 재연결을 수행하는 백그라운드 스케줄러
+    private final ScheduledExecutorService reconnectExecutor;
+
+    /**
+     * ConnectionManager 생성자 (단일 노드 모드)
+     * 설정의 호스트/포트/DB명 또는 DSN으로 접속합니다.
+     *
+     * @param config 설정 정보
+     */
+    public ConnectionManager(Config config) {
+        this(config, config.getJdbcUrl(), "TiberoExporterPool",
+                config.getDbHost() + ":" + config.getDbPort(), config.getMaxPoolSize(), config.getMinIdle());
+    }
+
+    /**
+     * ConnectionManager 생성자 (TAC 클러스터 모드)
+     * 노드 하나에 직접 접속하는 작은 연결 풀을 만듭니다.
+     *
+     * @param config 설정 정보
+     * @param node 접속할 클러스터 노드
+     */
+    public ConnectionManager(Config config, ClusterNode node) {
+        this(config, node.getJdbcUrl(config.getDbName()), "TiberoExporterPool-" + node.getName(),
+                node.getHost() + ":" + node.getPort(), config.getClusterPoolSize(),
+                Math.min(config.getMinIdle(), config.getClusterPoolSize()));
+    }
+
+    private ConnectionManager(Config config, String jdbcUrl, String poolName, String endpoint,
+                              int maxPoolSize, int minIdle) {
+        this.config = config;
+        this.jdbcUrl = jdbcUrl;
+        this.poolName = poolName;
+        this.endpoint = endpoint;
+        this.maxPoolSize = maxPoolSize;
+        this.minIdle = minIdle;
+        this.reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tibero-reconnect-" + endpoint);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 연결 풀 초기화를 백그라운드 스레드에서 시작하고 즉시 반환합니다.
+     * 초기화가 끝나기 전의 스크래핑은 대기하지 않고 즉시 실패하며,
+     * 첫 연결 시도가 실패하면 지수 백오프로 재연결을 예약합니다.
+     */
+    public void start() {
+        reconnectScheduled.set(true);
+        reconnectExecutor.execute(() -> {
+            reconnectScheduled.set(false);
+            if (!tryConnect()) {
+                scheduleReconnect();
+            }
+        });
+    }
+
+    /**
+     * 연결 풀에서 연결을 가져옵니다.
+     * 연결 풀이 사용 불가능한 상태면 재연결을 기다리지 않고 즉시 예외를 던집니다.
+     *
+     * @return 풀에서 대여한 연결
+     * @throws SQLException 연결 풀이 사용 불가능하거나 연결 획득 실패 시
+     */
+    public Connection getConnection() throws SQLException {
+        HikariDataSource ds = dataSource;
+        if (ds == null || !available) {
+            scheduleReconnect();
+            throw new SQLTransientConnectionException("Database connection pool is not available");
+        }
+        return ds.getConnection();
+    }
+
+    /**
+     * 연결 풀이 사용 가능한 상태인지 확인합니다.
+     *
+     * @return 사용 가능하면 true
+     */
+    public boolean isAvailable() {
+        return dataSource != null && available;
+    }
+
+    /**
+     * 쿼리 실행 중 발생한 오류를 분류하고 처리합니다.
+     * 연결 수준 오류이면 해당 연결만 풀에서 제거하고, 쿼리 수준 오류이면 연결을 그대로 둡니다.
+     *
+     * @param conn 오류가 발생한 연결 (연결 획득 전 오류면 null)
+     * @param e 발생한 오류
+     * @return 오류 종류
+     */
+    public FailureKind handleFailure(Connection conn, SQLException e) {
+        FailureKind kind = classify(conn, e);
+        if (kind == FailureKind.CONNECTION && conn != null) {
+            evict(conn);
+        }
+        return kind;
+    }
+
+    /**
+     * 연결 수준 오류가 반복되어 연결 풀 전체가 사용 불가능한 것으로 판단합니다.
+     * 스크래핑은 즉시 실패하도록 하고, 백그라운드에서 재연결을 시도합니다.
+     */
+    public void markUnavailable() {
+        if (available) {
+            logger.warn("Database connection pool {} marked unavailable; reconnecting in background", endpoint);
+        }
+        available = false;
+        scheduleReconnect();
+    }
+
+    /**
+     * 연결을 풀에서 제거합니다. 다른 연결은 그대로 유지됩니다.
+     *
+     * @param conn 제거할 연결
+     */
+    public void evict(Connection conn) {
+        HikariDataSource ds = dataSource;
+        if (ds == null || conn == null) {
+            return;
+        }
+        try {
+            ds.evictConnection(conn);
+            logger.warn("Evicted broken connection from pool {}", endpoint);
+        } catch (Exception e) {
+            logger.debug("Failed to evict connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * SQL 오류를 쿼리 수준 또는 연결 수준으로 분류합니다.
+     * 예외 타입과 SQLState(08xxx: 연결 오류)를 먼저 확인하고,
+     * 판단할 수 없으면 연결의 isValid()로 실제 연결 상태를 확인합니다.
+     *
+     * @param conn 오류가 발생한 연결 (null 허용)
+     * @param e 발생한 오류
+     * @return 오류 종류
+     */
+    public static FailureKind classify(Connection conn, SQLException e) {
+        if (e instanceof SQLTimeoutException) {
+            // 쿼리 타임아웃/취소는 연결 문제가 아님
+            return FailureKind.QUERY;
+        }
+        if (e instanceof SQLNonTransientConnectionException
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLRecoverableException) {
+            return FailureKind.CONNECTION;
+        }
+        String sqlState = e.getSQLState();
+        if (sqlState != null && sqlState.startsWith("08")) {
+            return FailureKind.CONNECTION;
+        }
+        if (conn == null) {
+            return FailureKind.CONNECTION;
+        }
+        try {
+            return conn.isValid(VALIDATION_TIMEOUT_SECONDS) ? FailureKind.QUERY : FailureKind.CONNECTION;
+        } catch (SQLException validationError) {
+            return FailureKind.CONNECTION;
+        }
+    }
+
+    /**
+     * 연결 대여(getConnection) 실패를 분류합니다.
+     * 모든 연결이 사용 중이라 대기 시간이 지난 풀 경합은 데이터베이스 연결이 끊어진 것이 아니므로 QUERY로 분류하여
+     * 해당 쿼리만 실패하도록 하고, 새 연결을 만들지 못한 경우(원인의 SQLState 08xxx 등)와
+     * 사용 중인 연결이 하나도 없는데 대여하지 못한 경우만 CONNECTION으로 분류합니다.
+     *
+     * @param e 연결 대여 중 발생한 오류
+     * @return 오류 종류
+     */
+    public FailureKind classifyCheckout(SQLException e) {
+        HikariDataSource ds = dataSource;
+        if (ds == null || !available) {
+            return FailureKind.CONNECTION;
+        }
+        // HikariCP의 대기 시간 초과 예외는 항상 SQLTransientConnectionException이므로 타입 대신 SQLState와 원인을 확인
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                String sqlState = ((SQLException) t).getSQLState();
+                if (sqlState != null && sqlState.startsWith("08")) {
+                    return FailureKind.CONNECTION;
+                }
+            }
+            if (t != e && (t instanceof SQLNonTransientConnectionException || t instanceof SQLRecoverableException)) {
+                return FailureKind.CONNECTION;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        try {
+            return ds.getHikariPoolMXBean() != null && ds.getHikariPoolMXBean().getActiveConnections() > 0
+                    ? FailureKind.QUERY : FailureKind.CONNECTION;
+        } catch (RuntimeException mxError) {
+            return FailureKind.CONNECTION;
+        }
+    }
+
+    /**
+     * 백그라운드 재연결을 예약합니다. 이미 예약되어 있으면 아무것도 하지 않습니다.
+     */
+    private void scheduleReconnect() {
+        if (reconnectExecutor.isShutdown() || !reconnectScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = backoffMillis.getAndUpdate(current -> Math.min(current * 2, MAX_BACKOFF_MILLIS));
+        logger.info("Scheduling database reconnect in {}ms", delay);
+        reconnectExecutor.schedule(() -> {
+            reconnectScheduled.set(false);
+            if (!tryConnect()) {
+                scheduleReconnect();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 연결 풀을 생성(필요 시)하고 검증 쿼리로 연결 가능 여부를 확인합니다.
+     * 풀이 이미 있으면 다시 만들지 않고 검증만 수행합니다. HikariCP가 끊어진 연결을 스스로 교체하므로
+     * 데이터베이스가 복구되면 기존 풀의 유휴 연결을 그대로 재사용할 수 있습니다.
+     *
+     * @return 연결 가능하면 true
+     */
+    private synchronized boolean tryConnect() {
+        try {
+            if (dataSource == null) {
+                dataSource = createDataSource();
+            }
+
+            // 연결 유효성 검증
+            try (Connection conn = dataSource.getConnection();
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(VALIDATION_QUERY)) {
+                if (!rs.next()) {
+                    throw new SQLException("Connection validation query returned no result");
+                }
+            }
+
+            if (!available) {
+                logger.info("Tibero database connection pool initialized: {}", endpoint);
+                logger.info("Connection pool config - max: {}, min: {}, timeout: {}ms",
+                        maxPoolSize, minIdle, config.getConnectionTimeout());
+            }
+            available = true;
+            backoffMillis.set(INITIAL_BACKOFF_MILLIS);
+            return true;
+
+        } catch (ClassNotFoundException e) {
+            available = false;
+            logger.error("Tibero JDBC driver not found: {}", e.getMessage());
+            logger.error("Make sure tibero7-jdbc.jar is included in the classpath");
+        } catch (Exception e) {
+            available = false;
+            logger.error("Database connection failed: {}", e.getMessage());
+            logger.error("Check database connectivity: endpoint={}, user={}", endpoint, config.getDbUser());
+            logger.debug("Connection error details:", e);
+        }
+        return false;
+    }
+
+    /**
+     * HikariCP 데이터소스를 생성합니다.
+     *
+     * @return 새 데이터소스
+     * @throws ClassNotFoundException JDBC 드라이버를 찾을 수 없는 경우
+     */
+    private HikariDataSource createDataSource() throws ClassNotFoundException {
+        // Tibero JDBC 드라이버 로드
+        Class.forName("com.tmax.tibero.jdbc.TbDriver");
+        logger.debug("Tibero JDBC driver loaded successfully");
+
+        logger.info("Initializing Tibero connection pool: {}", jdbcUrl);
+
+        // HikariCP 설정
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setDriverClassName("com.tmax.tibero.jdbc.TbDriver");  // 드라이버 클래스 명시
+        hikariConfig.setJdbcUrl(jdbcUrl);
+        hikariConfig.setUsername(config.getDbUser());
+        hikariConfig.setPassword(config.getDbPassword());
+        hikariConfig.setMaximumPoolSize(maxPoolSize);                  // 최대 연결 수
+        hikariConfig.setMinimumIdle(minIdle);                          // 최소 유휴 연결 수
+        hikariConfig.setConnectionTimeout(config.getConnectionTimeout()); // 연결 타임아웃
+        hikariConfig.setIdleTimeout(config.getIdleTimeout());          // 유휴 타임아웃
+        hikariConfig.setMaxLifetime(config.getMaxLifetime());          // 최대 연결 수명
+        hikariConfig.setConnectionTestQuery(VALIDATION_QUERY);         // 연결 검증 쿼리
+        hikariConfig.setPoolName(poolName);
+        hikariConfig.setInitializationFailTimeout(-1);                 // 초기화 실패해도 시작 허용
+
+        return new HikariDataSource(hikariConfig);
+    }
+
+    /**
+     * 재연결 스케줄러와 연결 풀을 종료합니다.
+     */
+    public synchronized void close() {
+        reconnectExecutor.shutdownNow();
+        if (dataSource != null) {
+            try {
+                dataSource.close();
+                logger.info("Database connection pool closed");
+            } catch (Exception e) {
+                logger.error("Error while closing connection pool: {}", e.getMessage());
+            } finally {
+                dataSource = null;
+                available = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tibero.exporter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 레이블 보강용 차원(dimension) 쿼리 설정
+ * 테이블스페이스 유형, 스키마 소유자처럼 자주 바뀌지 않는 딕셔너리 정보를 긴 주기로 조회해 두고,
+ * 메트릭 결과 행에 키 컬럼으로 조인하여 레이블을 추가하는 데 사용합니다.
+ * 메트릭 파일의 dimensions 섹션에 정의하며, 메트릭은 dimensions 옵션으로 이름을 참조합니다.
+ */
+public class DimensionConfig {
+    public static final int DEFAULT_REFRESH_SECONDS = 3600;  // 기본 갱신 주기 (1시간)
+
+    private final MetricConfig query;                 // 차원 쿼리 (name, request, fetchsize, columntypes)
+    private final List<String> keyColumns;            // 조인 키 컬럼 (소문자, 메트릭 결과에도 있어야 함)
+    private final int refreshSeconds;                 // 갱신 주기 (초)
+
+    /**
+     * DimensionConfig 생성자
+     *
+     * @param query 차원 쿼리 설정
+     * @param keyColumns 조인 키 컬럼
+     * @param refreshSeconds 갱신 주기 (초)
+     */
+    public DimensionConfig(MetricConfig query, List<String> keyColumns, int refreshSeconds) {
+        this.query = query;
+        this.keyColumns = new ArrayList<>(keyColumns.size());
+        for (String column : keyColumns) {
+            this.keyColumns.add(column.toLowerCase());
+        }
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    public String getName() {
+        return query.getName();
+    }
+
+    public MetricConfig getQuery() {
+        return query;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public int getRefreshSeconds() {
+        return refreshSeconds;
+    }
+}
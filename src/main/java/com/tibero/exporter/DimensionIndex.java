@@ -0,0 +1,70 @@
+package com.tibero.exporter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 차원 쿼리 결과를 조인 키로 색인한 메모리 내 해시 인덱스
+ * 메트릭 결과 행의 키 컬럼 값으로 차원 행을 찾아, 메트릭 레이블 중 결과 행에 없는 컬럼을 채웁니다.
+ * 일치하는 차원 행이 없으면 채우지 않으며, 이 경우 레이블 값은 빈 문자열이 됩니다.
+ */
+public class DimensionIndex {
+    private static final char KEY_SEPARATOR = '\u0000';     // 복합 키 구분자
+
+    private final Map<String, Map<String, Object>> rows;    // 조인 키 -> 차원 행
+    private final long loadedAt;                            // 조회 시각 (epoch 밀리초)
+
+    /**
+     * 차원 쿼리 결과로 인덱스를 만듭니다. 키가 같은 행이 여러 개면 첫 행을 사용합니다.
+     *
+     * @param dimension 차원 설정
+     * @param results 차원 쿼리 결과 (컬럼명 소문자)
+     * @param loadedAt 조회 시각 (epoch 밀리초)
+     */
+    public DimensionIndex(DimensionConfig dimension, List<Map<String, Object>> results, long loadedAt) {
+        this.rows = new HashMap<>(results.size() * 2);
+        for (Map<String, Object> row : results) {
+            rows.putIfAbsent(key(dimension.getKeyColumns(), row), row);
+        }
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * 메트릭 결과 행에 차원 컬럼을 채웁니다.
+     *
+     * @param dimension 차원 설정
+     * @param labels 메트릭 레이블 (소문자, 결과 행에 없는 것만 채움)
+     * @param row 메트릭 결과 행 (수정됨)
+     */
+    public void enrich(DimensionConfig dimension, List<String> labels, Map<String, Object> row) {
+        Map<String, Object> match = rows.get(key(dimension.getKeyColumns(), row));
+        if (match == null) {
+            return;
+        }
+        for (String label : labels) {
+            if (row.get(label) == null && match.get(label) != null) {
+                row.put(label, match.get(label));
+            }
+        }
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    private static String key(List<String> keyColumns, Map<String, Object> row) {
+        if (keyColumns.size() == 1) {
+            return String.valueOf(row.get(keyColumns.get(0)));
+        }
+        StringBuilder key = new StringBuilder();
+        for (String column : keyColumns) {
+            key.append(row.get(column)).append(KEY_SEPARATOR);
+        }
+        return key.toString();
+    }
+}
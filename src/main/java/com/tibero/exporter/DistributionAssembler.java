@@ -0,0 +1,196 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 쿼리 결과 행을 Prometheus histogram/summary 메트릭 패밀리로 조립하는 클래스
+ * histogram은 결과 행 하나가 버킷 하나(bucketcolumn: 상한, valuecolumn: 관측 수)이며,
+ * 레이블 조합별로 버킷을 상한 순으로 정렬하고 누적하여 _bucket, _count, _sum 샘플을 만듭니다.
+ * summary는 결과 행 하나가 분위수 하나(quantilecolumn: 분위수, valuecolumn: 값)입니다.
+ * sumcolumn/countcolumn은 레이블 조합별 합계로, 여러 행에 반복되어 있으면 첫 번째 값을 사용합니다.
+ */
+public class DistributionAssembler {
+    private static final Logger logger = LoggerFactory.getLogger(DistributionAssembler.class);
+
+    private DistributionAssembler() {
+    }
+
+    /**
+     * 결과 행으로 histogram 또는 summary 메트릭 패밀리를 만듭니다.
+     *
+     * @param metricConfig 메트릭 설정 (histogram 또는 summary 타입)
+     * @param rows 쿼리 결과 (컬럼명 소문자)
+     * @param instanceName TAC 인스턴스 레이블 값 (단일 노드 모드는 null)
+     * @return 메트릭 패밀리 (유효한 행이 없으면 null)
+     */
+    public static MetricFamilySamples assemble(MetricConfig metricConfig, List<Map<String, Object>> rows,
+                                               String instanceName) {
+        List<String> labelNames = new ArrayList<>(metricConfig.getLabels());
+        if (instanceName != null) {
+            labelNames.add(MetricSeriesCache.INSTANCE_LABEL);
+        }
+
+        // 레이블 조합별 분포 (결과 행 순서 유지)
+        Map<List<String>, Distribution> distributions = new LinkedHashMap<>();
+        String keyColumn = metricConfig.isHistogram() ? metricConfig.getBucketColumn() : metricConfig.getQuantileColumn();
+        int invalidQuantiles = 0;
+
+        for (Map<String, Object> row : rows) {
+            Double key = metricConfig.isHistogram() ? toBound(row.get(keyColumn)) : toQuantile(row.get(keyColumn));
+            if (key == null && !metricConfig.isHistogram()) {
+                invalidQuantiles++;
+                continue;
+            }
+            Double value = toDouble(row.get(metricConfig.getValueColumn()));
+            if (key == null || value == null) {
+                logger.debug("Skipping row of {} without {} or {}", metricConfig.getName(),
+                        keyColumn, metricConfig.getValueColumn());
+                continue;
+            }
+
+            List<String> labelValues = new ArrayList<>(labelNames.size());
+            for (String label : metricConfig.getLabels()) {
+                Object labelValue = row.get(label.toLowerCase());
+                labelValues.add(labelValue != null ? labelValue.toString() : "");
+            }
+            if (instanceName != null) {
+                labelValues.add(instanceName);
+            }
+
+            Distribution distribution = distributions.computeIfAbsent(labelValues, k -> new Distribution());
+            distribution.points.merge(key, value, Double::sum);
+            if (distribution.sum == null && !metricConfig.getSumColumn().isEmpty()) {
+                distribution.sum = toDouble(row.get(metricConfig.getSumColumn()));
+            }
+            if (distribution.count == null && !metricConfig.getCountColumn().isEmpty()) {
+                distribution.count = toDouble(row.get(metricConfig.getCountColumn()));
+            }
+        }
+
+        if (invalidQuantiles > 0) {
+            logger.warn("Skipped {} rows of {} with a NULL or invalid {} (quantile must be between 0 and 1)",
+                    invalidQuantiles, metricConfig.getName(), keyColumn);
+        }
+        if (distributions.isEmpty()) {
+            return null;
+        }
+
+        String name = metricConfig.distributionName();
+        List<Sample> samples = new ArrayList<>();
+        for (Map.Entry<List<String>, Distribution> entry : distributions.entrySet()) {
+            if (metricConfig.isHistogram()) {
+                addHistogram(samples, name, labelNames, entry.getKey(), entry.getValue(), metricConfig.isCumulative());
+            } else {
+                addSummary(samples, name, labelNames, entry.getKey(), entry.getValue());
+            }
+        }
+
+        Collector.Type type = metricConfig.isHistogram() ? Collector.Type.HISTOGRAM : Collector.Type.SUMMARY;
+        return new MetricFamilySamples(name, type, metricConfig.getHelp(), samples);
+    }
+
+    /**
+     * 레이블 조합 하나의 histogram 샘플(_bucket, _count, _sum)을 추가합니다.
+     * 누적값이 아닌 버킷은 상한 순서대로 누적하며, +Inf 버킷이 없으면 전체 관측 수로 추가합니다.
+     */
+    private static void addHistogram(List<Sample> samples, String name, List<String> labelNames,
+                                     List<String> labelValues, Distribution distribution, boolean cumulative) {
+        List<String> bucketLabelNames = new ArrayList<>(labelNames);
+        bucketLabelNames.add("le");
+
+        double running = 0;
+        for (Map.Entry<Double, Double> bucket : distribution.points.entrySet()) {
+            running = cumulative ? Math.max(running, bucket.getValue()) : running + bucket.getValue();
+            List<String> bucketLabelValues = new ArrayList<>(labelValues);
+            bucketLabelValues.add(Collector.doubleToGoString(bucket.getKey()));
+            samples.add(new Sample(name + "_bucket", bucketLabelNames, bucketLabelValues, running));
+        }
+        if (!distribution.points.containsKey(Double.POSITIVE_INFINITY)) {
+            List<String> bucketLabelValues = new ArrayList<>(labelValues);
+            bucketLabelValues.add("+Inf");
+            samples.add(new Sample(name + "_bucket", bucketLabelNames, bucketLabelValues, running));
+        }
+
+        samples.add(new Sample(name + "_count", labelNames, labelValues, running));
+        if (distribution.sum != null) {
+            samples.add(new Sample(name + "_sum", labelNames, labelValues, distribution.sum));
+        }
+    }
+
+    /**
+     * 레이블 조합 하나의 summary 샘플(분위수, _count, _sum)을 추가합니다.
+     */
+    private static void addSummary(List<Sample> samples, String name, List<String> labelNames,
+                                   List<String> labelValues, Distribution distribution) {
+        List<String> quantileLabelNames = new ArrayList<>(labelNames);
+        quantileLabelNames.add("quantile");
+
+        for (Map.Entry<Double, Double> quantile : distribution.points.entrySet()) {
+            List<String> quantileLabelValues = new ArrayList<>(labelValues);
+            quantileLabelValues.add(Collector.doubleToGoString(quantile.getKey()));
+            samples.add(new Sample(name, quantileLabelNames, quantileLabelValues, quantile.getValue()));
+        }
+
+        if (distribution.count != null) {
+            samples.add(new Sample(name + "_count", labelNames, labelValues, distribution.count));
+        }
+        if (distribution.sum != null) {
+            samples.add(new Sample(name + "_sum", labelNames, labelValues, distribution.sum));
+        }
+    }
+
+    /**
+     * histogram 버킷 상한을 변환합니다. "+Inf", "Inf"와 NULL(상한 없음)은 +Inf로 처리합니다.
+     */
+    private static Double toBound(Object value) {
+        if (value == null) {
+            return Double.POSITIVE_INFINITY;
+        }
+        String text = value.toString().trim();
+        if (text.equalsIgnoreCase("+Inf") || text.equalsIgnoreCase("Inf")) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return toDouble(value);
+    }
+
+    /**
+     * summary 분위수를 변환합니다. NULL이거나 0~1 범위를 벗어난 값은 유효한 분위수가 아니므로 null을 반환합니다.
+     */
+    private static Double toQuantile(Object value) {
+        Double quantile = toDouble(value);
+        return quantile != null && quantile >= 0 && quantile <= 1 ? quantile : null;
+    }
+
+    private static Double toDouble(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 레이블 조합 하나의 버킷(또는 분위수)과 합계/관측 수
+     */
+    private static class Distribution {
+        private final TreeMap<Double, Double> points = new TreeMap<>();   // 상한(분위수) -> 관측 수(값)
+        private Double sum;                                               // 관측값 합계
+        private Double count;                                             // 관측 수 (summary)
+    }
+}
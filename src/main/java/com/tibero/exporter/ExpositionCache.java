@@ -0,0 +1,120 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 메트릭 패밀리별로 렌더링된 텍스트 형식(0.0.4) 바이트를 보관하는 캐시
+ * 스크래핑마다 패밀리의 레이블과 값으로 간단한 해시를 계산하여 이전 렌더링과 같으면 저장된 바이트를 그대로 쓰고,
+ * 달라진 패밀리만 다시 렌더링합니다. 노출 형식 생성 비용이 전체 시계열 수가 아닌 변경량에 비례하게 됩니다.
+ */
+public class ExpositionCache {
+    private static final Logger logger = LoggerFactory.getLogger(ExpositionCache.class);
+
+    private final Map<String, Segment> segments = new HashMap<>();  // 패밀리 이름 -> 렌더링 결과
+
+    /**
+     * 메트릭 패밀리 목록을 텍스트 형식(0.0.4)으로 출력합니다.
+     * 변경되지 않은 패밀리는 캐시된 바이트를 사용하고, 이번에 없는 패밀리는 캐시에서 제거합니다.
+     *
+     * @param families 출력할 메트릭 패밀리 목록
+     * @param out 출력 스트림
+     * @throws IOException 출력 실패 시
+     */
+    public synchronized void write(List<MetricFamilySamples> families, OutputStream out) throws IOException {
+        Set<String> present = new HashSet<>(families.size() * 2);
+        int rendered = 0;
+
+        for (MetricFamilySamples family : families) {
+            present.add(family.name);
+            Segment segment = segments.get(family.name);
+
+            if (segment == null || !segment.matches(family)) {
+                segment = new Segment(family, hash(family), render(family));
+                segments.put(family.name, segment);
+                rendered++;
+            }
+            out.write(segment.bytes);
+        }
+
+        segments.keySet().retainAll(present);
+        logger.debug("Exposition: {} of {} metric families re-rendered", rendered, families.size());
+    }
+
+    /**
+     * 메트릭 패밀리 하나를 텍스트 형식(0.0.4)으로 렌더링합니다.
+     */
+    private static byte[] render(MetricFamilySamples family) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128 + family.samples.size() * 64);
+        Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8);
+        TextFormat.write004(writer, Collections.enumeration(Collections.singletonList(family)));
+        writer.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 메트릭 패밀리의 내용(도움말, 샘플 이름, 레이블 값, 값)으로 해시를 계산합니다.
+     * 문자열의 hashCode는 String 내부에 캐시되므로 재사용되는 레이블 값은 추가 비용이 거의 없습니다.
+     * SnapshotStore도 같은 해시로 변경되지 않은 패밀리의 재인코딩을 건너뜁니다.
+     */
+    static long hash(MetricFamilySamples family) {
+        long h = 1125899906842597L;
+        h = 31 * h + (family.help != null ? family.help.hashCode() : 0);
+        h = 31 * h + family.type.hashCode();
+        for (MetricFamilySamples.Sample sample : family.samples) {
+            h = 31 * h + sample.name.hashCode();
+            for (String labelValue : sample.labelValues) {
+                h = 31 * h + labelValue.hashCode();
+            }
+            h = 31 * h + Double.doubleToLongBits(sample.value);
+        }
+        return h;
+    }
+
+    /**
+     * 렌더링된 메트릭 패밀리 하나
+     */
+    private static class Segment {
+        private MetricFamilySamples family;     // 마지막으로 확인한 패밀리 객체
+        private final long hash;                // 렌더링 당시 내용 해시
+        private final int sampleCount;          // 렌더링 당시 샘플 수
+        private final byte[] bytes;             // 렌더링 결과
+
+        Segment(MetricFamilySamples family, long hash, byte[] bytes) {
+            this.family = family;
+            this.hash = hash;
+            this.sampleCount = family.samples.size();
+            this.bytes = bytes;
+        }
+
+        /**
+         * 패밀리 내용이 렌더링 당시와 같은지 확인합니다.
+         * 수집기가 변경 없는 패밀리 객체를 재사용하면 해시 계산 없이 바로 일치로 판단합니다.
+         */
+        boolean matches(MetricFamilySamples candidate) {
+            if (candidate == family) {
+                return true;
+            }
+            if (candidate.samples.size() != sampleCount || hash(candidate) != hash) {
+                return false;
+            }
+            family = candidate;
+            return true;
+        }
+    }
+}
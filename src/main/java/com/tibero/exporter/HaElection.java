@@ -0,0 +1,175 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.GaugeMetricFamily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 호스트의 Exporter 두 대가 잠금 파일로 리더를 정하는 능동/대기(active/standby) 선출기
+ * 잠금 파일의 배타적 잠금(FileChannel.tryLock)을 얻은 프로세스가 리더가 되어 데이터베이스에 연결하고,
+ * 전체 범위 스크래핑 결과(텍스트 0.0.4 형식)를 잠금 파일 옆의 스냅샷 파일에 원자적으로 기록합니다.
+ * 대기 프로세스는 데이터베이스에 연결하지 않고 스냅샷 파일을 그대로 응답하며, 잠금을 주기적으로 다시 시도합니다.
+ * 리더 프로세스가 종료되면 운영체제가 잠금을 해제하므로 대기 프로세스가 다음 시도에서 리더가 됩니다.
+ */
+public class HaElection {
+    private static final Logger logger = LoggerFactory.getLogger(HaElection.class);
+    private static final long RETRY_MILLIS = 1000;              // 대기 상태에서 잠금을 다시 시도하는 주기
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";  // 스냅샷 파일 접미사 (잠금 파일 경로 뒤)
+
+    private final Path lockFile;                    // 잠금 파일
+    private final Path snapshotFile;                // 리더가 기록하는 스냅샷 파일
+    private final Runnable onLeader;                // 리더가 되었을 때 한 번 실행 (연결 풀 시작)
+    private final ScheduledExecutorService executor;
+    private volatile boolean leader = false;        // 현재 리더 여부
+    private FileChannel channel;                    // 잠금을 유지하는 채널 (리더인 동안 열려 있음)
+    private FileLock lock;                          // 보유 중인 잠금
+
+    /**
+     * HaElection 생성자
+     *
+     * @param lockFile 잠금 파일 경로 (두 프로세스가 같은 경로를 사용)
+     * @param onLeader 리더가 되었을 때 실행할 작업
+     */
+    public HaElection(String lockFile, Runnable onLeader) {
+        this.lockFile = Paths.get(lockFile);
+        this.snapshotFile = Paths.get(lockFile + SNAPSHOT_SUFFIX);
+        this.onLeader = onLeader;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tibero-ha-election");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 잠금을 바로 한 번 시도하고, 얻지 못하면 대기 상태로 주기적으로 다시 시도합니다.
+     */
+    public void start() {
+        if (!tryAcquire()) {
+            logger.info("Another exporter holds {}; serving its snapshot as standby", lockFile);
+            executor.scheduleWithFixedDelay(() -> {
+                if (tryAcquire()) {
+                    executor.shutdown();
+                }
+            }, RETRY_MILLIS, RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized boolean tryAcquire() {
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            }
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return false;  // 같은 JVM에서 이미 보유 중
+        } catch (IOException e) {
+            logger.warn("Could not lock {}: {}", lockFile, e.getMessage());
+            return false;
+        }
+        if (lock == null) {
+            return false;
+        }
+        leader = true;
+        logger.info("Acquired {}; this exporter is now the active collector", lockFile);
+        onLeader.run();
+        return true;
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * 리더의 전체 범위 스크래핑 결과를 스냅샷 파일에 기록합니다.
+     * 임시 파일에 쓴 뒤 이름을 바꾸므로 대기 프로세스는 항상 완전한 스냅샷을 읽습니다.
+     *
+     * @param exposition 텍스트 0.0.4 형식의 응답 본문
+     */
+    public void publish(byte[] exposition) {
+        Path temp = Paths.get(snapshotFile + ".tmp");
+        try {
+            Files.write(temp, exposition);
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not publish snapshot to {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 리더가 마지막으로 기록한 스냅샷을 읽습니다.
+     *
+     * @return 텍스트 0.0.4 형식의 응답 본문 (아직 없으면 null)
+     * @throws IOException 스냅샷 파일 읽기 실패 시
+     */
+    public byte[] readSnapshot() throws IOException {
+        try {
+            return Files.readAllBytes(snapshotFile);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 선출 상태를 Exporter 자체 메트릭으로 변환합니다.
+     * 대기 프로세스는 응답하는 스냅샷의 경과 시간도 함께 노출합니다.
+     *
+     * @return tibero_ha_leader, tibero_ha_snapshot_age_seconds 메트릭 패밀리
+     */
+    public List<MetricFamilySamples> metrics() {
+        List<MetricFamilySamples> mfs = new ArrayList<>(2);
+        GaugeMetricFamily leaderMetric = new GaugeMetricFamily(TiberoCollector.NAMESPACE + "_ha_leader",
+                "Whether this exporter holds the HA lock and queries the database", Collections.emptyList());
+        leaderMetric.addMetric(Collections.emptyList(), leader ? 1 : 0);
+        mfs.add(leaderMetric);
+        if (!leader) {
+            try {
+                long modified = Files.getLastModifiedTime(snapshotFile).toMillis();
+                GaugeMetricFamily ageMetric = new GaugeMetricFamily(TiberoCollector.NAMESPACE + "_ha_snapshot_age_seconds",
+                        "Seconds since the active exporter last published the snapshot served by this standby",
+                        Collections.emptyList());
+                ageMetric.addMetric(Collections.emptyList(), (System.currentTimeMillis() - modified) / 1000.0);
+                mfs.add(ageMetric);
+            } catch (IOException e) {
+                // 스냅샷이 아직 없음
+            }
+        }
+        return mfs;
+    }
+
+    /**
+     * 재시도를 중단하고 잠금을 해제합니다.
+     */
+    public synchronized void close() {
+        executor.shutdownNow();
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // 무시
+        }
+        leader = false;
+    }
+}
@@ -0,0 +1,256 @@
+package com.tibero.exporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * V$LOCK 보유/대기 행으로 만든 세션 간 대기 그래프 (wait-for graph)
+ * 같은 자원(TYPE, ID1, ID2)을 요청 중인 세션에서 그 자원을 보유한 세션으로 간선을 잇고,
+ * 루트 블로커(다른 세션을 막고 있지만 자신은 대기하지 않는 세션)별 대기 세션 수와 체인 깊이,
+ * 교착 상태 사이클(서로를 기다리는 세션 집합)을 계산합니다.
+ * 재귀 SQL이나 자기 조인 없이 원시 행 한 번의 조회로 Exporter 안에서 분석하기 위한 클래스이며, 한 번의 수집에서만 사용됩니다.
+ * 보유 행은 대부분 대기 세션이 없는 자원이므로 분석 전에 버립니다.
+ */
+public class LockWaitGraph {
+    private final Map<Resource, List<Integer>> holders = new HashMap<>();     // 자원 -> 보유 세션
+    private final Map<Resource, List<Integer>> waiters = new HashMap<>();     // 자원 -> 요청 세션
+    private final Map<Integer, Double> waitSeconds = new HashMap<>();         // 요청 세션 -> 대기 시간 (초)
+    private final Map<Integer, Set<Integer>> blockers = new LinkedHashMap<>(); // 세션 -> 막고 있는 세션 (정방향 간선)
+    private final Map<Integer, Set<Integer>> blocked = new LinkedHashMap<>();  // 세션 -> 막혀 있는 세션 (역방향 간선)
+
+    /**
+     * V$LOCK 행 하나를 추가합니다.
+     *
+     * @param sid 세션 ID
+     * @param type 잠금 타입
+     * @param id1 자원 식별자 1
+     * @param id2 자원 식별자 2
+     * @param held 보유 모드(LMODE)가 0보다 큰지 여부
+     * @param requested 요청 모드(REQUEST)가 0보다 큰지 여부
+     * @param seconds 현재 모드로 보유 또는 요청한 시간 (CTIME, 초)
+     */
+    public void add(int sid, String type, String id1, String id2, boolean held, boolean requested, double seconds) {
+        Resource resource = new Resource(type, id1, id2);
+        if (held) {
+            holders.computeIfAbsent(resource, k -> new ArrayList<>()).add(sid);
+        }
+        if (requested) {
+            waiters.computeIfAbsent(resource, k -> new ArrayList<>()).add(sid);
+            waitSeconds.merge(sid, seconds, Math::max);
+        }
+    }
+
+    /**
+     * 추가한 행으로 대기 간선을 만들고 분석합니다 (요청 세션이 없는 자원은 제외).
+     *
+     * @return 분석 결과
+     */
+    public Analysis analyze() {
+        holders.keySet().retainAll(waiters.keySet());  // 요청 세션이 없는 자원의 보유 행은 간선을 만들지 않음
+        for (Map.Entry<Resource, List<Integer>> entry : waiters.entrySet()) {
+            List<Integer> resourceHolders = holders.getOrDefault(entry.getKey(), Collections.emptyList());
+            for (int waiter : entry.getValue()) {
+                for (int holder : resourceHolders) {
+                    if (holder != waiter) {
+                        blockers.computeIfAbsent(waiter, k -> new LinkedHashSet<>()).add(holder);
+                        blocked.computeIfAbsent(holder, k -> new LinkedHashSet<>()).add(waiter);
+                    }
+                }
+            }
+        }
+
+        Analysis analysis = new Analysis();
+        analysis.blockedSessions = blockers.size();
+        for (Set<Integer> cycle : cycles()) {
+            analysis.cycles.add(new ArrayList<>(cycle));
+            analysis.deadlockedSessions += cycle.size();
+        }
+        for (int holder : blocked.keySet()) {
+            if (blockers.containsKey(holder)) {
+                continue;  // 자신도 대기 중인 세션은 루트가 아님
+            }
+            RootBlocker root = new RootBlocker(holder);
+            Map<Integer, Integer> depths = new HashMap<>();
+            root.chainDepth = depth(holder, depths, new LinkedHashSet<>());
+            depths.remove(holder);
+            root.blockedSessions = depths.size();
+            for (int waiter : depths.keySet()) {
+                root.maxWaitSeconds = Math.max(root.maxWaitSeconds, waitSeconds.getOrDefault(waiter, 0.0));
+            }
+            analysis.roots.add(root);
+            analysis.maxChainDepth = Math.max(analysis.maxChainDepth, root.chainDepth);
+        }
+        return analysis;
+    }
+
+    /**
+     * 세션 뒤에 줄 선 가장 긴 대기 체인의 길이를 구하고, 도달한 대기 세션을 기록합니다.
+     * 사이클에 속한 세션이 루트도 함께 기다리는 경우를 위해 현재 경로에 있는 세션은 다시 따라가지 않습니다.
+     *
+     * @param sid 세션 ID
+     * @param depths 도달한 세션 -> 그 세션 뒤의 체인 길이
+     * @param path 현재 탐색 경로
+     * @return 체인 길이 (막고 있는 세션이 없으면 0)
+     */
+    private int depth(int sid, Map<Integer, Integer> depths, Set<Integer> path) {
+        Integer known = depths.get(sid);
+        if (known != null) {
+            return known;
+        }
+        path.add(sid);
+        int longest = 0;
+        for (int waiter : blocked.getOrDefault(sid, Collections.emptySet())) {
+            if (!path.contains(waiter)) {
+                longest = Math.max(longest, 1 + depth(waiter, depths, path));
+            }
+        }
+        path.remove(sid);
+        depths.put(sid, longest);
+        return longest;
+    }
+
+    /**
+     * 서로를 기다리는 세션 집합(강연결 요소 중 세션이 둘 이상인 것)을 구합니다 (Tarjan 알고리즘).
+     */
+    private List<Set<Integer>> cycles() {
+        Tarjan tarjan = new Tarjan();
+        for (int sid : blockers.keySet()) {
+            if (!tarjan.index.containsKey(sid)) {
+                tarjan.visit(sid);
+            }
+        }
+        return tarjan.cycles;
+    }
+
+    private class Tarjan {
+        final Map<Integer, Integer> index = new HashMap<>();
+        final Map<Integer, Integer> lowLink = new HashMap<>();
+        final List<Integer> stack = new ArrayList<>();
+        final Set<Integer> onStack = new LinkedHashSet<>();
+        final List<Set<Integer>> cycles = new ArrayList<>();
+
+        void visit(int sid) {
+            index.put(sid, index.size());
+            lowLink.put(sid, index.get(sid));
+            stack.add(sid);
+            onStack.add(sid);
+            for (int holder : blockers.getOrDefault(sid, Collections.emptySet())) {
+                if (!index.containsKey(holder)) {
+                    visit(holder);
+                    lowLink.put(sid, Math.min(lowLink.get(sid), lowLink.get(holder)));
+                } else if (onStack.contains(holder)) {
+                    lowLink.put(sid, Math.min(lowLink.get(sid), index.get(holder)));
+                }
+            }
+            if (lowLink.get(sid).equals(index.get(sid))) {
+                Set<Integer> component = new LinkedHashSet<>();
+                int member;
+                do {
+                    member = stack.remove(stack.size() - 1);
+                    onStack.remove(member);
+                    component.add(member);
+                } while (member != sid);
+                if (component.size() > 1) {
+                    cycles.add(component);
+                }
+            }
+        }
+    }
+
+    /**
+     * 대기 그래프 분석 결과
+     */
+    public static class Analysis {
+        private int blockedSessions;                                // 다른 세션을 기다리는 세션 수
+        private int maxChainDepth;                                  // 가장 긴 대기 체인 길이
+        private int deadlockedSessions;                             // 사이클에 속한 세션 수
+        private final List<RootBlocker> roots = new ArrayList<>();  // 루트 블로커
+        private final List<List<Integer>> cycles = new ArrayList<>();  // 교착 상태 사이클별 세션
+
+        public int getBlockedSessions() {
+            return blockedSessions;
+        }
+
+        public int getMaxChainDepth() {
+            return maxChainDepth;
+        }
+
+        public int getDeadlockedSessions() {
+            return deadlockedSessions;
+        }
+
+        public List<RootBlocker> getRoots() {
+            return roots;
+        }
+
+        public List<List<Integer>> getCycles() {
+            return cycles;
+        }
+    }
+
+    /**
+     * 다른 세션을 막고 있지만 자신은 대기하지 않는 세션
+     */
+    public static class RootBlocker {
+        private final int sid;              // 세션 ID
+        private int blockedSessions;        // 직접 또는 간접으로 막고 있는 세션 수
+        private int chainDepth;             // 뒤에 줄 선 가장 긴 대기 체인 길이
+        private double maxWaitSeconds;      // 막고 있는 세션 중 가장 오래 기다린 시간 (초)
+
+        RootBlocker(int sid) {
+            this.sid = sid;
+        }
+
+        public int getSid() {
+            return sid;
+        }
+
+        public int getBlockedSessions() {
+            return blockedSessions;
+        }
+
+        public int getChainDepth() {
+            return chainDepth;
+        }
+
+        public double getMaxWaitSeconds() {
+            return maxWaitSeconds;
+        }
+    }
+
+    /**
+     * 잠금 자원 식별자 (TYPE, ID1, ID2)
+     */
+    private static class Resource {
+        final String type;
+        final String id1;
+        final String id2;
+
+        Resource(String type, String id1, String id2) {
+            this.type = type;
+            this.id1 = id1;
+            this.id2 = id2;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Resource)) {
+                return false;
+            }
+            Resource other = (Resource) o;
+            return Objects.equals(type, other.type) && Objects.equals(id1, other.id1) && Objects.equals(id2, other.id2);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id1, id2);
+        }
+    }
+}
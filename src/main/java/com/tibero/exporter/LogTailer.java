@@ -0,0 +1,386 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tibero 인스턴스 로그 파일(alert/trace 로그)을 증분으로 읽어 이벤트 카운터로 노출하는 수집기 (--log.files)
+ * V$ 뷰에 나타나지 않는 오류 코드, 체크포인트, 로그 스위치 메시지를 데이터베이스 조회 없이 집계합니다.
+ * 파일마다 마지막으로 읽은 위치를 기억하고 FileChannel의 위치 지정 읽기(read(buffer, position))로
+ * 새로 추가된 부분만 읽으므로, 로그가 커져도 처음부터 다시 읽지 않습니다.
+ * 파일 식별자(inode)가 바뀌면 이전 파일의 남은 부분을 마저 읽은 뒤 새 파일을 처음부터 읽고,
+ * 파일 크기가 읽은 위치보다 작아지면(copytruncate) 처음부터 다시 읽습니다.
+ * 각 줄은 미리 컴파일한 패턴의 재사용 Matcher로 검사하며, 첫 번째 캡처 그룹은 code 레이블이 됩니다.
+ * 시작 시 이미 있던 내용은 건너뛰고 이후에 추가된 줄만 집계합니다.
+ */
+public class LogTailer extends Collector {
+    private static final Logger logger = LoggerFactory.getLogger(LogTailer.class);
+    private static final int BUFFER_SIZE = 64 * 1024;   // 위치 지정 읽기 버퍼 크기
+    private static final int MAX_LINE = 64 * 1024;      // 한 줄 최대 길이 (넘는 부분은 버림)
+    private static final int MAX_CODES = 200;           // 이벤트별 code 레이블 값 최대 개수 (넘으면 "other")
+
+    // --log.patterns를 지정하지 않았을 때 사용하는 기본 패턴
+    private static final List<LogPattern> DEFAULT_PATTERNS = Arrays.asList(
+            new LogPattern("error", Pattern.compile("\\b(TBR-\\d+)")),
+            new LogPattern("checkpoint", Pattern.compile("checkpoint", Pattern.CASE_INSENSITIVE)),
+            new LogPattern("log_switch", Pattern.compile("log\\s*switch", Pattern.CASE_INSENSITIVE)));
+
+    private final List<TailedFile> files = new ArrayList<>();   // 추적 중인 로그 파일
+    private final List<LogPattern> patterns;                    // 줄마다 검사할 패턴
+    private final long intervalMillis;                          // 읽기 주기 (밀리초)
+    private final ScheduledExecutorService executor;            // 읽기 스레드 (모든 파일을 차례로 읽음)
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);  // 읽기 스레드 전용 버퍼
+    private final Matcher[] matchers;                           // 패턴별 재사용 Matcher (읽기 스레드 전용)
+
+    /**
+     * LogTailer 생성자
+     *
+     * @param paths 추적할 로그 파일 경로
+     * @param patterns 줄마다 검사할 패턴
+     * @param intervalMillis 읽기 주기 (밀리초)
+     */
+    public LogTailer(List<String> paths, List<LogPattern> patterns, long intervalMillis) {
+        for (String path : paths) {
+            files.add(new TailedFile(path));
+        }
+        this.patterns = patterns;
+        this.intervalMillis = intervalMillis;
+        this.matchers = new Matcher[patterns.size()];
+        for (int i = 0; i < matchers.length; i++) {
+            matchers[i] = patterns.get(i).pattern.matcher("");
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tibero-log-tailer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 설정된 로그 파일 목록을 파싱합니다 (쉼표 구분, 빈 항목 무시).
+     *
+     * @param spec 로그 파일 목록 문자열
+     * @return 로그 파일 경로 목록 (비어 있으면 비활성화)
+     */
+    public static List<String> parsePaths(String spec) {
+        List<String> paths = new ArrayList<>();
+        if (spec == null) {
+            return paths;
+        }
+        for (String path : spec.split(",")) {
+            if (!path.trim().isEmpty() && !paths.contains(path.trim())) {
+                paths.add(path.trim());
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 로그 패턴 파일을 로드합니다. 파일을 지정하지 않으면 기본 패턴(error, checkpoint, log_switch)을 사용합니다.
+     * <pre>
+     * patterns:
+     *   - name: error
+     *     regex: '\b(TBR-\d+)'
+     * </pre>
+     *
+     * @param filename 패턴 YAML 파일 경로 (비어 있으면 기본 패턴)
+     * @return 컴파일된 패턴 목록
+     * @throws IllegalArgumentException 파일을 읽을 수 없거나 패턴이 올바르지 않은 경우
+     */
+    @SuppressWarnings("unchecked")
+    public static List<LogPattern> loadPatterns(String filename) {
+        if (filename == null || filename.isEmpty()) {
+            return DEFAULT_PATTERNS;
+        }
+        List<LogPattern> patterns = new ArrayList<>();
+        try (InputStream input = Files.newInputStream(Paths.get(filename))) {
+            Map<String, Object> data = new Yaml().load(input);
+            Object entries = data != null ? data.get("patterns") : null;
+            if (!(entries instanceof List)) {
+                throw new IllegalArgumentException("No patterns found in " + filename);
+            }
+            for (Map<String, Object> entry : (List<Map<String, Object>>) entries) {
+                Object name = entry.get("name");
+                Object regex = entry.get("regex");
+                if (name == null || regex == null) {
+                    throw new IllegalArgumentException("Log pattern requires name and regex in " + filename);
+                }
+                int flags = Boolean.TRUE.equals(entry.get("ignorecase")) ? Pattern.CASE_INSENSITIVE : 0;
+                patterns.add(new LogPattern(name.toString(), Pattern.compile(regex.toString(), flags)));
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read log patterns " + filename + ": " + e.getMessage(), e);
+        }
+        logger.info("Loaded {} log patterns from {}", patterns.size(), filename);
+        return patterns;
+    }
+
+    /**
+     * 로그 파일 추적을 시작합니다. 시작 시점의 파일 끝부터 읽습니다.
+     */
+    public void start() {
+        logger.info("Tailing {} every {}ms for {} patterns", files, intervalMillis, patterns.size());
+        executor.scheduleWithFixedDelay(this::poll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        for (TailedFile file : files) {
+            try {
+                file.poll();
+            } catch (IOException | RuntimeException e) {
+                if (!file.failureLogged) {
+                    logger.warn("Failed to read log {}: {}", file.path, e.getMessage());
+                    file.failureLogged = true;
+                }
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * 읽은 줄을 모든 패턴으로 검사하여 이벤트 카운터를 올립니다.
+     */
+    private void match(TailedFile file, byte[] bytes, int offset, int length) {
+        if (length > 0 && bytes[offset + length - 1] == '\r') {
+            length--;
+        }
+        file.lines.increment();
+        String line = new String(bytes, offset, length, StandardCharsets.UTF_8);
+        for (int i = 0; i < matchers.length; i++) {
+            Matcher matcher = matchers[i].reset(line);
+            if (matcher.find()) {
+                String code = matcher.groupCount() > 0 && matcher.group(1) != null ? matcher.group(1) : "";
+                file.count(patterns.get(i).name, code);
+            }
+        }
+    }
+
+    /**
+     * 로그 파일별 이벤트 카운터를 메트릭으로 변환합니다.
+     * 범위 지정 스크래핑(context, group, collect[])에서는 노출하지 않습니다.
+     *
+     * @return tibero_log_events_total, tibero_log_lines_total, tibero_log_read_bytes_total, tibero_log_rotations_total
+     */
+    @Override
+    public List<MetricFamilySamples> collect() {
+        if (!ScrapeScope.current().getKey().isEmpty()) {
+            return Collections.emptyList();
+        }
+        CounterMetricFamily eventsMetric = new CounterMetricFamily(TiberoCollector.NAMESPACE + "_log_events",
+                "Log lines matching the pattern, by first capture group as code",
+                Arrays.asList("file", "event", "code"));
+        CounterMetricFamily linesMetric = new CounterMetricFamily(TiberoCollector.NAMESPACE + "_log_lines",
+                "Lines read from the log file since the exporter started", Collections.singletonList("file"));
+        CounterMetricFamily bytesMetric = new CounterMetricFamily(TiberoCollector.NAMESPACE + "_log_read_bytes",
+                "Bytes read from the log file since the exporter started", Collections.singletonList("file"));
+        CounterMetricFamily rotationsMetric = new CounterMetricFamily(TiberoCollector.NAMESPACE + "_log_rotations",
+                "Times the log file was replaced or truncated", Collections.singletonList("file"));
+        for (TailedFile file : files) {
+            List<String> fileLabel = Collections.singletonList(file.path.toString());
+            for (Map.Entry<String, Map<String, LongAdder>> event : file.events.entrySet()) {
+                for (Map.Entry<String, LongAdder> code : event.getValue().entrySet()) {
+                    eventsMetric.addMetric(Arrays.asList(file.path.toString(), event.getKey(), code.getKey()),
+                            code.getValue().sum());
+                }
+            }
+            linesMetric.addMetric(fileLabel, file.lines.sum());
+            bytesMetric.addMetric(fileLabel, file.bytes.sum());
+            rotationsMetric.addMetric(fileLabel, file.rotations.sum());
+        }
+        return Arrays.asList(eventsMetric, linesMetric, bytesMetric, rotationsMetric);
+    }
+
+    /**
+     * 추적을 중단하고 열린 파일을 닫습니다.
+     */
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (TailedFile file : files) {
+            file.close();
+        }
+    }
+
+    /**
+     * 이름이 붙은 로그 패턴 (이벤트 레이블 값과 컴파일된 정규식)
+     */
+    public static class LogPattern {
+        final String name;
+        final Pattern pattern;
+
+        public LogPattern(String name, Pattern pattern) {
+            this.name = name;
+            this.pattern = pattern;
+        }
+    }
+
+    /**
+     * 추적 중인 로그 파일 하나의 읽기 위치와 카운터 (위치와 채널은 읽기 스레드만 사용)
+     */
+    private class TailedFile {
+        final Path path;
+        final Map<String, Map<String, LongAdder>> events = new ConcurrentHashMap<>();  // 이벤트 -> code -> 횟수
+        final LongAdder lines = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder rotations = new LongAdder();
+
+        private FileChannel channel;        // 열린 파일 (없으면 null)
+        private Object fileKey;             // 열린 파일의 식별자 (교체 감지)
+        private long position;              // 다음에 읽을 위치
+        private boolean started = false;    // 첫 확인 여부 (처음 열 때만 파일 끝부터 읽음)
+        private final byte[] carry = new byte[MAX_LINE];  // 줄바꿈 없이 끝난 이전 읽기의 나머지
+        private int carryLength = 0;
+        boolean failureLogged = false;
+
+        TailedFile(String path) {
+            this.path = Paths.get(path);
+        }
+
+        void poll() throws IOException {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                // 이동된 뒤 새 파일이 아직 만들어지지 않음: 이전 파일의 남은 부분만 읽음
+                if (channel != null) {
+                    readAvailable();
+                }
+                started = true;
+                return;
+            }
+
+            if (channel == null) {
+                long start;
+                if (!started) {
+                    start = attributes.size();
+                } else if (fileKey != null && fileKey.equals(attributes.fileKey()) && attributes.size() >= position) {
+                    start = position;  // 읽기 오류 후 같은 파일을 다시 열면 이어서 읽음
+                } else {
+                    start = 0;
+                    if (fileKey != null) {
+                        rotations.increment();
+                    }
+                }
+                open(attributes, start);
+            } else if (attributes.fileKey() != null && !attributes.fileKey().equals(fileKey)) {
+                readAvailable();
+                close();
+                rotations.increment();
+                open(attributes, 0);
+            } else if (attributes.size() < position) {
+                position = 0;
+                carryLength = 0;
+                rotations.increment();
+            }
+            readAvailable();
+            failureLogged = false;
+        }
+
+        private void open(BasicFileAttributes attributes, long start) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileKey = attributes.fileKey();
+            if (start != position) {
+                position = start;
+                carryLength = 0;
+            }
+            started = true;
+        }
+
+        /**
+         * 마지막 위치부터 파일 끝까지 읽고 완성된 줄을 검사합니다.
+         */
+        private void readAvailable() throws IOException {
+            int read;
+            while (true) {
+                buffer.clear();
+                read = channel.read(buffer, position);
+                if (read <= 0) {
+                    return;
+                }
+                position += read;
+                bytes.add(read);
+                scan(buffer.array(), read);
+            }
+        }
+
+        private void scan(byte[] data, int length) {
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (data[i] != '\n') {
+                    continue;
+                }
+                if (carryLength > 0) {
+                    append(data, lineStart, i - lineStart);
+                    match(this, carry, 0, carryLength);
+                    carryLength = 0;
+                } else {
+                    match(this, data, lineStart, i - lineStart);
+                }
+                lineStart = i + 1;
+            }
+            append(data, lineStart, length - lineStart);
+        }
+
+        private void append(byte[] data, int offset, int length) {
+            int copied = Math.min(length, MAX_LINE - carryLength);
+            System.arraycopy(data, offset, carry, carryLength, copied);
+            carryLength += copied;
+        }
+
+        void count(String event, String code) {
+            Map<String, LongAdder> codes = events.computeIfAbsent(event, k -> new ConcurrentHashMap<>());
+            LongAdder counter = codes.get(code);
+            if (counter == null) {
+                counter = codes.computeIfAbsent(codes.size() < MAX_CODES ? code : "other", k -> new LongAdder());
+            }
+            counter.increment();
+        }
+
+        void close() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // 무시
+                }
+                channel = null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return path.toString();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.Predicate;
+import io.prometheus.client.SampleNameFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 시작과 종료가 필요한 수집기의 공통 기반 클래스
+ * TiberoExporter는 단일 노드 수집기(TiberoCollector)와 TAC 클러스터 수집기(ClusterCollector)를
+ * 이 타입으로 다룹니다.
+ */
+public abstract class ManagedCollector extends Collector {
+
+    /**
+     * 데이터베이스 연결 풀 초기화를 백그라운드에서 시작합니다.
+     * HTTP 서버가 먼저 바인딩될 수 있도록 연결 완료를 기다리지 않고 반환해야 합니다.
+     */
+    public abstract void start();
+
+    /**
+     * 샘플 이름 필터(name[] 요청)를 스크래핑 범위에 추가하여 수집합니다.
+     * 수집기는 필터를 통과하는 샘플을 만들 수 없는 메트릭의 쿼리를 실행하지 않습니다.
+     * 결과에 대한 샘플 단위 필터링은 CollectorRegistry가 이어서 수행합니다.
+     *
+     * @param sampleNameFilter 샘플 이름 필터 (null이면 전체)
+     * @return 메트릭 패밀리 샘플 리스트
+     */
+    @Override
+    public List<MetricFamilySamples> collect(Predicate<String> sampleNameFilter) {
+        if (sampleNameFilter == null || sampleNameFilter == SampleNameFilter.ALLOW_ALL) {
+            return collect();
+        }
+        ScrapeScope scope = ScrapeScope.current();
+        ScrapeScope.bind(scope.withSampleNameFilter(sampleNameFilter));
+        try {
+            return collect();
+        } finally {
+            ScrapeScope.bind(scope);
+        }
+    }
+
+    /**
+     * 스크래핑 범위에 속하는 메트릭 정의가 하나라도 있는지 확인합니다 (없는 context/group 요청은 404 응답).
+     *
+     * @param scope 스크래핑 범위
+     * @return 범위에 속하는 메트릭이 있으면 true
+     */
+    public boolean hasMetrics(ScrapeScope scope) {
+        return true;
+    }
+
+    /**
+     * 스크래핑 범위별 캐시(노출 형식 캐시 등)를 둘 수 있는지 확인합니다 (ScrapeScope.isCacheable 참조).
+     *
+     * @param scope 스크래핑 범위
+     * @return 캐시를 둘 수 있으면 true
+     */
+    public boolean isCacheable(ScrapeScope scope) {
+        return scope.isAll();
+    }
+
+    /**
+     * streaming 메트릭이 있는지 확인합니다. 있으면 /metrics 응답을 chunked 전송으로 보냅니다.
+     */
+    public boolean hasStreamingMetrics() {
+        return false;
+    }
+
+    /**
+     * streaming 메트릭의 쿼리를 실행하여 결과 행을 응답 스트림에 바로 기록합니다.
+     * collect() 결과에는 streaming 메트릭이 포함되지 않습니다.
+     *
+     * @param out 응답 스트림 기록기
+     * @throws IOException 응답 스트림 쓰기 실패 시
+     */
+    public void stream(StreamingExposition out) throws IOException {
+    }
+
+    /**
+     * 수집기가 사용하는 연결 풀과 스레드를 종료합니다.
+     */
+    public abstract void close();
+}
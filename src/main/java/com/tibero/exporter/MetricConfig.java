@@ -1,24 +1,79 @@
 package com.tibero.exporter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 개별 메트릭의 설정 정보를 담는 클래스
  * YAML 파일에서 로드한 메트릭 정의를 저장하고 관리합니다.
  */
 public class MetricConfig {
+    // 지원하는 메트릭 타입
+    public static final List<String> SUPPORTED_TYPES = Collections.unmodifiableList(
+            Arrays.asList("gauge", "counter", "histogram", "summary"));
+
+    // source 파생 메트릭에서 지원하는 집계 함수 (빈 문자열은 필터링한 행을 그대로 사용)
+    public static final List<String> SUPPORTED_AGGREGATES = Collections.unmodifiableList(
+            Arrays.asList("", "count", "sum", "min", "max"));
+
     private String name;                              // 메트릭 이름
-    private String context;                           // 메트릭 컨텍스트 (그룹명)
+    private String context;                           // 메트릭 컨텍스트 (/metrics/<context> 엔드포인트)
+    private String group = "";                        // 스크래핑 그룹 (/metrics?group=<group>, 옵션)
     private String help;                              // 메트릭 설명
     private String request;                           // 실행할 SQL 쿼리
     private List<String> labels = new ArrayList<>();  // Prometheus 레이블 목록
-    private String metrictype = "gauge";              // 메트릭 타입 (gauge 또는 counter)
+    private String metrictype = "gauge";              // 메트릭 타입 (gauge, counter, histogram, summary)
     private Map<String, String> fieldtoname = new HashMap<>();  // 필드명과 메트릭명 매핑
     private boolean ignoreZero = false;               // 0 값 무시 여부
     private int queryTimeout = 0;                     // 쿼리 타임아웃 (0이면 기본값 사용)
+    private int fetchSize = 0;                        // JDBC fetch size (0이면 기본값 사용)
+    private Map<String, ColumnType> columnTypes = new HashMap<>();  // 컬럼명(소문자)별 읽기 타입 힌트
+
+    // histogram / summary 타입 설정 (결과 행 하나가 버킷 또는 분위수 하나)
+    private String bucketColumn = "";                 // 버킷 상한(le) 컬럼 (histogram)
+    private String quantileColumn = "";               // 분위수 컬럼 (summary)
+    private String valueColumn = "";                  // 버킷 관측 수 또는 분위수 값 컬럼
+    private String sumColumn = "";                    // 관측값 합계 컬럼 (옵션, 레이블 조합별 합계)
+    private String countColumn = "";                  // 관측 수 컬럼 (옵션, summary)
+    private boolean cumulative = false;               // 버킷 관측 수가 이미 누적값인지 여부 (histogram)
+
+    // 공유 소스 쿼리 파생 설정 (request 대신 사용)
+    private String source = "";                       // 참조하는 소스 쿼리 이름 (sources 섹션)
+    private Map<String, Object> filter = new HashMap<>();  // 컬럼명 -> 허용 값 (단일 값 또는 목록)
+    private String aggregate = "";                    // 레이블 조합별 집계 함수 (count, sum, min, max)
+
+    // 레이블 보강 설정 (dimensions 섹션의 차원 쿼리 결과를 키로 조인)
+    private List<String> dimensions = new ArrayList<>();  // 참조하는 차원 쿼리 이름
+
+    // 스트리밍 노출 설정 (결과 행을 메모리에 모으지 않고 응답에 바로 기록)
+    private boolean streaming = false;                // 스트리밍 메트릭 여부 (valuecolumn 한 개만 노출)
+
+    // 차원 쿼리 여부 (dimensions 섹션, 조인 키와 레이블 값으로만 쓰이므로 모든 컬럼을 문자열로 읽음)
+    private boolean dimensionQuery = false;
+
+    // Java 수집 플러그인 (request 대신 실행, YAML 메트릭은 null)
+    private MetricPlugin plugin;
+
+    // compile()에서 미리 계산되는 값 (스크래핑마다 반복 계산하지 않기 위해 사용)
+    private Set<String> labelColumns = new HashSet<>();            // 레이블 컬럼명 (소문자)
+    private Map<String, String> fieldNames = new HashMap<>();      // 컬럼명(소문자) -> 메트릭 이름 접미사
+    private boolean counter = false;                               // counter 타입 여부
+    private boolean histogram = false;                             // histogram 타입 여부
+    private boolean summary = false;                               // summary 타입 여부
+    private String familyPrefix = "";                              // 메트릭 패밀리 이름 접두사
+    private String sqlHash = "";                                   // SQL 문 해시 (JFR 이벤트 및 스크래핑 기록용)
+    private Map<String, Set<String>> filterValues = new HashMap<>(); // 컬럼명(소문자) -> 허용 값 집합
+    private MetricConfig sourceConfig;                             // 참조하는 소스 쿼리 설정 (로드 시 연결)
+    private List<DimensionConfig> dimensionConfigs = new ArrayList<>();  // 참조하는 차원 쿼리 설정 (로드 시 연결)
+    private List<String> labelColumnList = new ArrayList<>();      // 레이블 컬럼명 (소문자, 정의 순서)
+    private final Map<String, String> familyNames = new ConcurrentHashMap<>();  // 컬럼명 -> 전체 패밀리 이름 캐시
 
     public String getName() {
         return name;
@@ -36,6 +91,14 @@ public class MetricConfig {
         this.context = context;
     }
 
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
     public String getHelp() {
         return help;
     }
@@ -92,6 +155,323 @@ public class MetricConfig {
         this.queryTimeout = queryTimeout;
     }
 
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public Map<String, ColumnType> getColumnTypes() {
+        return columnTypes;
+    }
+
+    public void setColumnTypes(Map<String, ColumnType> columnTypes) {
+        this.columnTypes = columnTypes;
+    }
+
+    public String getBucketColumn() {
+        return bucketColumn;
+    }
+
+    public void setBucketColumn(String bucketColumn) {
+        this.bucketColumn = bucketColumn;
+    }
+
+    public String getQuantileColumn() {
+        return quantileColumn;
+    }
+
+    public void setQuantileColumn(String quantileColumn) {
+        this.quantileColumn = quantileColumn;
+    }
+
+    public String getValueColumn() {
+        return valueColumn;
+    }
+
+    public void setValueColumn(String valueColumn) {
+        this.valueColumn = valueColumn;
+    }
+
+    public String getSumColumn() {
+        return sumColumn;
+    }
+
+    public void setSumColumn(String sumColumn) {
+        this.sumColumn = sumColumn;
+    }
+
+    public String getCountColumn() {
+        return countColumn;
+    }
+
+    public void setCountColumn(String countColumn) {
+        this.countColumn = countColumn;
+    }
+
+    public boolean isCumulative() {
+        return cumulative;
+    }
+
+    public void setCumulative(boolean cumulative) {
+        this.cumulative = cumulative;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public Map<String, Object> getFilter() {
+        return filter;
+    }
+
+    public void setFilter(Map<String, Object> filter) {
+        this.filter = filter;
+    }
+
+    public String getAggregate() {
+        return aggregate;
+    }
+
+    public void setAggregate(String aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isDimensionQuery() {
+        return dimensionQuery;
+    }
+
+    public void setDimensionQuery(boolean dimensionQuery) {
+        this.dimensionQuery = dimensionQuery;
+    }
+
+    public MetricConfig getSourceConfig() {
+        return sourceConfig;
+    }
+
+    public void setSourceConfig(MetricConfig sourceConfig) {
+        this.sourceConfig = sourceConfig;
+    }
+
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+
+    public void setDimensions(List<String> dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    public List<DimensionConfig> getDimensionConfigs() {
+        return dimensionConfigs;
+    }
+
+    public void setDimensionConfigs(List<DimensionConfig> dimensionConfigs) {
+        this.dimensionConfigs = dimensionConfigs;
+    }
+
+    /**
+     * 레이블 컬럼명(소문자)을 정의 순서대로 반환합니다 (차원 쿼리로 채울 컬럼 판단에 사용).
+     */
+    public List<String> getLabelColumnList() {
+        return labelColumnList;
+    }
+
+    public MetricPlugin getPlugin() {
+        return plugin;
+    }
+
+    public void setPlugin(MetricPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Java 수집 플러그인으로 계산하는 메트릭인지 확인합니다.
+     */
+    public boolean isPlugin() {
+        return plugin != null;
+    }
+
+    /**
+     * 공유 소스 쿼리에서 파생되는 메트릭인지 확인합니다.
+     */
+    public boolean isDerived() {
+        return !source.isEmpty();
+    }
+
+    /**
+     * 메트릭 정의의 유효성을 검증합니다.
+     * 메트릭 타입 이름과 histogram/summary 타입의 필수 컬럼 설정을 확인합니다.
+     *
+     * @return 검증 오류 목록 (유효한 경우 빈 리스트)
+     */
+    public List<String> validate() {
+        List<String> errors = new ArrayList<>();
+        String type = metrictype == null ? "" : metrictype.toLowerCase();
+
+        if (!SUPPORTED_TYPES.contains(type)) {
+            errors.add("unknown metrictype '" + metrictype + "' (supported: " + String.join(", ", SUPPORTED_TYPES) + ")");
+            return errors;
+        }
+        if ("histogram".equals(type) && bucketColumn.isEmpty()) {
+            errors.add("histogram requires bucketcolumn");
+        }
+        if ("summary".equals(type) && quantileColumn.isEmpty()) {
+            errors.add("summary requires quantilecolumn");
+        }
+        if (("histogram".equals(type) || "summary".equals(type)) && valueColumn.isEmpty()) {
+            errors.add(type + " requires valuecolumn");
+        }
+
+        String function = aggregate == null ? "" : aggregate.toLowerCase();
+        if (!SUPPORTED_AGGREGATES.contains(function)) {
+            errors.add("unknown aggregate '" + aggregate + "' (supported: count, sum, min, max)");
+        }
+        if (source.isEmpty() && (!filter.isEmpty() || !function.isEmpty())) {
+            errors.add("filter and aggregate require source");
+        }
+        if (!source.isEmpty() && request != null && !request.trim().isEmpty()) {
+            errors.add("source and request cannot both be set");
+        }
+        if (!function.isEmpty() && !"count".equals(function) && valueColumn.isEmpty()) {
+            errors.add("aggregate " + function + " requires valuecolumn");
+        }
+        if (!function.isEmpty() && ("histogram".equals(type) || "summary".equals(type))) {
+            errors.add("aggregate cannot be used with " + type);
+        }
+        if (streaming && !("gauge".equals(type) || "counter".equals(type))) {
+            errors.add("streaming supports only gauge and counter");
+        }
+        if (streaming && valueColumn.isEmpty()) {
+            errors.add("streaming requires valuecolumn");
+        }
+        if (streaming && !source.isEmpty()) {
+            errors.add("streaming cannot be used with source");
+        }
+        if (streaming && !dimensions.isEmpty()) {
+            errors.add("streaming cannot be used with dimensions");
+        }
+        return errors;
+    }
+
+    /**
+     * 스크래핑 중 반복되는 문자열 변환을 미리 계산합니다.
+     * 레이블 컬럼 집합, fieldtoname 매핑(소문자 키), 메트릭 타입, 패밀리 이름 접두사, SQL 해시,
+     * histogram/summary 컬럼명(소문자), 소스 파생 필터(소문자 컬럼명별 허용 값 집합)를 준비합니다.
+     * 메트릭 로드 시점에 한 번 호출됩니다.
+     *
+     * @param namespace Prometheus 메트릭 네임스페이스
+     */
+    public void compile(String namespace) {
+        Set<String> compiledLabels = new HashSet<>();
+        List<String> compiledLabelList = new ArrayList<>(labels.size());
+        for (String label : labels) {
+            compiledLabels.add(label.toLowerCase());
+            compiledLabelList.add(label.toLowerCase());
+        }
+        Map<String, String> compiledFields = new HashMap<>();
+        for (Map.Entry<String, String> entry : fieldtoname.entrySet()) {
+            compiledFields.put(entry.getKey().toLowerCase(), entry.getValue());
+        }
+        labelColumns = compiledLabels;
+        labelColumnList = compiledLabelList;
+        fieldNames = compiledFields;
+        counter = "counter".equalsIgnoreCase(metrictype);
+        histogram = "histogram".equalsIgnoreCase(metrictype);
+        summary = "summary".equalsIgnoreCase(metrictype);
+        bucketColumn = bucketColumn.toLowerCase();
+        quantileColumn = quantileColumn.toLowerCase();
+        valueColumn = valueColumn.toLowerCase();
+        sumColumn = sumColumn.toLowerCase();
+        countColumn = countColumn.toLowerCase();
+        aggregate = aggregate.toLowerCase();
+        Map<String, Set<String>> compiledFilter = new HashMap<>();
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            Set<String> allowed = new HashSet<>();
+            if (entry.getValue() instanceof List) {
+                for (Object value : (List<?>) entry.getValue()) {
+                    allowed.add(String.valueOf(value));
+                }
+            } else {
+                allowed.add(String.valueOf(entry.getValue()));
+            }
+            compiledFilter.put(entry.getKey().toLowerCase(), allowed);
+        }
+        filterValues = compiledFilter;
+        familyPrefix = namespace + "_" + name + "_";
+        familyNames.clear();
+        sqlHash = ScrapeTrace.sqlHash(request);
+    }
+
+    /**
+     * 컬럼이 레이블 컬럼인지 확인합니다.
+     *
+     * @param columnName 컬럼명 (소문자)
+     * @return 레이블 컬럼이면 true
+     */
+    public boolean isLabelColumn(String columnName) {
+        return labelColumns.contains(columnName);
+    }
+
+    /**
+     * 값 컬럼에 해당하는 전체 메트릭 패밀리 이름을 반환합니다.
+     * fieldtoname 매핑이 있으면 사용하고 없으면 컬럼명을 사용하며, 결과는 캐시됩니다.
+     *
+     * @param columnName 컬럼명 (소문자)
+     * @return 전체 메트릭 패밀리 이름 (예: tibero_sga_size_total_bytes)
+     */
+    public String familyName(String columnName) {
+        return familyNames.computeIfAbsent(columnName,
+                column -> familyPrefix + fieldNames.getOrDefault(column, column));
+    }
+
+    public boolean isCounter() {
+        return counter;
+    }
+
+    public boolean isHistogram() {
+        return histogram;
+    }
+
+    public boolean isSummary() {
+        return summary;
+    }
+
+    /**
+     * histogram/summary 타입의 메트릭 패밀리 이름을 반환합니다 (컬럼명 접미사 없음).
+     *
+     * @return 메트릭 패밀리 이름 (예: tibero_event_wait_seconds)
+     */
+    public String distributionName() {
+        return familyPrefix.substring(0, familyPrefix.length() - 1);
+    }
+
+    public String getSqlHash() {
+        return sourceConfig != null ? sourceConfig.sqlHash : sqlHash;
+    }
+
+    /**
+     * 소스 쿼리 결과 행에 적용할 필터를 반환합니다.
+     *
+     * @return 컬럼명(소문자) -> 허용 값 집합
+     */
+    public Map<String, Set<String>> getFilterValues() {
+        return filterValues;
+    }
+
     @Override
     public String toString() {
         return "MetricConfig{" +
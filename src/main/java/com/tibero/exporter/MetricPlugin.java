@@ -0,0 +1,50 @@
+package com.tibero.exporter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * SQL 한 문장으로 표현할 수 없는 메트릭을 Java로 계산하는 수집 플러그인 인터페이스 (ServiceLoader SPI)
+ * 구현 클래스를 META-INF/services/com.tibero.exporter.MetricPlugin에 등록한 JAR를 클래스패스나 --plugin.dir에 두면
+ * 시작 시 로드되어 YAML 메트릭과 같은 메트릭 정의로 취급됩니다.
+ * 따라서 스크래핑 범위(context, group, collect[]), 비용 순 실행과 마감 시각, 분산 실행(--scrape.stagger),
+ * 연결 실패 시 캐시, 샤딩, 쿼리 실행 통계와 비용 측정이 그대로 적용됩니다.
+ * 한 인스턴스가 TAC 노드별 수집기와 분산 실행 스레드에서 동시에 호출될 수 있으므로 구현은 스레드 안전해야 합니다.
+ */
+public interface MetricPlugin {
+
+    /**
+     * 메트릭 정의 이름을 반환합니다. 샘플 이름은 tibero_&lt;name&gt;_&lt;샘플 이름&gt;이 되며,
+     * 실행 통계의 metric 레이블과 ?collect[]= 요청에 사용됩니다.
+     *
+     * @return 메트릭 정의 이름 (YAML 메트릭과 겹치지 않아야 함)
+     */
+    String getName();
+
+    /**
+     * 스크래핑 범위의 context 이름을 반환합니다.
+     */
+    default String getContext() {
+        return "";
+    }
+
+    /**
+     * 스크래핑 범위의 group 이름을 반환합니다.
+     */
+    default String getGroup() {
+        return "";
+    }
+
+    /**
+     * 메트릭을 한 번 계산합니다. 연결은 풀에서 대여한 것이며 호출이 끝나면 수집기가 반납합니다 (닫지 말 것).
+     * 쿼리는 sink.createStatement()로 만든 Statement로 실행해야 마감 시각에 취소됩니다.
+     * connection에서 직접 만든 Statement는 취소되지 않으므로 deadline.capTimeoutSeconds()로 제한한 타임아웃만이 실행 시간의 상한입니다.
+     * 예외가 발생하면 이번 수집에서 이 플러그인의 샘플은 모두 버려집니다.
+     *
+     * @param connection 풀에서 대여한 연결
+     * @param deadline 스크래핑 마감 시각
+     * @param sink 샘플 기록기
+     * @throws SQLException 쿼리 실패 시
+     */
+    void collect(Connection connection, ScrapeDeadline deadline, SampleSink sink) throws SQLException;
+}
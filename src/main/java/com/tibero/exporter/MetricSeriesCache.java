@@ -0,0 +1,253 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 메트릭 하나의 시계열(레이블 조합)과 메트릭 패밀리를 스크래핑 간에 재사용하는 캐시
+ * 레이블 값 조합은 메트릭별 사전에서 한 번만 생성(intern)되어 이후 스크래핑에서 그대로 재사용되고,
+ * 값은 시계열 슬롯에 제자리 갱신됩니다. 값과 시계열 집합이 이전 스크래핑과 같으면
+ * 이전에 만든 MetricFamilySamples 객체를 그대로 반환하므로 변화가 없는 메트릭은 새 객체를 만들지 않습니다.
+ * TiberoCollector.collect()의 동기화 범위 안에서만 사용됩니다.
+ */
+public class MetricSeriesCache {
+    public static final String INSTANCE_LABEL = "instance_name";  // TAC 클러스터 모드의 인스턴스 레이블 이름
+
+    private final MetricConfig metricConfig;            // 메트릭 설정
+    private final List<String> labelNames;              // 모든 시계열이 공유하는 레이블 이름 목록
+    private final String[] labelColumns;                // 레이블 컬럼명 (소문자, 결과 행 조회용, instance_name 제외)
+    private final Map<LabelTuple, LabelTuple> tuples = new HashMap<>();        // 레이블 값 조합 사전
+    private final Map<String, Family> families = new LinkedHashMap<>();        // 패밀리 이름 -> 패밀리
+    private final LabelTuple probe;                     // 사전 조회용 재사용 객체 (조회 시 할당 방지)
+    private long generation = 0;                        // 현재 스크래핑 세대 번호
+
+    /**
+     * MetricSeriesCache 생성자
+     *
+     * @param metricConfig 메트릭 설정
+     */
+    public MetricSeriesCache(MetricConfig metricConfig) {
+        this(metricConfig, null);
+    }
+
+    /**
+     * MetricSeriesCache 생성자
+     * 인스턴스 이름이 주어지면 모든 시계열에 instance_name 레이블을 마지막 레이블로 추가합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @param instanceName TAC 인스턴스 레이블 값 (단일 노드 모드는 null)
+     */
+    public MetricSeriesCache(MetricConfig metricConfig, String instanceName) {
+        this.metricConfig = metricConfig;
+        List<String> names = new ArrayList<>(metricConfig.getLabels());
+        this.labelColumns = new String[names.size()];
+        for (int i = 0; i < labelColumns.length; i++) {
+            labelColumns[i] = names.get(i).toLowerCase();
+        }
+        if (instanceName != null) {
+            names.add(INSTANCE_LABEL);
+        }
+        this.labelNames = Collections.unmodifiableList(names);
+        this.probe = new LabelTuple(new String[names.size()]);
+        if (instanceName != null) {
+            probe.values[labelColumns.length] = instanceName;
+        }
+    }
+
+    /**
+     * 새 스크래핑 결과 기록을 시작합니다.
+     */
+    public void begin() {
+        generation++;
+    }
+
+    /**
+     * 결과 행의 레이블 값 조합을 사전에서 찾아 반환합니다. 처음 보는 조합이면 사전에 등록합니다.
+     *
+     * @param row 결과 행 (컬럼명 소문자)
+     * @return 스크래핑 간에 재사용되는 레이블 값 목록
+     */
+    public List<String> labelValues(Map<String, Object> row) {
+        for (int i = 0; i < labelColumns.length; i++) {
+            Object value = row.get(labelColumns[i]);
+            probe.values[i] = value != null ? value.toString() : "";
+        }
+        probe.rehash();
+
+        LabelTuple tuple = tuples.get(probe);
+        if (tuple == null) {
+            tuple = new LabelTuple(probe.values.clone());
+            tuples.put(tuple, tuple);
+        }
+        tuple.generation = generation;
+        return tuple;
+    }
+
+    /**
+     * 시계열 값을 기록합니다. 기존 슬롯이 있으면 값만 갱신합니다.
+     *
+     * @param familyName 전체 메트릭 패밀리 이름
+     * @param labelValues labelValues()가 반환한 레이블 값 목록
+     * @param value 값
+     */
+    public void set(String familyName, List<String> labelValues, double value) {
+        Family family = families.get(familyName);
+        if (family == null) {
+            family = new Family(familyName);
+            families.put(familyName, family);
+        }
+        family.set(labelValues, value, generation);
+    }
+
+    /**
+     * 이번 스크래핑 결과 기록을 마치고 메트릭 패밀리 목록을 반환합니다.
+     * 이번에 나타나지 않은 시계열과 레이블 조합은 제거되어 캐시 크기가 현재 시계열 수를 넘지 않습니다.
+     *
+     * @return 메트릭 패밀리 목록 (변화가 없는 패밀리는 이전 객체 재사용)
+     */
+    public List<MetricFamilySamples> finish() {
+        List<MetricFamilySamples> result = new ArrayList<>(families.size());
+        Iterator<Family> familyIterator = families.values().iterator();
+        while (familyIterator.hasNext()) {
+            MetricFamilySamples samples = familyIterator.next().finish(generation);
+            if (samples == null) {
+                familyIterator.remove();
+            } else {
+                result.add(samples);
+            }
+        }
+        tuples.values().removeIf(tuple -> tuple.generation != generation);
+        return result;
+    }
+
+    /**
+     * 현재 캐시에 보관 중인 시계열 수를 반환합니다.
+     */
+    public int seriesCount() {
+        int count = 0;
+        for (Family family : families.values()) {
+            count += family.slots.size();
+        }
+        return count;
+    }
+
+    /**
+     * 메트릭 패밀리 하나의 시계열 슬롯을 보관하는 클래스
+     */
+    private class Family {
+        private final String name;                                      // 전체 패밀리 이름
+        private final Map<List<String>, Slot> slots = new LinkedHashMap<>();  // 레이블 값 -> 슬롯
+        private MetricFamilySamples built;                              // 마지막으로 만든 패밀리 객체
+        private boolean dirty = true;                                   // 마지막 생성 이후 변경 여부
+
+        Family(String name) {
+            this.name = name;
+        }
+
+        void set(List<String> labelValues, double value, long generation) {
+            Slot slot = slots.get(labelValues);
+            if (slot == null) {
+                slot = new Slot();
+                slots.put(labelValues, slot);
+                dirty = true;
+            } else if (Double.compare(slot.value, value) != 0) {
+                dirty = true;
+            }
+            slot.value = value;
+            slot.generation = generation;
+        }
+
+        MetricFamilySamples finish(long generation) {
+            if (slots.values().removeIf(slot -> slot.generation != generation)) {
+                dirty = true;
+            }
+            if (slots.isEmpty()) {
+                return null;
+            }
+            if (!dirty && built != null) {
+                return built;
+            }
+
+            if (metricConfig.isCounter()) {
+                CounterMetricFamily counter = new CounterMetricFamily(name, metricConfig.getHelp(), labelNames);
+                for (Map.Entry<List<String>, Slot> entry : slots.entrySet()) {
+                    counter.addMetric(entry.getKey(), entry.getValue().value);
+                }
+                built = counter;
+            } else {
+                GaugeMetricFamily gauge = new GaugeMetricFamily(name, metricConfig.getHelp(), labelNames);
+                for (Map.Entry<List<String>, Slot> entry : slots.entrySet()) {
+                    gauge.addMetric(entry.getKey(), entry.getValue().value);
+                }
+                built = gauge;
+            }
+            dirty = false;
+            return built;
+        }
+    }
+
+    /**
+     * 시계열 하나의 값과 마지막으로 기록된 세대
+     */
+    private static class Slot {
+        double value;
+        long generation;
+    }
+
+    /**
+     * 레이블 값 조합 (불변 목록, 해시 캐시)
+     * 사전 조회용 probe 객체만 값이 바뀌며, 사전에 등록된 객체는 변경되지 않습니다.
+     */
+    private static class LabelTuple extends AbstractList<String> {
+        private final String[] values;
+        private int hash;
+        private long generation;
+
+        LabelTuple(String[] values) {
+            this.values = values;
+            rehash();
+        }
+
+        void rehash() {
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public String get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o instanceof LabelTuple) {
+                LabelTuple other = (LabelTuple) o;
+                return hash == other.hash && Arrays.equals(values, other.values);
+            }
+            return super.equals(o);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.tibero.exporter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * /metrics 요청을 처리하는 HTTP 핸들러
+ * 요청 헤더에서 스크래핑 타임아웃을 읽어 마감 시각을 스레드에 바인딩한 뒤 메트릭을 수집하고,
+ * 텍스트 형식(0.0.4)은 ExpositionCache로 변경된 메트릭 패밀리만 다시 렌더링하여 응답합니다.
+ * OpenMetrics 형식 요청은 Prometheus 클라이언트의 TextFormat으로 전체를 렌더링합니다.
+ * 요청마다 단계별 실행 기록(ScrapeTrace)을 바인딩하여 완료 후 ScrapeTraceLog에 보관합니다.
+ * /metrics/<context> 경로와 context, group 쿼리 파라미터로 스크래핑 범위(ScrapeScope)를 정하면 해당 메트릭만 실행하고,
+ * 범위에 속하는 메트릭이 없으면 404로 응답합니다.
+ * streaming 메트릭이 있으면 응답을 chunked로 보내며, streaming 메트릭의 결과 행을 먼저 바로 기록한 뒤
+ * 나머지 메트릭을 기록합니다 (OpenMetrics의 # EOF가 마지막에 오도록).
+ * 능동/대기 구성(HaElection)에서 리더는 전체 범위 응답을 스냅샷으로 기록하고,
+ * 대기 프로세스는 메트릭을 수집하지 않고 리더의 스냅샷을 응답합니다.
+ */
+public class MetricsHttpHandler implements HttpHandler {
+    private final CollectorRegistry registry;       // 메트릭 수집기 레지스트리
+    private final ManagedCollector collector;       // streaming 메트릭을 기록할 수집기
+    private final Config config;                    // 설정 정보
+    private final ScrapeTraceLog traceLog;          // 최근 스크래핑 기록
+    private final HaElection election;              // 능동/대기 선출기 (미사용 시 null)
+    private static final String METRICS_PATH = "/metrics";  // 메트릭 경로 (하위 경로는 context)
+
+    // 스크래핑 범위 키 -> 패밀리별 렌더링 캐시 (범위마다 응답하는 패밀리가 다르므로 분리, 사용 순서로 정렬)
+    private final Map<String, ExpositionCache> expositionCaches = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * MetricsHttpHandler 생성자
+     *
+     * @param registry 메트릭 수집기 레지스트리
+     * @param collector streaming 메트릭을 기록할 수집기
+     * @param config 설정 정보
+     * @param traceLog 스크래핑 기록 보관소
+     * @param election 능동/대기 선출기 (미사용 시 null)
+     */
+    public MetricsHttpHandler(CollectorRegistry registry, ManagedCollector collector, Config config,
+                              ScrapeTraceLog traceLog, HaElection election) {
+        this.registry = registry;
+        this.collector = collector;
+        this.config = config;
+        this.traceLog = traceLog;
+        this.election = election;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        ScrapeScope scope = parseScope(exchange.getRequestURI().getPath(), exchange.getRequestURI().getRawQuery());
+        if (!collector.hasMetrics(scope)) {
+            byte[] message = ("No metrics defined for " + scope + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(404, message.length);
+            exchange.getResponseBody().write(message);
+            exchange.close();
+            return;
+        }
+        if (election != null && !election.isLeader()) {
+            respondStandby(exchange, scope);
+            return;
+        }
+
+        ScrapeScope.bind(scope);
+        String timeoutHeader = exchange.getRequestHeaders().getFirst(ScrapeDeadline.TIMEOUT_HEADER);
+        ScrapeDeadline.bind(ScrapeDeadline.fromHeader(timeoutHeader, config.getScrapeTimeoutOffset()));
+        ScrapeTrace trace = traceLog.isEnabled() ? new ScrapeTrace() : null;
+        ScrapeTrace.bind(trace);
+        try {
+            respond(exchange);
+        } finally {
+            ScrapeScope.unbind();
+            ScrapeDeadline.unbind();
+            ScrapeTrace.unbind();
+            if (trace != null) {
+                trace.finish();
+                traceLog.add(trace);
+            }
+        }
+    }
+
+    /**
+     * 메트릭을 수집하여 요청된 형식으로 응답합니다.
+     * name[] 쿼리 파라미터가 있으면 해당 이름의 메트릭만 응답합니다.
+     */
+    private void respond(HttpExchange exchange) throws IOException {
+        String contentType = TextFormat.chooseContentType(exchange.getRequestHeaders().getFirst("Accept"));
+        Set<String> names = parseNames(exchange.getRequestURI().getRawQuery());
+        List<MetricFamilySamples> families = Collections.list(
+                names.isEmpty() ? registry.metricFamilySamples() : registry.filteredMetricFamilySamples(names));
+
+        // 능동/대기 구성의 리더는 필터 없는 전체 범위 응답을 대기 프로세스용 스냅샷으로 기록
+        boolean publish = election != null && ScrapeScope.current().isAll() && names.isEmpty();
+
+        ScrapeTrace.Span exposition = ScrapeTrace.begin(ScrapeTrace.Phase.EXPOSITION, "exposition", null);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        if (TextFormat.CONTENT_TYPE_004.equals(contentType)) {
+            // name[] 요청은 일부 패밀리만 응답하므로 범위의 캐시에서 나머지 패밀리를 밀어내지 않도록 캐시를 거치지 않음
+            ExpositionCache cache = names.isEmpty() ? expositionCache(ScrapeScope.current()) : null;
+            if (cache != null) {
+                cache.write(families, body);
+            } else {
+                Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+                TextFormat.write004(writer, Collections.enumeration(families));
+                writer.flush();
+            }
+            if (publish) {
+                election.publish(body.toByteArray());
+            }
+            if (election != null) {
+                Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+                TextFormat.write004(writer, Collections.enumeration(election.metrics()));
+                writer.flush();
+            }
+        } else {
+            if (publish) {
+                ByteArrayOutputStream snapshot = new ByteArrayOutputStream(4096);
+                Writer writer = new OutputStreamWriter(snapshot, StandardCharsets.UTF_8);
+                TextFormat.write004(writer, Collections.enumeration(families));
+                writer.flush();
+                election.publish(snapshot.toByteArray());
+            }
+            List<MetricFamilySamples> all = families;
+            if (election != null) {
+                all = new ArrayList<>(families);
+                all.addAll(election.metrics());
+            }
+            Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+            TextFormat.writeFormat(contentType, writer, Collections.enumeration(all));
+            writer.flush();
+        }
+        exposition.end(sampleCount(families));
+
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if (collector.hasStreamingMetrics() && !"HEAD".equals(exchange.getRequestMethod())) {
+            respondStreaming(exchange, contentType, names, body);
+            return;
+        }
+        sendBody(exchange, body);
+    }
+
+    /**
+     * 스크래핑 범위의 렌더링 캐시를 반환합니다.
+     * 설정에 없는 context/group이나 ?collect[] 범위는 캐시하지 않고 (name[] 요청은 호출하지 않음),
+     * 캐시한 범위가 MAX_CACHED_SCOPES를 넘으면 가장 오래 사용하지 않은 범위의 캐시를 제거합니다.
+     *
+     * @param scope 스크래핑 범위
+     * @return 렌더링 캐시 (캐시하지 않는 범위는 null)
+     */
+    private synchronized ExpositionCache expositionCache(ScrapeScope scope) {
+        if (!collector.isCacheable(scope)) {
+            return null;
+        }
+        ExpositionCache cache = expositionCaches.computeIfAbsent(scope.getKey(), k -> new ExpositionCache());
+        Iterator<String> it = expositionCaches.keySet().iterator();
+        while (expositionCaches.size() > ScrapeScope.MAX_CACHED_SCOPES && it.hasNext()) {
+            if (!it.next().equals(scope.getKey())) {
+                it.remove();
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * 대기 프로세스로서 리더가 기록한 스냅샷을 응답합니다 (텍스트 0.0.4 형식, 데이터베이스 쿼리 없음).
+     * 스냅샷은 전체 범위만 기록되므로 범위 지정이나 name[] 필터 요청, 스냅샷이 아직 없는 경우에는 503으로 응답합니다.
+     */
+    private void respondStandby(HttpExchange exchange, ScrapeScope scope) throws IOException {
+        byte[] snapshot = null;
+        String reason = "Standby exporter only serves the full /metrics snapshot of the active exporter";
+        if (scope.isAll() && parseNames(exchange.getRequestURI().getRawQuery()).isEmpty()) {
+            snapshot = election.readSnapshot();
+            reason = "No snapshot has been published by the active exporter yet";
+        }
+        if (snapshot == null) {
+            byte[] message = (reason + "\n").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(503, message.length);
+            exchange.getResponseBody().write(message);
+            exchange.close();
+            return;
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(snapshot.length + 256);
+        body.write(snapshot);
+        Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+        TextFormat.write004(writer, Collections.enumeration(election.metrics()));
+        writer.flush();
+        exchange.getResponseHeaders().set("Content-Type", TextFormat.CONTENT_TYPE_004);
+        sendBody(exchange, body);
+    }
+
+    /**
+     * 렌더링한 응답 본문을 보냅니다 (HEAD 요청은 길이만, gzip 허용 시 압축).
+     */
+    private static void sendBody(HttpExchange exchange, ByteArrayOutputStream body) throws IOException {
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.size()));
+            exchange.sendResponseHeaders(200, -1);
+        } else if (acceptsGzip(exchange)) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                body.writeTo(out);
+            }
+        } else {
+            exchange.sendResponseHeaders(200, body.size());
+            body.writeTo(exchange.getResponseBody());
+        }
+        exchange.close();
+    }
+
+    /**
+     * streaming 메트릭을 포함하여 chunked로 응답합니다.
+     * streaming 메트릭의 결과 행은 열린 ResultSet에서 응답 스트림으로 바로 기록되므로 응답 크기와 관계없이 메모리 사용량이 제한됩니다.
+     */
+    private void respondStreaming(HttpExchange exchange, String contentType, Set<String> names,
+                                  ByteArrayOutputStream body) throws IOException {
+        boolean gzip = acceptsGzip(exchange);
+        if (gzip) {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = gzip ? new GZIPOutputStream(exchange.getResponseBody()) : exchange.getResponseBody();
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            StreamingExposition streaming = new StreamingExposition(writer,
+                    !TextFormat.CONTENT_TYPE_004.equals(contentType), names);
+            ScrapeTrace.Span exposition = ScrapeTrace.begin(ScrapeTrace.Phase.EXPOSITION, "streaming", null);
+            try {
+                collector.stream(streaming);
+            } finally {
+                exposition.end(streaming.getSampleCount());
+            }
+            writer.flush();
+            body.writeTo(out);
+        } finally {
+            out.close();
+            exchange.close();
+        }
+    }
+
+    /**
+     * 메트릭 패밀리 목록의 전체 샘플 수를 반환합니다.
+     */
+    private static long sampleCount(List<MetricFamilySamples> families) {
+        long count = 0;
+        for (MetricFamilySamples family : families) {
+            count += family.samples.size();
+        }
+        return count;
+    }
+
+    /**
+     * 요청이 gzip 압축 응답을 허용하는지 확인합니다.
+     */
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        List<String> encodingHeaders = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (encodingHeaders == null) {
+            return false;
+        }
+        for (String encodingHeader : encodingHeaders) {
+            for (String encoding : encodingHeader.split(",")) {
+                if (encoding.trim().equalsIgnoreCase("gzip")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 쿼리 문자열에서 name[] 파라미터 값을 추출합니다.
+     *
+     * @param query URL 쿼리 문자열 (null 허용)
+     * @return 요청된 메트릭 이름 집합 (없으면 빈 집합)
+     */
+    static Set<String> parseNames(String query) throws UnsupportedEncodingException {
+        return parseParameter(query, "name[]", false);
+    }
+
+    /**
+     * 요청 경로와 쿼리 문자열로 스크래핑 범위를 정합니다.
+     * /metrics/<context> 경로의 context와 context=, group=, collect[]= 파라미터(반복 또는 쉼표 구분)를 사용합니다.
+     *
+     * @param path 요청 경로
+     * @param query URL 쿼리 문자열 (null 허용)
+     * @return 스크래핑 범위 (지정하지 않으면 전체)
+     */
+    static ScrapeScope parseScope(String path, String query) throws UnsupportedEncodingException {
+        Set<String> contexts = parseParameter(query, "context", true);
+        if (path != null && path.startsWith(METRICS_PATH + "/")) {
+            String context = path.substring(METRICS_PATH.length() + 1);
+            if (context.endsWith("/")) {
+                context = context.substring(0, context.length() - 1);
+            }
+            if (!context.isEmpty()) {
+                contexts.add(context);
+            }
+        }
+        return ScrapeScope.of(contexts, parseParameter(query, "group", true), parseParameter(query, "collect[]", true));
+    }
+
+    /**
+     * 쿼리 문자열에서 지정한 파라미터의 모든 값을 추출합니다.
+     *
+     * @param query URL 쿼리 문자열 (null 허용)
+     * @param name 파라미터 이름
+     * @param splitCommas 값을 쉼표로 나눌지 여부
+     * @return 파라미터 값 집합 (없으면 빈 집합)
+     */
+    private static Set<String> parseParameter(String query, String name, boolean splitCommas)
+            throws UnsupportedEncodingException {
+        Set<String> values = new HashSet<>();
+        if (query == null) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int idx = pair.indexOf('=');
+            if (idx != -1 && URLDecoder.decode(pair.substring(0, idx), "UTF-8").equals(name)) {
+                String value = URLDecoder.decode(pair.substring(idx + 1), "UTF-8");
+                if (!splitCommas) {
+                    values.add(value);
+                    continue;
+                }
+                for (String part : value.split(",")) {
+                    if (!part.trim().isEmpty()) {
+                        values.add(part.trim());
+                    }
+                }
+            }
+        }
+        return values;
+    }
+}
@@ -8,13 +8,25 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
 
 /**
  * YAML 파일에서 메트릭 설정을 로드하는 클래스
  * SnakeYAML 라이브러리를 사용하여 메트릭 정의를 파싱합니다.
+ * sources 섹션의 공유 소스 쿼리는 같은 파일에서 source로 참조하는 메트릭에 연결됩니다.
+ * dimensions 섹션의 차원 쿼리는 같은 파일에서 dimensions로 참조하는 메트릭에 연결됩니다.
+ * Java 수집 플러그인(MetricPlugin)도 ServiceLoader로 찾아 메트릭 정의로 변환합니다.
  */
 public class MetricsLoader {
     private static final Logger logger = LoggerFactory.getLogger(MetricsLoader.class);
@@ -71,6 +83,12 @@ public class MetricsLoader {
                 return metrics;
             }
 
+            // 공유 소스 쿼리 추출 (이름 -> 소스 설정)
+            Map<String, MetricConfig> sources = parseSources(data.get("sources"), filename);
+
+            // 레이블 보강용 차원 쿼리 추출 (이름 -> 차원 설정)
+            Map<String, DimensionConfig> dimensions = parseDimensions(data.get("dimensions"), filename);
+
             // 메트릭 데이터 추출
             List<Map<String, Object>> metricsData = (List<Map<String, Object>>) data.get("metrics");
 
@@ -81,10 +99,31 @@ public class MetricsLoader {
                 // 기본 필드 설정
                 metric.setName(getString(metricData, "name", ""));
                 metric.setContext(getString(metricData, "context", ""));
+                metric.setGroup(getString(metricData, "group", ""));
                 metric.setHelp(getString(metricData, "help", ""));
                 metric.setRequest(getString(metricData, "request", ""));
                 metric.setMetrictype(getString(metricData, "metrictype", "gauge"));
                 metric.setIgnoreZero(getBoolean(metricData, "ignorezeroresult", false));
+                metric.setFetchSize(getInt(metricData, "fetchsize", 0));
+                metric.setStreaming(getBoolean(metricData, "streaming", false));
+
+                // histogram / summary 컬럼 설정
+                metric.setBucketColumn(getString(metricData, "bucketcolumn", ""));
+                metric.setQuantileColumn(getString(metricData, "quantilecolumn", ""));
+                metric.setValueColumn(getString(metricData, "valuecolumn", ""));
+                metric.setSumColumn(getString(metricData, "sumcolumn", ""));
+                metric.setCountColumn(getString(metricData, "countcolumn", ""));
+                metric.setCumulative(getBoolean(metricData, "cumulative", false));
+
+                // 공유 소스 쿼리 파생 설정
+                metric.setSource(getString(metricData, "source", ""));
+                metric.setAggregate(getString(metricData, "aggregate", ""));
+                if (metricData.get("filter") instanceof Map) {
+                    metric.setFilter((Map<String, Object>) metricData.get("filter"));
+                }
+
+                // 레이블 보강 차원 쿼리 참조
+                metric.setDimensions(getStringList(metricData, "dimensions"));
 
                 // 레이블 목록 설정
                 if (metricData.containsKey("labels")) {
@@ -102,9 +141,56 @@ public class MetricsLoader {
                     }
                 }
 
+                // 컬럼별 읽기 타입 힌트 설정
+                if (metricData.containsKey("columntypes")) {
+                    Object columnTypesObj = metricData.get("columntypes");
+                    if (columnTypesObj instanceof Map) {
+                        metric.setColumnTypes(parseColumnTypes(metric.getName(), (Map<String, Object>) columnTypesObj));
+                    }
+                }
+
+                // 메트릭 타입 및 필수 설정 검증 (오류가 있는 메트릭은 로드하지 않음)
+                List<String> errors = metric.validate();
+                if (!errors.isEmpty()) {
+                    for (String error : errors) {
+                        logger.error("Skipping metric {} in {}: {}", metric.getName(), filename, error);
+                    }
+                    continue;
+                }
+
+                if (metric.isDerived()) {
+                    MetricConfig source = sources.get(metric.getSource());
+                    if (source == null) {
+                        logger.error("Skipping metric {} in {}: unknown source '{}'", metric.getName(), filename,
+                                metric.getSource());
+                        continue;
+                    }
+                    metric.setSourceConfig(source);
+                }
+
+                List<DimensionConfig> dimensionConfigs = new ArrayList<>();
+                for (String dimensionName : metric.getDimensions()) {
+                    DimensionConfig dimension = dimensions.get(dimensionName);
+                    if (dimension == null) {
+                        logger.error("Skipping metric {} in {}: unknown dimension '{}'", metric.getName(), filename,
+                                dimensionName);
+                        dimensionConfigs = null;
+                        break;
+                    }
+                    dimensionConfigs.add(dimension);
+                }
+                if (dimensionConfigs == null) {
+                    continue;
+                }
+                metric.setDimensionConfigs(dimensionConfigs);
+
+                metric.compile(TiberoCollector.NAMESPACE);
                 metrics.add(metric);
             }
 
+            linkSources(sources, metrics, filename);
+            linkDimensions(dimensions, metrics, filename);
+
             logger.info("Loaded {} metrics from {}", metrics.size(), fromResource ? "(embedded)" : filename);
 
         } catch (IOException e) {
@@ -123,7 +209,224 @@ public class MetricsLoader {
 
         return metrics;
     }
+
+    /**
+     * ServiceLoader로 Java 수집 플러그인(MetricPlugin)을 찾아 메트릭 정의로 변환합니다.
+     * 클래스패스와 플러그인 디렉터리의 JAR 파일에서 META-INF/services에 등록된 구현을 찾습니다.
+     * 이름이 없거나 이미 로드된 메트릭과 이름이 겹치는 플러그인은 건너뜁니다.
+     *
+     * @param pluginDir 플러그인 JAR 디렉터리 (비어 있으면 클래스패스만)
+     * @param loaded 이미 로드된 메트릭 (이름 중복 확인)
+     * @return 플러그인 메트릭 정의 목록
+     */
+    public static List<MetricConfig> loadPlugins(String pluginDir, List<MetricConfig> loaded) {
+        Set<String> names = new LinkedHashSet<>();
+        for (MetricConfig metric : loaded) {
+            names.add(metric.getName());
+        }
+
+        List<MetricConfig> plugins = new ArrayList<>();
+        ServiceLoader<MetricPlugin> serviceLoader;
+        try {
+            serviceLoader = ServiceLoader.load(MetricPlugin.class, pluginClassLoader(pluginDir));
+        } catch (IOException e) {
+            logger.error("Cannot read plugin directory {}: {}", pluginDir, e.getMessage());
+            return plugins;
+        }
+
+        Iterator<MetricPlugin> iterator = serviceLoader.iterator();
+        while (true) {
+            MetricPlugin plugin;
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                plugin = iterator.next();
+            } catch (ServiceConfigurationError e) {
+                logger.error("Skipping metric plugin: {}", e.getMessage());
+                continue;
+            }
+            String name = plugin.getName();
+            if (name == null || name.isEmpty() || !names.add(name)) {
+                logger.error("Skipping metric plugin {}: missing or duplicate name '{}'",
+                        plugin.getClass().getName(), name);
+                continue;
+            }
+
+            MetricConfig metric = new MetricConfig();
+            metric.setName(name);
+            metric.setContext(plugin.getContext() != null ? plugin.getContext() : "");
+            metric.setGroup(plugin.getGroup() != null ? plugin.getGroup() : "");
+            metric.setHelp("");
+            metric.setRequest("plugin " + plugin.getClass().getName());
+            metric.setPlugin(plugin);
+            metric.compile(TiberoCollector.NAMESPACE);
+            plugins.add(metric);
+            logger.info("Loaded metric plugin {} ({})", name, plugin.getClass().getName());
+        }
+        return plugins;
+    }
+
+    /**
+     * 플러그인 디렉터리의 JAR 파일을 읽는 클래스 로더를 만듭니다.
+     */
+    private static ClassLoader pluginClassLoader(String pluginDir) throws IOException {
+        ClassLoader parent = MetricsLoader.class.getClassLoader();
+        if (pluginDir == null || pluginDir.isEmpty()) {
+            return parent;
+        }
+        File[] jars = new File(pluginDir).listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null) {
+            throw new IOException("not a directory");
+        }
+        URL[] urls = new URL[jars.length];
+        for (int i = 0; i < jars.length; i++) {
+            urls[i] = jars[i].toURI().toURL();
+        }
+        return new URLClassLoader(urls, parent);
+    }
     
+    /**
+     * sources 섹션을 소스 쿼리 설정으로 변환합니다.
+     * 소스는 name, request와 fetchsize, columntypes만 사용합니다.
+     *
+     * @param sourcesObj sources 섹션 (없으면 null)
+     * @param filename 로그에 표시할 파일 이름
+     * @return 소스 이름 -> 소스 설정
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, MetricConfig> parseSources(Object sourcesObj, String filename) {
+        Map<String, MetricConfig> sources = new LinkedHashMap<>();
+        if (!(sourcesObj instanceof List)) {
+            return sources;
+        }
+        for (Map<String, Object> sourceData : (List<Map<String, Object>>) sourcesObj) {
+            MetricConfig source = new MetricConfig();
+            source.setName(getString(sourceData, "name", ""));
+            source.setRequest(getString(sourceData, "request", ""));
+            source.setFetchSize(getInt(sourceData, "fetchsize", 0));
+            if (sourceData.get("columntypes") instanceof Map) {
+                source.setColumnTypes(parseColumnTypes(source.getName(), (Map<String, Object>) sourceData.get("columntypes")));
+            }
+            if (source.getName().isEmpty() || source.getRequest().trim().isEmpty()) {
+                logger.error("Skipping source without name or request in {}", filename);
+                continue;
+            }
+            if (sources.put(source.getName(), source) != null) {
+                logger.warn("Duplicate source {} in {}, using the last definition", source.getName(), filename);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * 소스 쿼리의 레이블 컬럼을 파생 메트릭의 레이블과 필터 컬럼의 합집합으로 정하고 컴파일합니다.
+     * 레이블로 쓰이는 컬럼은 숫자 타입이어도 문자열로 읽혀 파생 메트릭 간에 같은 값으로 비교됩니다.
+     * 파생 메트릭이 참조하는 차원의 조인 키 컬럼도 포함하여 차원 쿼리 결과와 같은 문자열로 조인합니다.
+     */
+    private static void linkSources(Map<String, MetricConfig> sources, List<MetricConfig> metrics, String filename) {
+        for (MetricConfig source : sources.values()) {
+            Set<String> labels = new LinkedHashSet<>();
+            int derived = 0;
+            for (MetricConfig metric : metrics) {
+                if (metric.getSourceConfig() == source) {
+                    labels.addAll(metric.getLabels());
+                    labels.addAll(metric.getFilter().keySet());
+                    for (DimensionConfig dimension : metric.getDimensionConfigs()) {
+                        labels.addAll(dimension.getKeyColumns());
+                    }
+                    derived++;
+                }
+            }
+            if (derived == 0) {
+                logger.warn("Source {} in {} is not used by any metric", source.getName(), filename);
+            }
+            source.setLabels(new ArrayList<>(labels));
+            source.compile(TiberoCollector.NAMESPACE);
+            logger.debug("Source {} shared by {} metrics", source.getName(), derived);
+        }
+    }
+
+    /**
+     * dimensions 섹션을 차원 쿼리 설정으로 변환합니다.
+     * 차원은 name, request, key(컬럼 하나 또는 목록), refresh(초)와 fetchsize, columntypes를 사용합니다.
+     *
+     * @param dimensionsObj dimensions 섹션 (없으면 null)
+     * @param filename 로그에 표시할 파일 이름
+     * @return 차원 이름 -> 차원 설정
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, DimensionConfig> parseDimensions(Object dimensionsObj, String filename) {
+        Map<String, DimensionConfig> dimensions = new LinkedHashMap<>();
+        if (!(dimensionsObj instanceof List)) {
+            return dimensions;
+        }
+        for (Map<String, Object> dimensionData : (List<Map<String, Object>>) dimensionsObj) {
+            MetricConfig query = new MetricConfig();
+            query.setDimensionQuery(true);
+            query.setName(getString(dimensionData, "name", ""));
+            query.setRequest(getString(dimensionData, "request", ""));
+            query.setFetchSize(getInt(dimensionData, "fetchsize", 0));
+            if (dimensionData.get("columntypes") instanceof Map) {
+                query.setColumnTypes(parseColumnTypes(query.getName(), (Map<String, Object>) dimensionData.get("columntypes")));
+            }
+            List<String> keyColumns = getStringList(dimensionData, "key");
+            int refresh = getInt(dimensionData, "refresh", DimensionConfig.DEFAULT_REFRESH_SECONDS);
+            if (query.getName().isEmpty() || query.getRequest().trim().isEmpty() || keyColumns.isEmpty()) {
+                logger.error("Skipping dimension without name, request or key in {}", filename);
+                continue;
+            }
+            if (refresh < 1) {
+                logger.error("Skipping dimension {} in {}: refresh must be >= 1", query.getName(), filename);
+                continue;
+            }
+            if (dimensions.put(query.getName(), new DimensionConfig(query, keyColumns, refresh)) != null) {
+                logger.warn("Duplicate dimension {} in {}, using the last definition", query.getName(), filename);
+            }
+        }
+        return dimensions;
+    }
+
+    /**
+     * 차원 쿼리의 레이블 컬럼을 키 컬럼과 참조 메트릭 레이블의 합집합으로 정하고 컴파일합니다.
+     * 차원 쿼리의 컬럼은 columntypes로 지정하지 않는 한 모두 문자열로 읽혀 메트릭 결과 행의 값과 같은 형태로 비교됩니다.
+     */
+    private static void linkDimensions(Map<String, DimensionConfig> dimensions, List<MetricConfig> metrics,
+                                       String filename) {
+        for (DimensionConfig dimension : dimensions.values()) {
+            Set<String> labels = new LinkedHashSet<>(dimension.getKeyColumns());
+            int enriched = 0;
+            for (MetricConfig metric : metrics) {
+                if (metric.getDimensionConfigs().contains(dimension)) {
+                    labels.addAll(metric.getLabelColumnList());
+                    enriched++;
+                }
+            }
+            if (enriched == 0) {
+                logger.warn("Dimension {} in {} is not used by any metric", dimension.getName(), filename);
+            }
+            dimension.getQuery().setLabels(new ArrayList<>(labels));
+            dimension.getQuery().compile(TiberoCollector.NAMESPACE);
+            logger.debug("Dimension {} enriches {} metrics", dimension.getName(), enriched);
+        }
+    }
+
+    /**
+     * 문자열 하나 또는 문자열 목록 값을 목록으로 읽습니다.
+     */
+    private static List<String> getStringList(Map<String, Object> map, String key) {
+        List<String> values = new ArrayList<>();
+        Object value = map.get(key);
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                values.add(String.valueOf(item));
+            }
+        } else if (value != null && !value.toString().trim().isEmpty()) {
+            values.add(value.toString().trim());
+        }
+        return values;
+    }
+
     /**
      * 메트릭 파일이 존재하는지 확인합니다 (외부 파일 또는 내장 리소스).
      *
@@ -166,6 +469,41 @@ public class MetricsLoader {
         return value != null ? value.toString() : defaultValue;
     }
 
+    /**
+     * columntypes 힌트를 컬럼명(소문자)별 ColumnType으로 변환합니다.
+     * 알 수 없는 힌트는 경고를 남기고 무시합니다 (메타데이터 기반 자동 선택).
+     */
+    private static Map<String, ColumnType> parseColumnTypes(String metricName, Map<String, Object> hints) {
+        Map<String, ColumnType> columnTypes = new HashMap<>();
+        for (Map.Entry<String, Object> hint : hints.entrySet()) {
+            ColumnType type = ColumnType.fromHint(hint.getValue() != null ? hint.getValue().toString() : null);
+            if (type == null) {
+                logger.warn("Ignoring unknown column type '{}' for {}.{}", hint.getValue(), metricName, hint.getKey());
+                continue;
+            }
+            columnTypes.put(hint.getKey().toLowerCase(), type);
+        }
+        return columnTypes;
+    }
+
+    /**
+     * Map에서 정수 값을 가져옵니다. 없거나 숫자가 아니면 기본값을 반환합니다.
+     */
+    private static int getInt(Map<String, Object> map, String key, int defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString().trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid integer value for {}: {}", key, value);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Map에서 boolean 값을 가져옵니다. 없으면 기본값을 반환합니다.
      */
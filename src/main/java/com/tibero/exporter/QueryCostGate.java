@@ -0,0 +1,262 @@
+package com.tibero.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 메트릭 쿼리의 실행 계획 비용을 확인하여 예산을 넘는 쿼리를 거부하거나, 경고만 하거나, 실행 간격을 늘리는 검사기
+ * 쿼리마다(공유 소스를 쓰는 메트릭은 소스 쿼리) 처음 실행하기 전에 한 번 EXPLAIN PLAN으로 루트 연산의 비용을 구합니다.
+ * 계획 비용 파일(--query.plan-cost-file)을 지정하면 데이터베이스 대신 파일의 값을 사용하므로
+ * 데이터베이스 없이 검사 결과를 확인하거나 쿼리 결과 재생과 함께 사용할 수 있습니다.
+ * 계획을 구할 수 없는 쿼리는 비용을 알 수 없는 것으로 보고 그대로 실행합니다.
+ */
+public class QueryCostGate {
+    private static final Logger logger = LoggerFactory.getLogger(QueryCostGate.class);
+    private static final int MAX_THROTTLE_FACTOR = 20;     // 늘린 실행 간격의 최대 배수 (수집 간격 기준)
+
+    /**
+     * 예산을 넘는 쿼리의 처리 방식
+     */
+    public enum Action {
+        FLAG,       // 경고 로그와 메트릭으로만 표시하고 그대로 실행
+        REJECT,     // 실행하지 않음
+        THROTTLE;   // 비용/예산 배수만큼 실행 간격을 늘림
+
+        /**
+         * 설정 값을 처리 방식으로 변환합니다 (대소문자 무시).
+         *
+         * @throws IllegalArgumentException 알 수 없는 값인 경우
+         */
+        public static Action parse(String value) {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final double budget;                    // 계획 비용 예산 (0이면 비용만 노출)
+    private final Action action;                    // 예산 초과 시 처리 방식
+    private final long intervalMillis;              // 기본 수집 간격 (밀리초)
+    private final Map<String, Double> fixedCosts;   // 계획 비용 파일의 쿼리 이름 -> 비용 (EXPLAIN PLAN 사용 시 null)
+    private final Map<String, Double> costs = new ConcurrentHashMap<>();    // 쿼리 이름 -> 계획 비용 (알 수 없으면 NaN)
+    private final Map<String, Long> lastRuns = new ConcurrentHashMap<>();   // 간격을 늘린 메트릭 이름 -> 마지막 실행 시각
+
+    /**
+     * QueryCostGate 생성자
+     *
+     * @param budget 계획 비용 예산 (0이면 비용만 노출)
+     * @param action 예산 초과 시 처리 방식
+     * @param intervalMillis 기본 수집 간격 (밀리초)
+     * @param fixedCosts 쿼리 이름별 계획 비용 (null이면 EXPLAIN PLAN 사용)
+     */
+    public QueryCostGate(double budget, Action action, long intervalMillis, Map<String, Double> fixedCosts) {
+        this.budget = budget;
+        this.action = action;
+        this.intervalMillis = intervalMillis;
+        this.fixedCosts = fixedCosts;
+    }
+
+    /**
+     * 설정에 따라 계획 비용 검사기를 생성합니다.
+     *
+     * @param config 설정 정보
+     * @return 계획 비용 검사기 (사용하지 않으면 null)
+     * @throws IllegalArgumentException 계획 비용 파일을 읽을 수 없는 경우
+     */
+    public static QueryCostGate fromConfig(Config config) {
+        if (!config.isPlanCostEnabled()) {
+            return null;
+        }
+        Map<String, Double> fixedCosts = config.getPlanCostFile().isEmpty()
+                ? null : loadCosts(config.getPlanCostFile());
+        return new QueryCostGate(config.getPlanCostBudget(), Action.parse(config.getPlanCostAction()),
+                config.getScrapeInterval() * 1000L, fixedCosts);
+    }
+
+    /**
+     * 계획 비용 파일을 읽습니다. 파일은 costs 아래에 쿼리 이름(메트릭 또는 소스 이름)과 비용을 나열합니다.
+     *
+     * @param filename 계획 비용 YAML 파일 경로
+     * @return 쿼리 이름 -> 계획 비용
+     * @throws IllegalArgumentException 파일을 읽을 수 없거나 비용이 숫자가 아닌 경우
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Double> loadCosts(String filename) {
+        Map<String, Double> costs = new HashMap<>();
+        try (InputStream input = Files.newInputStream(Paths.get(filename))) {
+            Map<String, Object> data = new Yaml().load(input);
+            Object entries = data != null ? data.get("costs") : null;
+            if (!(entries instanceof Map)) {
+                throw new IllegalArgumentException("No costs found in " + filename);
+            }
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) entries).entrySet()) {
+                if (!(entry.getValue() instanceof Number)) {
+                    throw new IllegalArgumentException("Plan cost of " + entry.getKey() + " in " + filename
+                            + " is not a number");
+                }
+                costs.put(entry.getKey(), ((Number) entry.getValue()).doubleValue());
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read plan costs " + filename + ": " + e.getMessage(), e);
+        }
+        logger.info("Loaded plan costs of {} queries from {}", costs.size(), filename);
+        return costs;
+    }
+
+    /**
+     * 메트릭이 실제로 실행하는 쿼리 설정을 반환합니다 (공유 소스를 쓰는 메트릭은 소스 쿼리).
+     */
+    public static MetricConfig queryOf(MetricConfig metricConfig) {
+        return metricConfig.isDerived() ? metricConfig.getSourceConfig() : metricConfig;
+    }
+
+    /**
+     * EXPLAIN PLAN으로 쿼리의 계획 비용을 구합니다.
+     * PLAN_TABLE에 임의의 STATEMENT_ID로 계획을 저장하고 루트 연산(ID 0)의 COST를 읽은 뒤 저장한 행을 지웁니다.
+     *
+     * @param stmt 대여한 연결의 Statement
+     * @param query 비용을 구할 SQL 쿼리
+     * @return 계획 비용 (옵티마이저가 비용을 계산하지 않았으면 NaN)
+     * @throws SQLException EXPLAIN PLAN 실패 또는 PLAN_TABLE이 없는 경우
+     */
+    public static double explain(Statement stmt, String query) throws SQLException {
+        String statementId = "tbexp_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        stmt.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + query);
+        try (ResultSet rs = stmt.executeQuery(
+                "SELECT COST FROM PLAN_TABLE WHERE STATEMENT_ID = '" + statementId + "' AND ID = 0")) {
+            double cost = Double.NaN;
+            if (rs.next()) {
+                cost = rs.getDouble(1);
+                if (rs.wasNull()) {
+                    cost = Double.NaN;
+                }
+            }
+            return cost;
+        } finally {
+            stmt.executeUpdate("DELETE FROM PLAN_TABLE WHERE STATEMENT_ID = '" + statementId + "'");
+        }
+    }
+
+    /**
+     * 쿼리의 계획 비용을 이미 구했는지 확인합니다 (구할 수 없었던 경우 포함).
+     */
+    public boolean isEstimated(MetricConfig query) {
+        return costs.containsKey(query.getName());
+    }
+
+    /**
+     * 계획 비용 파일을 사용하면 데이터베이스에 묻지 않고 쿼리의 비용을 기록합니다.
+     *
+     * @param query 쿼리 설정
+     * @return 파일에서 비용을 기록했으면 true (파일에 없는 쿼리는 비용을 알 수 없는 것으로 기록)
+     */
+    public boolean recordFixed(MetricConfig query) {
+        if (fixedCosts == null) {
+            return false;
+        }
+        record(query, fixedCosts.getOrDefault(query.getName(), Double.NaN));
+        return true;
+    }
+
+    /**
+     * 쿼리의 계획 비용을 기록하고, 예산을 넘으면 처리 방식을 로그로 남깁니다.
+     *
+     * @param query 쿼리 설정
+     * @param cost 계획 비용 (알 수 없으면 NaN)
+     */
+    public void record(MetricConfig query, double cost) {
+        costs.put(query.getName(), cost);
+        if (!isOverBudget(cost)) {
+            logger.debug("Plan cost of {}: {}", query.getName(), cost);
+            return;
+        }
+        switch (action) {
+            case REJECT:
+                logger.error("Rejecting metric query {}: plan cost {} exceeds budget {}", query.getName(), cost, budget);
+                break;
+            case THROTTLE:
+                logger.warn("Running metric query {} every {}s: plan cost {} exceeds budget {}", query.getName(),
+                        intervalMillis * throttleFactor(cost) / 1000, cost, budget);
+                break;
+            default:
+                logger.warn("Metric query {} has plan cost {} over budget {}", query.getName(), cost, budget);
+                break;
+        }
+    }
+
+    /**
+     * 메트릭을 지금 실행할지 결정합니다. 간격을 늘린 메트릭은 실행할 차례이면 실행 시각을 기록합니다.
+     * 스크래핑 시각이 조금씩 어긋나도 배수가 밀리지 않도록 기본 수집 간격의 절반까지 일찍 실행합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @param now 현재 시각 (epoch 밀리초)
+     * @return 실행해야 하면 true (거부되었거나 실행할 차례가 아니면 false)
+     */
+    public boolean admit(MetricConfig metricConfig, long now) {
+        double cost = costs.getOrDefault(queryOf(metricConfig).getName(), Double.NaN);
+        if (!isOverBudget(cost) || action == Action.FLAG) {
+            return true;
+        }
+        if (action == Action.REJECT) {
+            return false;
+        }
+        Long lastRun = lastRuns.get(metricConfig.getName());
+        if (lastRun != null && now - lastRun < intervalMillis * throttleFactor(cost) - intervalMillis / 2) {
+            return false;
+        }
+        lastRuns.put(metricConfig.getName(), now);
+        return true;
+    }
+
+    /**
+     * 메트릭의 실행 간격이 늘어났는지 확인합니다 (실행하지 않는 주기에는 이전 결과를 사용해야 함).
+     */
+    public boolean isThrottled(MetricConfig metricConfig) {
+        return action == Action.THROTTLE
+                && isOverBudget(costs.getOrDefault(queryOf(metricConfig).getName(), Double.NaN));
+    }
+
+    /**
+     * 메트릭의 실행 간격을 반환합니다 (초).
+     */
+    public double refreshSeconds(MetricConfig metricConfig) {
+        double cost = costs.getOrDefault(queryOf(metricConfig).getName(), Double.NaN);
+        int factor = isThrottled(metricConfig) ? throttleFactor(cost) : 1;
+        return intervalMillis * factor / 1000.0;
+    }
+
+    /**
+     * 쿼리 이름별 계획 비용을 반환합니다 (비용을 알 수 없는 쿼리는 NaN).
+     */
+    public Map<String, Double> getCosts() {
+        return Collections.unmodifiableMap(costs);
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    private boolean isOverBudget(double cost) {
+        return budget > 0 && cost > budget;
+    }
+
+    /**
+     * 예산 대비 비용 배수만큼 실행 간격을 늘립니다 (최대 MAX_THROTTLE_FACTOR배).
+     */
+    private int throttleFactor(double cost) {
+        return (int) Math.min(MAX_THROTTLE_FACTOR, Math.ceil(cost / budget));
+    }
+}
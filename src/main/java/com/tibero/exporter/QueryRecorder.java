@@ -0,0 +1,216 @@
+package com.tibero.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 메트릭 쿼리의 결과 집합을 그대로 파일에 기록하는 레코더 (--record.file)
+ * 운영 환경의 결과 행 수, 레이블 조합, 값 분포를 오프라인에서 재현하기 위해
+ * 쿼리마다 컬럼 이름과 읽기 타입, 결과 행, 실행 소요 시간을 기록하고, 수집 주기마다 주기 프레임으로 구분합니다.
+ * 기록 파일은 QueryReplay로 재생하여 데이터베이스 없이 수집기와 노출 경로의 성능을 비교할 수 있습니다.
+ *
+ * 파일 형식 (gzip 압축, DataOutputStream):
+ * <pre>
+ * 헤더: int MAGIC, short VERSION
+ * 주기 프레임: byte 'C', long 시작 시각(epoch 밀리초)
+ * 결과 프레임: byte 'R', UTF 메트릭 이름, UTF SQL 해시, long 시작 시각, long 소요 시간(나노초),
+ *             int 컬럼 수, (UTF 컬럼 이름, byte 컬럼 타입) x 컬럼 수, int 행 수, 값 x (행 수 x 컬럼 수)
+ * 실패 프레임: byte 'F', UTF 메트릭 이름, long 시작 시각, long 소요 시간(나노초),
+ *             문자열 오류 메시지, 문자열 SQLState, int 오류 코드, boolean 연결 오류 여부
+ * 값: byte 태그(0 NULL, 1 double, 2 long, 3 문자열) 뒤에 값, 문자열은 int 길이와 UTF-8 바이트
+ * </pre>
+ * 주기 경계마다 압축 스트림을 flush하므로 프로세스가 중단되어도 마지막 주기 이전까지는 재생할 수 있습니다.
+ */
+public class QueryRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(QueryRecorder.class);
+
+    static final int MAGIC = 0x54425251;     // "TBRQ"
+    static final short VERSION = 1;
+    static final byte FRAME_CYCLE = 'C';
+    static final byte FRAME_RESULT = 'R';
+    static final byte FRAME_FAILURE = 'F';
+    static final byte VALUE_NULL = 0;
+    static final byte VALUE_DOUBLE = 1;
+    static final byte VALUE_LONG = 2;
+    static final byte VALUE_STRING = 3;
+    private static final int MAX_MESSAGE_LENGTH = 1000;   // 기록할 오류 메시지 최대 길이
+
+    private final String file;              // 기록 파일 경로
+    private DataOutputStream out;           // 기록 스트림 (쓰기 실패 또는 종료 후 null)
+    private long cycles = 0;                // 기록한 주기 수
+    private long frames = 0;                // 기록한 결과/실패 프레임 수
+
+    /**
+     * QueryRecorder 생성자 (기존 파일은 덮어씀)
+     *
+     * @param file 기록 파일 경로
+     * @throws IOException 파일 생성 실패 시
+     */
+    public QueryRecorder(String file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new GZIPOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(Paths.get(file))), true));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        logger.info("Recording metric query results to {}", file);
+    }
+
+    /**
+     * 수집기별 기록 파일 경로를 반환합니다. TAC 클러스터 노드는 노드 이름을 접미사로 붙여 따로 기록합니다.
+     *
+     * @param file 설정된 기록 파일 경로
+     * @param instanceName 클러스터 노드의 인스턴스 이름 (단일 노드 모드는 null)
+     * @return 수집기의 기록 파일 경로
+     */
+    public static String path(String file, String instanceName) {
+        return instanceName == null ? file : file + "." + instanceName;
+    }
+
+    /**
+     * 새 수집 주기 프레임을 기록합니다. 이전 주기까지의 기록은 파일에 flush합니다.
+     */
+    public synchronized void beginCycle() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+            out.writeByte(FRAME_CYCLE);
+            out.writeLong(System.currentTimeMillis());
+            cycles++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 쿼리 결과 집합을 기록합니다.
+     *
+     * @param metricName 메트릭(또는 소스, 차원) 이름, 연결 확인 쿼리는 "up"
+     * @param sqlHash SQL 해시
+     * @param startedAt 쿼리 시작 시각 (epoch 밀리초)
+     * @param elapsedNanos 실행과 fetch 소요 시간 (나노초)
+     * @param columnNames 컬럼 이름 (소문자, 결과 행 키와 같음)
+     * @param columnTypes 컬럼별 읽기 타입
+     * @param rows 결과 행
+     */
+    public synchronized void record(String metricName, String sqlHash, long startedAt, long elapsedNanos,
+                                    String[] columnNames, ColumnType[] columnTypes,
+                                    List<Map<String, Object>> rows) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(FRAME_RESULT);
+            out.writeUTF(metricName);
+            out.writeUTF(sqlHash);
+            out.writeLong(startedAt);
+            out.writeLong(elapsedNanos);
+            out.writeInt(columnNames.length);
+            for (int i = 0; i < columnNames.length; i++) {
+                out.writeUTF(columnNames[i]);
+                out.writeByte(columnTypes[i].ordinal());
+            }
+            out.writeInt(rows.size());
+            for (Map<String, Object> row : rows) {
+                for (String columnName : columnNames) {
+                    writeValue(row.get(columnName));
+                }
+            }
+            frames++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * 실패한 쿼리를 기록합니다. 재생 시 같은 오류가 같은 순서로 발생합니다.
+     *
+     * @param metricName 메트릭(또는 소스, 차원) 이름, 연결 확인 쿼리는 "up"
+     * @param startedAt 쿼리 시작 시각 (epoch 밀리초)
+     * @param elapsedNanos 실패까지의 소요 시간 (나노초)
+     * @param error 쿼리 오류
+     */
+    public synchronized void recordFailure(String metricName, long startedAt, long elapsedNanos, SQLException error) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(FRAME_FAILURE);
+            out.writeUTF(metricName);
+            out.writeLong(startedAt);
+            out.writeLong(elapsedNanos);
+            String message = error.getMessage() != null ? error.getMessage() : error.toString();
+            writeString(message.length() > MAX_MESSAGE_LENGTH ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+            writeString(error.getSQLState() != null ? error.getSQLState() : "");
+            out.writeInt(error.getErrorCode());
+            out.writeBoolean(error instanceof SQLRecoverableException);
+            frames++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(VALUE_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else {
+            out.writeByte(VALUE_STRING);
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 쓰기 실패 시 기록을 중단합니다 (수집은 계속됨).
+     */
+    private void fail(IOException e) {
+        logger.warn("Stopped recording to {} after {} cycles: {}", file, cycles, e.getMessage());
+        closeQuietly();
+    }
+
+    /**
+     * 기록을 마치고 파일을 닫습니다.
+     */
+    public synchronized void close() {
+        if (out != null) {
+            logger.info("Recorded {} query results in {} cycles to {}", frames, cycles, file);
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            // 무시
+        }
+        out = null;
+    }
+}
@@ -0,0 +1,252 @@
+package com.tibero.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * QueryRecorder로 기록한 결과 집합을 데이터베이스 대신 돌려주는 재생기 (--replay.file)
+ * 수집기가 주기를 시작할 때마다 기록의 다음 주기로 넘어가고, 쿼리마다 같은 주기에서 같은 이름으로 기록된 결과를
+ * 기록된 순서대로 돌려줍니다 (마지막 주기 다음에는 처음으로 돌아감).
+ * 기록된 쿼리 소요 시간을 재생 속도 배율로 나눈 만큼 지연한 뒤 반환하므로(0이면 지연 없음)
+ * 원래 속도 또는 가속된 속도로 수집기와 노출 경로의 변경을 실제 운영 데이터로 벤치마크할 수 있습니다.
+ * 기록 파일은 시작 시 메모리에 모두 읽어 들이며, 결과 행은 호출마다 새로 만들어 JDBC로 읽을 때와 같은 할당을 재현합니다.
+ */
+public class QueryReplay {
+    private static final Logger logger = LoggerFactory.getLogger(QueryReplay.class);
+
+    private final String file;                          // 기록 파일 경로
+    private final double speed;                         // 재생 속도 배율 (0이면 지연 없음)
+    private final List<Map<String, List<Recorded>>> cycles = new ArrayList<>();  // 주기별 이름 -> 기록 순서대로의 결과
+    private final Map<String, Recorded> latest = new HashMap<>();  // 이름별 마지막 성공 결과 (주기에 기록이 없을 때 사용)
+    private long frames = 0;                            // 읽은 결과/실패 프레임 수
+
+    private int cycle = -1;                             // 재생 중인 주기
+    private final Map<String, Integer> taken = new HashMap<>();   // 이번 주기에 이름별로 반환한 결과 수
+
+    /**
+     * QueryReplay 생성자
+     * 기록 파일을 모두 읽습니다. 기록 도중 중단되어 끝이 잘린 파일은 읽을 수 있는 데까지 사용합니다.
+     *
+     * @param file 기록 파일 경로
+     * @param speed 재생 속도 배율 (1 = 기록된 소요 시간 그대로, 0 = 지연 없음)
+     * @throws IOException 파일을 읽을 수 없거나 기록 파일 형식이 아닌 경우
+     */
+    public QueryReplay(String file, double speed) throws IOException {
+        this.file = file;
+        this.speed = speed;
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(Paths.get(file)))))) {
+            if (in.readInt() != QueryRecorder.MAGIC) {
+                throw new IOException(file + " is not a query recording");
+            }
+            short version = in.readShort();
+            if (version != QueryRecorder.VERSION) {
+                throw new IOException("Unsupported query recording version " + version + " in " + file);
+            }
+            try {
+                readFrames(in);
+            } catch (EOFException e) {
+                // 기록 중 중단된 파일: 마지막 주기는 불완전할 수 있으므로 버림
+                if (!cycles.isEmpty()) {
+                    cycles.remove(cycles.size() - 1);
+                }
+                logger.warn("Recording {} ends mid-frame; replaying its {} complete cycles", file, cycles.size());
+            }
+        }
+        if (cycles.isEmpty()) {
+            throw new IOException("Recording " + file + " contains no complete cycle");
+        }
+        logger.info("Replaying {} query results in {} cycles from {} at {}x speed", frames, cycles.size(), file,
+                speed > 0 ? speed : "unthrottled");
+    }
+
+    private void readFrames(DataInputStream in) throws IOException {
+        int tag;
+        while ((tag = in.read()) != -1) {
+            if (tag == QueryRecorder.FRAME_CYCLE) {
+                in.readLong();
+                cycles.add(new HashMap<>());
+                continue;
+            }
+            if (cycles.isEmpty()) {
+                cycles.add(new HashMap<>());  // 첫 주기 프레임 이전의 결과
+            }
+            Recorded recorded;
+            if (tag == QueryRecorder.FRAME_RESULT) {
+                recorded = readResult(in);
+                latest.put(recorded.name, recorded);
+            } else if (tag == QueryRecorder.FRAME_FAILURE) {
+                recorded = readFailure(in);
+            } else {
+                throw new IOException("Corrupt recording " + file + ": unknown frame " + tag);
+            }
+            cycles.get(cycles.size() - 1).computeIfAbsent(recorded.name, k -> new ArrayList<>()).add(recorded);
+            frames++;
+        }
+    }
+
+    private static Recorded readResult(DataInputStream in) throws IOException {
+        Recorded recorded = new Recorded(in.readUTF());
+        in.readUTF();   // SQL 해시
+        in.readLong();  // 시작 시각
+        recorded.elapsedNanos = in.readLong();
+        int columnCount = in.readInt();
+        recorded.columnNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            recorded.columnNames[i] = in.readUTF();
+            in.readByte();  // 컬럼 타입 (값 태그로 복원하므로 사용하지 않음)
+        }
+        int rowCount = in.readInt();
+        recorded.rows = new Object[rowCount][];
+        for (int r = 0; r < rowCount; r++) {
+            Object[] values = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                values[i] = readValue(in);
+            }
+            recorded.rows[r] = values;
+        }
+        return recorded;
+    }
+
+    private static Recorded readFailure(DataInputStream in) throws IOException {
+        Recorded recorded = new Recorded(in.readUTF());
+        in.readLong();  // 시작 시각
+        recorded.elapsedNanos = in.readLong();
+        recorded.message = readString(in);
+        String sqlState = readString(in);
+        recorded.sqlState = sqlState.isEmpty() ? null : sqlState;
+        recorded.errorCode = in.readInt();
+        recorded.recoverable = in.readBoolean();
+        return recorded;
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case QueryRecorder.VALUE_NULL:
+                return null;
+            case QueryRecorder.VALUE_DOUBLE:
+                return in.readDouble();
+            case QueryRecorder.VALUE_LONG:
+                return in.readLong();
+            case QueryRecorder.VALUE_STRING:
+                return readString(in);
+            default:
+                throw new IOException("Corrupt recording: unknown value tag " + tag);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 기록의 다음 주기로 넘어갑니다. 마지막 주기 다음에는 첫 주기로 돌아갑니다.
+     */
+    public synchronized void beginCycle() {
+        cycle = (cycle + 1) % cycles.size();
+        taken.clear();
+        if (cycle == 0) {
+            logger.debug("Replaying {} from the first cycle", file);
+        }
+    }
+
+    /**
+     * 쿼리 하나를 재생합니다. 기록된 소요 시간만큼 지연한 뒤 결과 행을 반환하거나 기록된 오류를 발생시킵니다.
+     * 이번 주기에 해당 이름의 기록이 없으면 파일 전체에서 마지막으로 성공한 결과를 사용합니다.
+     *
+     * @param metricName 메트릭(또는 소스, 차원) 이름, 연결 확인 쿼리는 "up"
+     * @param deadline 스크래핑 마감 시각 (지연이 마감 시각을 넘으면 SQLTimeoutException)
+     * @return 결과 행 (호출마다 새로 생성)
+     * @throws SQLException 기록된 쿼리 오류, 기록 없음, 마감 시각 초과 시
+     */
+    public List<Map<String, Object>> next(String metricName, ScrapeDeadline deadline) throws SQLException {
+        Recorded recorded;
+        synchronized (this) {
+            if (cycle < 0) {
+                beginCycle();
+            }
+            List<Recorded> inCycle = cycles.get(cycle).get(metricName);
+            int index = taken.merge(metricName, 1, Integer::sum) - 1;
+            recorded = inCycle != null && index < inCycle.size() ? inCycle.get(index) : latest.get(metricName);
+        }
+        if (recorded == null) {
+            throw new SQLException("No recorded result for " + metricName + " in " + file);
+        }
+
+        pace(recorded.elapsedNanos, deadline);
+        if (recorded.message != null) {
+            throw recorded.recoverable
+                    ? new SQLRecoverableException(recorded.message, recorded.sqlState, recorded.errorCode)
+                    : new SQLException(recorded.message, recorded.sqlState, recorded.errorCode);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(recorded.rows.length);
+        int columnCount = recorded.columnNames.length;
+        for (Object[] values : recorded.rows) {
+            Map<String, Object> row = new HashMap<>(columnCount * 2);
+            for (int i = 0; i < columnCount; i++) {
+                row.put(recorded.columnNames[i], values[i]);
+            }
+            results.add(row);
+        }
+        return results;
+    }
+
+    /**
+     * 기록된 소요 시간을 재생 속도로 나눈 만큼 대기합니다.
+     */
+    private void pace(long elapsedNanos, ScrapeDeadline deadline) throws SQLException {
+        if (speed <= 0 || elapsedNanos <= 0) {
+            return;
+        }
+        long delayNanos = (long) (elapsedNanos / speed);
+        try {
+            if (!deadline.isUnbounded() && delayNanos > TimeUnit.MILLISECONDS.toNanos(deadline.remainingMillis())) {
+                TimeUnit.MILLISECONDS.sleep(deadline.remainingMillis());
+                throw new SQLTimeoutException("Scrape deadline exceeded during replayed query");
+            }
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during replayed query", e);
+        }
+    }
+
+    /**
+     * 기록된 쿼리 한 번의 결과 또는 오류
+     */
+    private static class Recorded {
+        final String name;          // 메트릭(또는 소스, 차원) 이름
+        long elapsedNanos;          // 기록된 소요 시간
+        String[] columnNames;       // 컬럼 이름 (오류 기록은 null)
+        Object[][] rows;            // 행별 값 (컬럼 순서)
+        String message;             // 오류 메시지 (성공 기록은 null)
+        String sqlState;
+        int errorCode;
+        boolean recoverable;        // 연결 오류 여부
+
+        Recorded(String name) {
+            this.name = name;
+        }
+    }
+}
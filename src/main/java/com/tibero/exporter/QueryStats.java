@@ -0,0 +1,67 @@
+package com.tibero.exporter;
+
+/**
+ * 메트릭 쿼리의 마지막 실행 통계를 담는 클래스
+ * Exporter 자체 메트릭(tibero_query_*)으로 노출되어 fetch 튜닝 효과를 확인하는 데 사용됩니다.
+ * 세션 통계 샘플링을 사용하면 쿼리별 데이터베이스 비용 누적값(tibero_query_db_*_total)도 함께 보관합니다.
+ */
+public class QueryStats {
+    private int fetchSize;          // 적용된 JDBC fetch size
+    private int rows;               // 마지막 실행에서 가져온 행 수
+    private double[] costTotals;    // 세션 통계 항목별 누적 비용 (SessionCostSampler.Stat 순서, 측정 전에는 null)
+    private long costSamples;       // 비용을 측정한 실행 횟수
+
+    public synchronized void record(int fetchSize, int rows) {
+        this.fetchSize = fetchSize;
+        this.rows = rows;
+    }
+
+    /**
+     * 한 번의 실행에서 측정한 데이터베이스 비용을 누적합니다.
+     *
+     * @param cost 항목별 비용 (SessionCostSampler.Stat 순서)
+     */
+    public synchronized void recordCost(double[] cost) {
+        if (costTotals == null) {
+            costTotals = new double[cost.length];
+        }
+        for (int i = 0; i < cost.length; i++) {
+            costTotals[i] += cost[i];
+        }
+        costSamples++;
+    }
+
+    /**
+     * 항목별 누적 비용을 반환합니다.
+     *
+     * @return 누적 비용 복사본 (측정한 적이 없으면 null)
+     */
+    public synchronized double[] getCostTotals() {
+        return costTotals != null ? costTotals.clone() : null;
+    }
+
+    public synchronized long getCostSamples() {
+        return costSamples;
+    }
+
+    public synchronized int getFetchSize() {
+        return fetchSize;
+    }
+
+    public synchronized int getRows() {
+        return rows;
+    }
+
+    /**
+     * 마지막 실행에서 필요했던 fetch 왕복 횟수 추정치를 반환합니다.
+     * 결과가 없어도 최소 한 번은 서버에 요청하므로 1 이상입니다.
+     *
+     * @return 추정 fetch 왕복 횟수
+     */
+    public synchronized int getFetchRoundTrips() {
+        if (fetchSize <= 0) {
+            return 1;
+        }
+        return Math.max(1, (rows + fetchSize - 1) / fetchSize);
+    }
+}
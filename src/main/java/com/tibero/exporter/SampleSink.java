@@ -0,0 +1,179 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.Collector.Type;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 수집 플러그인(MetricPlugin)이 계산한 샘플을 메트릭 패밀리로 모으는 기록기
+ * 패밀리 이름은 YAML 메트릭과 같이 tibero_&lt;플러그인 이름&gt;_&lt;샘플 이름&gt;이며,
+ * TAC 클러스터 모드에서는 instance_name 레이블을 자동으로 붙입니다.
+ * 플러그인 쿼리용 Statement도 이 기록기에서 만들어 수집기의 마감 시각 감시에 등록합니다.
+ * 한 번의 수집에서만 사용되며 스레드 안전하지 않습니다.
+ */
+public class SampleSink {
+    private final MetricConfig metricConfig;    // 플러그인의 메트릭 정의 (패밀리 이름 접두사)
+    private final String instanceName;          // TAC 인스턴스 레이블 값 (단일 노드 모드는 null)
+    private final Map<String, Family> families = new LinkedHashMap<>();  // 패밀리 이름 -> 패밀리 (기록 순서)
+    private int sampleCount = 0;
+
+    private Connection connection;              // 수집 중 대여한 연결 (수집 중이 아니면 null)
+    private ScrapeDeadline deadline;            // 스크래핑 마감 시각
+    private Consumer<Statement> watch;          // Statement를 마감 시각 감시에 등록하는 함수
+
+    SampleSink(MetricConfig metricConfig, String instanceName) {
+        this.metricConfig = metricConfig;
+        this.instanceName = instanceName;
+    }
+
+    /**
+     * 플러그인 쿼리용 Statement를 만듭니다.
+     * 타임아웃을 마감 시각으로 제한하고 마감 시각 감시에 등록하므로, 마감 시각에 도달하면 실행 중인 쿼리가 취소됩니다.
+     * 감시는 마지막으로 만든 Statement 하나만 취소하므로 쿼리는 차례로 실행해야 하며, 닫는 것은 플러그인의 몫입니다.
+     *
+     * @param timeoutSeconds 쿼리 타임아웃 (초, 마감 시각으로 더 줄어듦)
+     * @return 생성한 Statement
+     * @throws SQLException Statement 생성 실패 시
+     * @throws IllegalStateException MetricPlugin.collect() 밖에서 호출한 경우
+     */
+    public Statement createStatement(int timeoutSeconds) throws SQLException {
+        if (connection == null) {
+            throw new IllegalStateException("Statements can only be created during MetricPlugin.collect()");
+        }
+        Statement stmt = connection.createStatement();
+        try {
+            stmt.setQueryTimeout(deadline.capTimeoutSeconds(timeoutSeconds));
+        } catch (SQLException e) {
+            stmt.close();
+            throw e;
+        }
+        watch.accept(stmt);
+        return stmt;
+    }
+
+    /**
+     * 플러그인 수집 동안 연결과 마감 시각 감시를 연결합니다.
+     */
+    void bind(Connection connection, ScrapeDeadline deadline, Consumer<Statement> watch) {
+        this.connection = connection;
+        this.deadline = deadline;
+        this.watch = watch;
+    }
+
+    /**
+     * 플러그인 수집이 끝나면 연결과 감시를 해제합니다.
+     */
+    void unbind() {
+        this.connection = null;
+        this.deadline = null;
+        this.watch = null;
+    }
+
+    /**
+     * gauge 샘플을 기록합니다.
+     *
+     * @param name 샘플 이름 (tibero_&lt;플러그인 이름&gt;_ 뒤에 붙음)
+     * @param help 메트릭 설명 (패밀리의 첫 샘플에서만 사용)
+     * @param labelNames 레이블 이름 (같은 패밀리에서는 항상 같아야 함)
+     * @param labelValues 레이블 값
+     * @param value 값
+     * @throws IllegalArgumentException 같은 이름의 패밀리와 타입이나 레이블 이름이 다른 경우
+     */
+    public void gauge(String name, String help, List<String> labelNames, List<String> labelValues, double value) {
+        add(Type.GAUGE, name, help, labelNames, labelValues, value);
+    }
+
+    /**
+     * counter 샘플을 기록합니다 (샘플 이름에 _total이 붙음).
+     *
+     * @param name 샘플 이름 (tibero_&lt;플러그인 이름&gt;_ 뒤에 붙음, _total 제외)
+     * @param help 메트릭 설명 (패밀리의 첫 샘플에서만 사용)
+     * @param labelNames 레이블 이름 (같은 패밀리에서는 항상 같아야 함)
+     * @param labelValues 레이블 값
+     * @param value 누적값
+     * @throws IllegalArgumentException 같은 이름의 패밀리와 타입이나 레이블 이름이 다른 경우
+     */
+    public void counter(String name, String help, List<String> labelNames, List<String> labelValues, double value) {
+        add(Type.COUNTER, name, help, labelNames, labelValues, value);
+    }
+
+    private void add(Type type, String name, String help, List<String> labelNames, List<String> labelValues,
+                     double value) {
+        if (labelNames.size() != labelValues.size()) {
+            throw new IllegalArgumentException("Sample " + name + " has " + labelNames.size() + " label names but "
+                    + labelValues.size() + " values");
+        }
+        String familyName = metricConfig.familyName(name);
+        Family family = families.get(familyName);
+        if (family == null) {
+            family = new Family(type, familyName, help, labelNames);
+            families.put(familyName, family);
+        } else if (family.type != type || !family.labelNames.equals(labelNames)) {
+            throw new IllegalArgumentException("Sample " + name + " does not match the type or labels of "
+                    + familyName);
+        }
+
+        List<String> values = labelValues;
+        if (instanceName != null) {
+            values = new ArrayList<>(labelValues.size() + 1);
+            values.addAll(labelValues);
+            values.add(instanceName);
+        }
+        if (type == Type.COUNTER) {
+            ((CounterMetricFamily) family.samples).addMetric(values, value);
+        } else {
+            ((GaugeMetricFamily) family.samples).addMetric(values, value);
+        }
+        sampleCount++;
+    }
+
+    /**
+     * 기록한 샘플 수를 반환합니다 (쿼리 실행 통계의 행 수로 기록됨).
+     */
+    int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * 기록한 메트릭 패밀리를 기록 순서대로 반환합니다.
+     */
+    List<MetricFamilySamples> families() {
+        List<MetricFamilySamples> mfs = new ArrayList<>(families.size());
+        for (Family family : families.values()) {
+            mfs.add(family.samples);
+        }
+        return mfs;
+    }
+
+    /**
+     * 패밀리 하나의 타입, 레이블 이름, 샘플
+     */
+    private class Family {
+        final Type type;
+        final List<String> labelNames;      // 플러그인이 지정한 레이블 이름 (instance_name 제외)
+        final MetricFamilySamples samples;
+
+        Family(Type type, String name, String help, List<String> labelNames) {
+            this.type = type;
+            this.labelNames = new ArrayList<>(labelNames);
+            List<String> names = this.labelNames;
+            if (instanceName != null) {
+                names = new ArrayList<>(labelNames);
+                names.add(MetricSeriesCache.INSTANCE_LABEL);
+            }
+            this.samples = type == Type.COUNTER
+                    ? new CounterMetricFamily(name, help, names)
+                    : new GaugeMetricFamily(name, help, names);
+        }
+    }
+}
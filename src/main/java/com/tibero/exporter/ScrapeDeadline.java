@@ -0,0 +1,130 @@
+package com.tibero.exporter;
+
+/**
+ * 스크래핑 단위의 마감 시각(deadline)을 표현하는 클래스
+ * Prometheus가 보내는 X-Prometheus-Scrape-Timeout-Seconds 헤더로부터 생성되며,
+ * HTTP 핸들러 스레드에 바인딩되어 TiberoCollector.collect()까지 전달됩니다.
+ */
+public class ScrapeDeadline {
+    // Prometheus가 스크래핑 타임아웃을 전달하는 HTTP 헤더
+    public static final String TIMEOUT_HEADER = "X-Prometheus-Scrape-Timeout-Seconds";
+
+    // 마감 시각이 없는 경우 (헤더가 없는 수동 요청 등)
+    private static final ScrapeDeadline UNBOUNDED = new ScrapeDeadline(Long.MAX_VALUE, 0);
+
+    // 현재 스레드에서 처리 중인 스크래핑의 마감 시각
+    private static final ThreadLocal<ScrapeDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;   // System.nanoTime() 기준 마감 시각
+    private final long budgetMillis;    // 스크래핑에 허용된 전체 시간 (밀리초)
+
+    private ScrapeDeadline(long deadlineNanos, long budgetMillis) {
+        this.deadlineNanos = deadlineNanos;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * 스크래핑 타임아웃 헤더 값으로부터 마감 시각을 생성합니다.
+     * 응답 전송 시간을 확보하기 위해 offset만큼 앞당겨 마감 시각을 설정합니다.
+     *
+     * @param headerValue 헤더 값 (초 단위, null 허용)
+     * @param offsetSeconds 타임아웃에서 차감할 여유 시간 (초)
+     * @return 마감 시각 (헤더가 없거나 잘못된 경우 무제한)
+     */
+    public static ScrapeDeadline fromHeader(String headerValue, double offsetSeconds) {
+        if (headerValue == null || headerValue.isEmpty()) {
+            return UNBOUNDED;
+        }
+        try {
+            double seconds = Double.parseDouble(headerValue.trim()) - offsetSeconds;
+            if (seconds <= 0) {
+                // 여유 시간을 빼면 남는 시간이 없는 경우 최소 100ms를 보장
+                seconds = 0.1;
+            }
+            return after((long) (seconds * 1000));
+        } catch (NumberFormatException e) {
+            return UNBOUNDED;
+        }
+    }
+
+    /**
+     * 현재 시각으로부터 지정된 시간 뒤를 마감 시각으로 생성합니다.
+     *
+     * @param millis 허용 시간 (밀리초)
+     * @return 마감 시각
+     */
+    public static ScrapeDeadline after(long millis) {
+        return new ScrapeDeadline(System.nanoTime() + millis * 1_000_000L, millis);
+    }
+
+    /**
+     * 마감 시각이 없는 인스턴스를 반환합니다.
+     */
+    public static ScrapeDeadline unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * 현재 스레드에 바인딩된 마감 시각을 반환합니다.
+     *
+     * @return 바인딩된 마감 시각 (없으면 무제한)
+     */
+    public static ScrapeDeadline current() {
+        ScrapeDeadline deadline = CURRENT.get();
+        return deadline != null ? deadline : UNBOUNDED;
+    }
+
+    /**
+     * 현재 스레드에 마감 시각을 바인딩합니다.
+     */
+    public static void bind(ScrapeDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    /**
+     * 현재 스레드의 마감 시각 바인딩을 해제합니다.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    public boolean isUnbounded() {
+        return this == UNBOUNDED;
+    }
+
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+
+    /**
+     * 마감 시각까지 남은 시간을 반환합니다.
+     *
+     * @return 남은 시간 (밀리초, 이미 지났으면 0)
+     */
+    public long remainingMillis() {
+        if (isUnbounded()) {
+            return Long.MAX_VALUE;
+        }
+        long remaining = (deadlineNanos - System.nanoTime()) / 1_000_000L;
+        return Math.max(0, remaining);
+    }
+
+    public boolean isExpired() {
+        return !isUnbounded() && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * 쿼리 타임아웃을 남은 시간 이내로 제한합니다.
+     * Statement.setQueryTimeout()은 초 단위이므로 올림하여 최소 1초를 반환합니다.
+     *
+     * @param timeoutSeconds 메트릭에 설정된 쿼리 타임아웃 (초)
+     * @return 마감 시각을 넘지 않는 쿼리 타임아웃 (초)
+     */
+    public int capTimeoutSeconds(int timeoutSeconds) {
+        if (isUnbounded()) {
+            return timeoutSeconds;
+        }
+        long remainingSeconds = (remainingMillis() + 999) / 1000;
+        return (int) Math.max(1, Math.min(timeoutSeconds, remainingSeconds));
+    }
+}
@@ -0,0 +1,66 @@
+package com.tibero.exporter;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * 스크래핑 단계별 JFR(Java Flight Recorder) 커스텀 이벤트 모음
+ * 기록 중이 아니면 이벤트는 commit 시 바로 버려지므로 상시 활성화해도 부담이 거의 없습니다.
+ * 예: java -XX:StartFlightRecording=filename=exporter.jfr -jar tibero-exporter.jar ...
+ */
+public final class ScrapeEvents {
+
+    private ScrapeEvents() {
+    }
+
+    /**
+     * 모든 단계 이벤트의 공통 필드
+     */
+    @Category({"Tibero Exporter", "Scrape"})
+    public abstract static class PhaseEvent extends Event {
+        @Label("Metric")
+        @Description("Metric definition name, or \"up\" for the connectivity check")
+        public String metric;
+
+        @Label("SQL Hash")
+        @Description("Short hash of the SQL text")
+        public String sqlHash;
+
+        @Label("Rows")
+        @Description("Rows fetched or converted, or samples written for exposition")
+        public long rows;
+    }
+
+    @Name("com.tibero.exporter.PoolCheckout")
+    @Label("Pool Checkout")
+    @Description("Borrowing a connection from the pool")
+    public static class PoolCheckout extends PhaseEvent {
+    }
+
+    @Name("com.tibero.exporter.StatementExecute")
+    @Label("Statement Execute")
+    @Description("Executing the metric query until the first result set is available")
+    public static class StatementExecute extends PhaseEvent {
+    }
+
+    @Name("com.tibero.exporter.Fetch")
+    @Label("Fetch")
+    @Description("Fetching and reading all result rows over JDBC")
+    public static class Fetch extends PhaseEvent {
+    }
+
+    @Name("com.tibero.exporter.RowConversion")
+    @Label("Row Conversion")
+    @Description("Converting result rows into metric samples")
+    public static class RowConversion extends PhaseEvent {
+    }
+
+    @Name("com.tibero.exporter.Exposition")
+    @Label("Exposition")
+    @Description("Rendering collected metric families into the response body")
+    public static class Exposition extends PhaseEvent {
+    }
+}
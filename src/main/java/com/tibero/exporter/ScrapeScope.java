@@ -0,0 +1,167 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Predicate;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 스크래핑 한 번에서 실행할 메트릭 범위를 표현하는 클래스
+ * /metrics/&lt;context&gt; 경로나 ?context=, ?group= 쿼리 파라미터로 생성되며,
+ * HTTP 핸들러 스레드에 바인딩되어 TiberoCollector.collect()까지 전달됩니다.
+ * 범위에 속하지 않는 메트릭은 쿼리를 실행하지 않으므로, 그룹별로 다른 주기의 Prometheus job을 구성할 수 있습니다.
+ * ?collect[]=로 메트릭 정의 이름을 지정하거나, name[] 요청으로 샘플 이름 필터가 전달되면 해당 메트릭만 실행합니다.
+ */
+public class ScrapeScope {
+    // 모든 메트릭 (범위를 지정하지 않은 /metrics 요청)
+    private static final ScrapeScope ALL = new ScrapeScope(Collections.emptySet(), Collections.emptySet(),
+            Collections.emptySet(), null);
+
+    // 범위별 캐시(연결 실패 시 스냅샷, 노출 형식 캐시)를 유지할 최대 범위 수 (넘으면 가장 오래 사용하지 않은 범위부터 제거)
+    static final int MAX_CACHED_SCOPES = 16;
+
+    // 현재 스레드에서 처리 중인 스크래핑의 범위
+    private static final ThreadLocal<ScrapeScope> CURRENT = new ThreadLocal<>();
+
+    private final Set<String> contexts;     // 허용할 context 이름 (비어 있으면 전체)
+    private final Set<String> groups;       // 허용할 group 이름 (비어 있으면 전체)
+    private final Set<String> metrics;      // 허용할 메트릭 정의 이름 (collect[], 비어 있으면 전체)
+    private final Predicate<String> sampleNameFilter;  // 요청된 샘플 이름 필터 (name[], 없으면 null)
+    private final String key;               // 범위별 캐시 키 (전체는 빈 문자열)
+
+    private ScrapeScope(Set<String> contexts, Set<String> groups, Set<String> metrics,
+                        Predicate<String> sampleNameFilter) {
+        this.contexts = contexts;
+        this.groups = groups;
+        this.metrics = metrics;
+        this.sampleNameFilter = sampleNameFilter;
+        this.key = contexts.isEmpty() && groups.isEmpty() && metrics.isEmpty()
+                ? "" : "context=" + String.join(",", contexts) + ";group=" + String.join(",", groups)
+                + (metrics.isEmpty() ? "" : ";collect=" + String.join(",", metrics));
+    }
+
+    /**
+     * context와 group 이름으로 범위를 생성합니다. 둘 다 지정하면 두 조건을 모두 만족하는 메트릭만 포함합니다.
+     *
+     * @param contexts 허용할 context 이름 (비어 있으면 전체)
+     * @param groups 허용할 group 이름 (비어 있으면 전체)
+     * @return 스크래핑 범위
+     */
+    public static ScrapeScope of(Set<String> contexts, Set<String> groups) {
+        return of(contexts, groups, Collections.emptySet());
+    }
+
+    /**
+     * context, group, 메트릭 정의 이름으로 범위를 생성합니다. 지정한 조건을 모두 만족하는 메트릭만 포함합니다.
+     *
+     * @param contexts 허용할 context 이름 (비어 있으면 전체)
+     * @param groups 허용할 group 이름 (비어 있으면 전체)
+     * @param metrics 허용할 메트릭 정의 이름 (비어 있으면 전체)
+     * @return 스크래핑 범위
+     */
+    public static ScrapeScope of(Set<String> contexts, Set<String> groups, Set<String> metrics) {
+        if (contexts.isEmpty() && groups.isEmpty() && metrics.isEmpty()) {
+            return ALL;
+        }
+        return new ScrapeScope(Collections.unmodifiableSet(new TreeSet<>(contexts)),
+                Collections.unmodifiableSet(new TreeSet<>(groups)), Collections.unmodifiableSet(new TreeSet<>(metrics)),
+                null);
+    }
+
+    /**
+     * 샘플 이름 필터를 추가한 범위를 반환합니다. 캐시 키는 그대로이며, 전체 범위로 취급하지 않습니다.
+     *
+     * @param filter Collector.collect(Predicate)로 전달된 샘플 이름 필터
+     * @return 필터가 추가된 범위
+     */
+    public ScrapeScope withSampleNameFilter(Predicate<String> filter) {
+        return new ScrapeScope(contexts, groups, metrics, filter);
+    }
+
+    /**
+     * 모든 메트릭을 포함하는 범위를 반환합니다.
+     */
+    public static ScrapeScope all() {
+        return ALL;
+    }
+
+    /**
+     * 현재 스레드에 바인딩된 범위를 반환합니다.
+     *
+     * @return 바인딩된 범위 (없으면 전체)
+     */
+    public static ScrapeScope current() {
+        ScrapeScope scope = CURRENT.get();
+        return scope != null ? scope : ALL;
+    }
+
+    /**
+     * 현재 스레드에 범위를 바인딩합니다.
+     */
+    public static void bind(ScrapeScope scope) {
+        CURRENT.set(scope);
+    }
+
+    /**
+     * 현재 스레드의 범위 바인딩을 해제합니다.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 메트릭이 이 범위에 속하는지 확인합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @return 쿼리를 실행해야 하면 true
+     */
+    public boolean includes(MetricConfig metricConfig) {
+        return (contexts.isEmpty() || contexts.contains(metricConfig.getContext()))
+                && (groups.isEmpty() || groups.contains(metricConfig.getGroup()))
+                && (metrics.isEmpty() || metrics.contains(metricConfig.getName()));
+    }
+
+    /**
+     * 요청된 샘플 이름 필터를 반환합니다.
+     *
+     * @return 샘플 이름 필터 (name[] 요청이 아니면 null)
+     */
+    public Predicate<String> getSampleNameFilter() {
+        return sampleNameFilter;
+    }
+
+    /**
+     * 필터 없는 전체 범위인지 확인합니다 (범위 지정이나 샘플 이름 필터가 있으면 false).
+     */
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * 범위별 캐시를 둘 수 있는 범위인지 확인합니다.
+     * 키가 요청마다 임의로 늘어나지 않도록 설정에 있는 context와 group 이름만으로 된 범위만 허용하며,
+     * ?collect[]= 범위는 캐시하지 않습니다.
+     *
+     * @param knownContexts 메트릭 설정에 있는 context 이름
+     * @param knownGroups 메트릭 설정에 있는 group 이름
+     * @return 캐시를 둘 수 있으면 true
+     */
+    public boolean isCacheable(Set<String> knownContexts, Set<String> knownGroups) {
+        return metrics.isEmpty() && knownContexts.containsAll(contexts) && knownGroups.containsAll(groups);
+    }
+
+    /**
+     * 범위별 캐시(연결 실패 시 반환할 스냅샷, 노출 형식 캐시)를 구분하는 키를 반환합니다.
+     *
+     * @return 캐시 키 (전체 범위는 빈 문자열)
+     */
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "all" : key;
+    }
+}
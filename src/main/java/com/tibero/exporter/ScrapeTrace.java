@@ -0,0 +1,184 @@
+package com.tibero.exporter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 스크래핑 한 번의 단계별 실행 기록(타임라인)
+ * HTTP 핸들러 스레드에 바인딩되어 수집 중 각 단계(연결 대여, 실행, fetch, 행 변환, 노출 형식 생성)의
+ * 시작 시점과 소요 시간을 기록하고, 같은 단계에 대한 JFR 이벤트도 함께 발생시킵니다.
+ * 완료된 기록은 ScrapeTraceLog에 보관되어 /debug/scrape-trace로 조회됩니다.
+ */
+public class ScrapeTrace {
+    private static final int MAX_SPANS = 10000;     // 기록당 최대 단계 수 (메모리 상한)
+
+    // 현재 스레드에서 처리 중인 스크래핑의 기록
+    private static final ThreadLocal<ScrapeTrace> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 기록되는 스크래핑 단계
+     */
+    public enum Phase {
+        CHECKOUT,       // 연결 풀에서 연결 대여
+        EXECUTE,        // 쿼리 실행
+        FETCH,          // 결과 행 fetch 및 읽기
+        CONVERT,        // 결과 행을 메트릭 샘플로 변환
+        EXPOSITION      // 응답 본문 생성
+    }
+
+    private final Instant startedAt = Instant.now();    // 스크래핑 시작 시각
+    private final long startNanos = System.nanoTime();  // 스크래핑 시작 시각 (단계 오프셋 계산용)
+    private final List<Span> spans = new ArrayList<>(); // 기록된 단계 목록
+    private long durationNanos = -1;                    // 전체 소요 시간 (완료 전 -1)
+    private int droppedSpans = 0;                       // MAX_SPANS 초과로 버려진 단계 수
+
+    /**
+     * 현재 스레드에 기록을 바인딩합니다.
+     */
+    public static void bind(ScrapeTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    /**
+     * 현재 스레드의 기록 바인딩을 해제합니다.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 현재 스레드에 바인딩된 기록을 반환합니다.
+     *
+     * @return 바인딩된 기록 (없으면 null)
+     */
+    public static ScrapeTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 단계 하나의 측정을 시작합니다.
+     * 같은 단계의 JFR 이벤트를 시작하며, 현재 스레드에 기록이 바인딩되어 있으면 종료 시 타임라인에 추가됩니다.
+     *
+     * @param phase 단계
+     * @param metric 메트릭 이름
+     * @param sqlHash SQL 해시 (없으면 null)
+     * @return 종료 시 end()를 호출할 측정 객체
+     */
+    public static Span begin(Phase phase, String metric, String sqlHash) {
+        return new Span(CURRENT.get(), phase, metric, sqlHash);
+    }
+
+    /**
+     * SQL 문의 짧은 해시를 반환합니다 (String.hashCode의 16진수 8자리).
+     *
+     * @param sql SQL 문
+     * @return 해시 문자열
+     */
+    public static String sqlHash(String sql) {
+        return sql == null ? "" : String.format("%08x", sql.hashCode());
+    }
+
+    /**
+     * 스크래핑 완료를 기록합니다.
+     */
+    public synchronized void finish() {
+        durationNanos = System.nanoTime() - startNanos;
+    }
+
+    private synchronized void add(Span span) {
+        if (spans.size() < MAX_SPANS) {
+            spans.add(span);
+        } else {
+            droppedSpans++;
+        }
+    }
+
+    /**
+     * 기록을 사람이 읽을 수 있는 타임라인 텍스트로 출력합니다.
+     * 각 줄은 스크래핑 시작 기준 오프셋, 소요 시간, 단계, 메트릭, SQL 해시, 행 수, 스레드 이름입니다.
+     *
+     * @param out 출력 대상
+     */
+    public synchronized void appendTo(StringBuilder out) {
+        out.append("# scrape ").append(startedAt)
+                .append(" duration=").append(durationNanos < 0 ? "running" : formatMillis(durationNanos))
+                .append(" spans=").append(spans.size());
+        if (droppedSpans > 0) {
+            out.append(" dropped=").append(droppedSpans);
+        }
+        out.append('\n');
+        for (Span span : spans) {
+            out.append(String.format("  +%10s %10s  %-10s %-32s sql=%-8s rows=%-8d %s%n",
+                    formatMillis(span.beginNanos - startNanos), formatMillis(span.durationNanos),
+                    span.phase.name().toLowerCase(), span.metric,
+                    span.sqlHash != null ? span.sqlHash : "-", span.rows, span.thread));
+        }
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.3fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * 단계 하나의 측정
+     */
+    public static class Span {
+        private final ScrapeTrace trace;                // 기록 대상 (없으면 null)
+        private final Phase phase;                      // 단계
+        private final String metric;                    // 메트릭 이름
+        private final String sqlHash;                   // SQL 해시
+        private final ScrapeEvents.PhaseEvent event;    // 같은 단계의 JFR 이벤트
+        private final long beginNanos = System.nanoTime();
+        private String thread;                          // 실행 스레드 이름
+        private long durationNanos;                     // 소요 시간
+        private long rows;                              // 행 수
+
+        private Span(ScrapeTrace trace, Phase phase, String metric, String sqlHash) {
+            this.trace = trace;
+            this.phase = phase;
+            this.metric = metric;
+            this.sqlHash = sqlHash;
+            this.event = newEvent(phase);
+            event.begin();
+        }
+
+        /**
+         * 측정을 종료하고 JFR 이벤트를 커밋한 뒤 타임라인에 추가합니다.
+         *
+         * @param rows 처리한 행 수 (해당 없으면 0)
+         */
+        public void end(long rows) {
+            this.durationNanos = System.nanoTime() - beginNanos;
+            this.rows = rows;
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.metric = metric;
+                event.sqlHash = sqlHash;
+                event.rows = rows;
+                event.commit();
+            }
+
+            if (trace != null) {
+                thread = Thread.currentThread().getName();
+                trace.add(this);
+            }
+        }
+
+        private static ScrapeEvents.PhaseEvent newEvent(Phase phase) {
+            switch (phase) {
+                case CHECKOUT:
+                    return new ScrapeEvents.PoolCheckout();
+                case EXECUTE:
+                    return new ScrapeEvents.StatementExecute();
+                case FETCH:
+                    return new ScrapeEvents.Fetch();
+                case CONVERT:
+                    return new ScrapeEvents.RowConversion();
+                default:
+                    return new ScrapeEvents.Exposition();
+            }
+        }
+    }
+}
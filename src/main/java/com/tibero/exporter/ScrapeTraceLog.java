@@ -0,0 +1,83 @@
+package com.tibero.exporter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 최근 N번의 스크래핑 기록(ScrapeTrace)을 보관하고 /debug/scrape-trace로 응답하는 클래스
+ * 느린 스크래핑의 시간이 데이터베이스(실행), 네트워크(fetch), JVM(변환/노출 형식) 중 어디에서 소요되는지 확인할 수 있습니다.
+ */
+public class ScrapeTraceLog implements HttpHandler {
+    public static final String PATH = "/debug/scrape-trace";
+
+    private final int capacity;                             // 보관할 최대 기록 수
+    private final Deque<ScrapeTrace> traces = new ArrayDeque<>();  // 최근 기록 (오래된 순)
+
+    /**
+     * ScrapeTraceLog 생성자
+     *
+     * @param capacity 보관할 최대 기록 수 (0이면 기록하지 않음)
+     */
+    public ScrapeTraceLog(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * 기록 보관 여부를 반환합니다.
+     */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * 완료된 기록을 추가합니다. 보관 수를 넘으면 가장 오래된 기록을 버립니다.
+     *
+     * @param trace 완료된 기록
+     */
+    public synchronized void add(ScrapeTrace trace) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (traces.size() >= capacity) {
+            traces.removeFirst();
+        }
+        traces.addLast(trace);
+    }
+
+    /**
+     * 보관 중인 기록을 최신 순으로 반환합니다.
+     */
+    public synchronized List<ScrapeTrace> snapshot() {
+        List<ScrapeTrace> result = new ArrayList<>(traces);
+        Collections.reverse(result);
+        return result;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        StringBuilder body = new StringBuilder();
+        List<ScrapeTrace> recent = snapshot();
+        body.append("# last ").append(recent.size()).append(" scrapes (newest first), capacity ")
+                .append(capacity).append('\n');
+        for (ScrapeTrace trace : recent) {
+            trace.appendTo(body);
+            body.append('\n');
+        }
+
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.tibero.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLInvalidAuthorizationSpecException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * 메트릭 쿼리가 데이터베이스에 준 부하를 측정하는 세션 통계 샘플러
+ * 메트릭 쿼리 직전과 직후에 같은 연결에서 V$MYSTAT(현재 세션 통계)을 읽어 그 차이를 쿼리 비용으로 봅니다.
+ * 샘플링 쿼리 자체의 비용은 처음 사용할 때 두 번 연속 샘플링하여 측정하고 이후 차이에서 뺍니다.
+ * 권한 부족이나 뷰가 없어 샘플링이 실패하면 경고를 한 번 남기고 이후 샘플링을 중단하며,
+ * 타임아웃, 취소, 연결 오류 같은 일시적인 실패는 그 샘플만 건너뛰고 다음 쿼리에서 다시 샘플링합니다.
+ */
+public class SessionCostSampler {
+    private static final Logger logger = LoggerFactory.getLogger(SessionCostSampler.class);
+    private static final int SAMPLE_TIMEOUT = 5;   // 샘플링 쿼리 타임아웃 상한 (초)
+    private static final int TBR_OBJECT_NOT_FOUND = 8033;       // TBR-8033: 스키마 객체를 찾을 수 없음
+    private static final int TBR_PERMISSION_DENIED = 17004;     // TBR-17004: 권한 없음
+
+    /**
+     * 측정하는 세션 통계 항목
+     * 항목마다 V$STATNAME의 통계 이름 후보를 두고, 존재하는 통계 값의 합을 사용합니다.
+     */
+    public enum Stat {
+        LOGICAL_READS("logical_reads", "Logical block reads caused by the metric query",
+                "consistent gets", "db block gets", "consistent block gets", "current block gets"),
+        PHYSICAL_READS("physical_reads", "Physical block reads caused by the metric query",
+                "physical reads", "block disk read"),
+        CPU_TIME("cpu_time", "Session CPU time used by the metric query, in the unit of the CPU session statistic",
+                "CPU used by this session"),
+        PARSES("parses", "Parse calls caused by the metric query",
+                "parse count (total)");
+
+        private final String metricSuffix;  // 메트릭 이름 접미사 (tibero_query_db_<suffix>_total)
+        private final String help;          // 메트릭 설명
+        private final String[] statNames;   // V$STATNAME 통계 이름 후보
+
+        Stat(String metricSuffix, String help, String... statNames) {
+            this.metricSuffix = metricSuffix;
+            this.help = help;
+            this.statNames = statNames;
+        }
+
+        public String getMetricSuffix() {
+            return metricSuffix;
+        }
+
+        public String getHelp() {
+            return help;
+        }
+
+        /**
+         * 통계 이름이 속하는 항목을 찾습니다.
+         *
+         * @param statName V$STATNAME의 통계 이름
+         * @return 해당 항목 (없으면 null)
+         */
+        static Stat forStatName(String statName) {
+            for (Stat stat : values()) {
+                for (String candidate : stat.statNames) {
+                    if (candidate.equalsIgnoreCase(statName)) {
+                        return stat;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final String SAMPLE_QUERY = buildSampleQuery();
+
+    private volatile boolean disabled = false;  // 샘플링 실패 후 중단 여부
+    private volatile double[] overhead;         // 샘플링 쿼리 한 번의 비용 (처음 사용 시 측정)
+
+    /**
+     * 현재 세션 통계를 읽습니다.
+     *
+     * @param conn 메트릭 쿼리를 실행할 연결
+     * @param timeout 쿼리 타임아웃 (초, SAMPLE_TIMEOUT으로 제한)
+     * @param watch 샘플링 Statement를 만들 때마다 호출 (마감 시각 취소 대상으로 등록)
+     * @return 항목별 누적값 (Stat 순서), 샘플링을 중단했거나 실패하면 null
+     */
+    public double[] sample(Connection conn, int timeout, Consumer<Statement> watch) {
+        if (disabled) {
+            return null;
+        }
+        try {
+            double[] values = read(conn, timeout, watch);
+            if (overhead == null) {
+                double[] again = read(conn, timeout, watch);
+                overhead = subtract(values, again, null);
+                logger.debug("Session statistic sampling overhead measured");
+                return again;
+            }
+            return values;
+        } catch (SQLException e) {
+            if (isUnreadable(e)) {
+                disabled = true;
+                logger.warn("Disabling per-query database cost sampling, V$MYSTAT is not readable: {}", e.getMessage());
+            } else {
+                logger.debug("Skipping session statistic sample: {}", e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 권한 부족이나 뷰가 없어 앞으로도 샘플링할 수 없는 오류인지 확인합니다.
+     */
+    private static boolean isUnreadable(SQLException e) {
+        if (e instanceof SQLSyntaxErrorException || e instanceof SQLInvalidAuthorizationSpecException) {
+            return true;
+        }
+        String sqlState = e.getSQLState();
+        if (sqlState != null && sqlState.startsWith("42")) {
+            return true;    // 문법 오류 또는 접근 규칙 위반
+        }
+        int code = Math.abs(e.getErrorCode());
+        return code == TBR_OBJECT_NOT_FOUND || code == TBR_PERMISSION_DENIED;
+    }
+
+    /**
+     * 쿼리 전후 샘플의 차이에서 샘플링 쿼리 자체의 비용을 뺀 값을 계산합니다 (음수는 0으로 처리).
+     *
+     * @param before 메트릭 쿼리 직전 샘플
+     * @param after 메트릭 쿼리 직후 샘플
+     * @return 항목별 메트릭 쿼리 비용 (Stat 순서)
+     */
+    public double[] delta(double[] before, double[] after) {
+        return subtract(before, after, overhead);
+    }
+
+    private double[] read(Connection conn, int timeout, Consumer<Statement> watch) throws SQLException {
+        double[] values = new double[Stat.values().length];
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout(Math.min(timeout, SAMPLE_TIMEOUT));
+            watch.accept(stmt);
+            try (ResultSet rs = stmt.executeQuery(SAMPLE_QUERY)) {
+                while (rs.next()) {
+                    Stat stat = Stat.forStatName(rs.getString(1));
+                    if (stat != null) {
+                        values[stat.ordinal()] += rs.getDouble(2);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static double[] subtract(double[] before, double[] after, double[] overhead) {
+        double[] result = new double[before.length];
+        for (int i = 0; i < result.length; i++) {
+            double value = after[i] - before[i] - (overhead != null ? overhead[i] : 0);
+            result[i] = Math.max(0, value);
+        }
+        return result;
+    }
+
+    private static String buildSampleQuery() {
+        StringBuilder names = new StringBuilder();
+        for (Stat stat : Stat.values()) {
+            for (String statName : stat.statNames) {
+                if (names.length() > 0) {
+                    names.append(", ");
+                }
+                names.append('\'').append(statName).append('\'');
+            }
+        }
+        return "SELECT n.NAME, s.VALUE FROM V$MYSTAT s JOIN V$STATNAME n ON s.STATISTIC# = n.STATISTIC# "
+                + "WHERE n.NAME IN (" + names + ")";
+    }
+}
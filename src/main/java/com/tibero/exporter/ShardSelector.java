@@ -0,0 +1,192 @@
+package com.tibero.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 여러 Exporter 복제본이 메트릭 정의(및 클러스터 노드)를 나누어 수집하도록 하는 일관성 해싱(consistent hashing) 선택기
+ * 구성원 목록은 고정 목록(--shard.peers) 또는 공유 파일(--shard.peers-file, 한 줄에 하나)에서 읽으며,
+ * 파일이 변경되면 다음 스크래핑에서 해시 링을 다시 만들어 자동으로 재분배합니다.
+ * 일관성 해싱을 사용하므로 구성원이 추가/제거될 때 이동하는 메트릭은 해당 구성원의 몫으로 한정됩니다.
+ */
+public class ShardSelector {
+    private static final Logger logger = LoggerFactory.getLogger(ShardSelector.class);
+    private static final int VIRTUAL_NODES = 128;      // 구성원당 해시 링의 가상 노드 수 (분배 균등도)
+
+    private final String self;              // 이 복제본의 구성원 ID
+    private final List<String> staticPeers; // 고정 구성원 목록 (파일 사용 시 null)
+    private final File peersFile;           // 공유 구성원 파일 (고정 목록 사용 시 null)
+
+    private volatile Ring ring;             // 현재 해시 링 (불변 객체, 통째로 교체)
+    private long fileModified = -1;         // 마지막으로 읽은 파일의 수정 시각
+    private long fileLength = -1;           // 마지막으로 읽은 파일의 크기
+
+    /**
+     * ShardSelector 생성자
+     *
+     * @param self 이 복제본의 구성원 ID
+     * @param staticPeers 고정 구성원 목록 (파일 사용 시 null)
+     * @param peersFile 공유 구성원 파일 (고정 목록 사용 시 null)
+     */
+    public ShardSelector(String self, List<String> staticPeers, File peersFile) {
+        this.self = self;
+        this.staticPeers = staticPeers;
+        this.peersFile = peersFile;
+        this.ring = new Ring(staticPeers != null ? staticPeers : Collections.emptyList());
+        refresh();
+    }
+
+    /**
+     * 설정으로부터 ShardSelector를 생성합니다.
+     *
+     * @param config 설정 정보
+     * @return 샤딩이 설정되지 않았으면 null
+     */
+    public static ShardSelector fromConfig(Config config) {
+        if (!config.isShardingEnabled()) {
+            return null;
+        }
+        if (config.getShardPeersFile() != null && !config.getShardPeersFile().isEmpty()) {
+            return new ShardSelector(config.getShardSelf(), null, new File(config.getShardPeersFile()));
+        }
+        return new ShardSelector(config.getShardSelf(), parseMembers(config.getShardPeers()), null);
+    }
+
+    /**
+     * 공유 파일의 구성원 목록이 바뀌었으면 해시 링을 다시 만듭니다.
+     * 파일의 수정 시각과 크기만 확인하므로 스크래핑마다 호출해도 부담이 없으며, 읽기에 실패하면 다음 호출에서 다시 읽습니다.
+     */
+    public synchronized void refresh() {
+        if (peersFile == null) {
+            return;
+        }
+        long modified = peersFile.lastModified();
+        long length = peersFile.length();
+        if (modified == fileModified && length == fileLength) {
+            return;
+        }
+
+        List<String> members;
+        try {
+            members = peersFile.exists()
+                    ? parseMembers(String.join(",", Files.readAllLines(peersFile.toPath(), StandardCharsets.UTF_8)))
+                    : Collections.emptyList();
+        } catch (IOException e) {
+            // 다른 프로세스가 파일을 다시 쓰는 중일 수 있으므로 수정 시각과 크기를 기록하지 않고 다음 스크래핑에서 다시 읽음
+            logger.error("Failed to read shard peers file {}, retrying on the next scrape: {}", peersFile, e.getMessage());
+            return;
+        }
+        fileModified = modified;
+        fileLength = length;
+
+        if (!members.equals(ring.members)) {
+            logger.info("Shard membership changed: {} -> {}", ring.members, members);
+            ring = new Ring(members);
+            if (!members.contains(self)) {
+                logger.warn("Shard member {} is not listed in {}; no metrics will be collected", self, peersFile);
+            }
+        }
+    }
+
+    /**
+     * 주어진 키(메트릭 이름 등)가 이 복제본의 몫인지 확인합니다.
+     *
+     * @param key 분배 키
+     * @return 이 복제본이 수집해야 하면 true
+     */
+    public boolean owns(String key) {
+        return self.equals(ring.ownerOf(key));
+    }
+
+    /**
+     * 이 복제본이 현재 구성원 목록에 포함되어 있는지 확인합니다.
+     */
+    public boolean isMember() {
+        return ring.members.contains(self);
+    }
+
+    /**
+     * 현재 구성원 수를 반환합니다.
+     */
+    public int memberCount() {
+        return ring.members.size();
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    /**
+     * 쉼표 또는 줄바꿈으로 구분된 구성원 목록을 파싱합니다. 빈 항목과 '#' 주석은 무시하며, 중복은 제거합니다.
+     *
+     * @param spec 구성원 목록 문자열
+     * @return 구성원 ID 목록 (정렬됨)
+     */
+    static List<String> parseMembers(String spec) {
+        List<String> members = new ArrayList<>();
+        if (spec == null) {
+            return members;
+        }
+        for (String entry : spec.split("[,\\n]")) {
+            int comment = entry.indexOf('#');
+            String member = (comment >= 0 ? entry.substring(0, comment) : entry).trim();
+            if (!member.isEmpty() && !members.contains(member)) {
+                members.add(member);
+            }
+        }
+        Collections.sort(members);
+        return members;
+    }
+
+    /**
+     * 64비트 해시 (FNV-1a 후 비트 혼합). JVM이나 프로세스에 관계없이 같은 값을 반환합니다.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 구성원 목록으로 만든 일관성 해시 링 (불변)
+     */
+    private static class Ring {
+        private final List<String> members;                         // 구성원 ID 목록 (정렬됨)
+        private final TreeMap<Long, String> points = new TreeMap<>(); // 해시 -> 구성원 ID
+
+        Ring(List<String> members) {
+            this.members = Collections.unmodifiableList(new ArrayList<>(members));
+            for (String member : members) {
+                for (int i = 0; i < VIRTUAL_NODES; i++) {
+                    points.put(hash(member + "#" + i), member);
+                }
+            }
+        }
+
+        String ownerOf(String key) {
+            if (points.isEmpty()) {
+                return null;
+            }
+            Map.Entry<Long, String> entry = points.ceilingEntry(hash(key));
+            return entry != null ? entry.getValue() : points.firstEntry().getValue();
+        }
+    }
+}
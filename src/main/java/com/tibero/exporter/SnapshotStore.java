@@ -0,0 +1,294 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector;
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.Collector.MetricFamilySamples.Sample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 마지막으로 성공한 수집 결과를 압축된 열(columnar) 형태로 보관하는 저장소
+ * 연결 실패 시 반환할 캐시(Oracle Exporter 패턴)를 MetricFamilySamples 객체 그래프 대신
+ * 패밀리별 double 배열(값), 사전 인코딩된 레이블 값(int 코드), 레이블 이름/샘플 이름 사전으로 저장합니다.
+ * 값 배열은 옵션으로 힙 외부(direct buffer)에 둘 수 있습니다.
+ * 변경되지 않은 패밀리(MetricSeriesCache가 재사용한 같은 객체이거나 내용 해시가 같은 패밀리)는 다시 인코딩하지 않고
+ * 이전 인코딩을 그대로 쓰며, 샘플 수가 늘지 않은 패밀리는 힙 외부 값 버퍼를 재사용합니다.
+ * 추정 메모리가 예산을 넘으면 오래 갱신되지 않은 패밀리부터 제거하며,
+ * 이번 수집에 없는 패밀리는 STALE_RETENTION 번의 수집 동안만 유지됩니다.
+ */
+public class SnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+    private static final int STALE_RETENTION = 5;   // 수집 결과에 없는 패밀리를 유지하는 최대 수집 횟수
+
+    private final long budgetBytes;                 // 메모리 예산 (0이면 무제한)
+    private final boolean offHeap;                  // 값 배열을 힙 외부에 저장할지 여부
+    private final Map<String, CompactFamily> families = new LinkedHashMap<>();  // 패밀리 이름 -> 압축 패밀리
+    private long generation = 0;                    // 수집 결과 저장 횟수
+    private long totalBytes = 0;                    // 현재 추정 메모리 (바이트)
+    private int totalSeries = 0;                    // 현재 보관 중인 시계열 수
+
+    /**
+     * SnapshotStore 생성자
+     *
+     * @param budgetBytes 메모리 예산 (바이트, 0이면 무제한)
+     * @param offHeap 값 배열을 힙 외부에 저장할지 여부
+     */
+    public SnapshotStore(long budgetBytes, boolean offHeap) {
+        this.budgetBytes = budgetBytes;
+        this.offHeap = offHeap;
+    }
+
+    /**
+     * 성공한 수집 결과를 저장합니다.
+     * 결과에 있는 패밀리는 변경된 경우에만 새로 인코딩하고, 없는 패밀리는 오래된 것으로 표시해 유지 기간이 지나면 제거합니다.
+     * 예산을 넘으면 가장 오래 갱신되지 않은 패밀리부터, 같으면 큰 패밀리부터 제거합니다.
+     *
+     * @param samples 수집 결과
+     */
+    public synchronized void update(List<MetricFamilySamples> samples) {
+        generation++;
+        int encoded = 0;
+        for (MetricFamilySamples family : samples) {
+            CompactFamily previous = families.get(family.name);
+            if (previous != null && previous.matches(family)) {
+                previous.generation = generation;
+                continue;
+            }
+            families.put(family.name, new CompactFamily(family, generation, offHeap, previous));
+            encoded++;
+        }
+        logger.debug("Snapshot: {} of {} metric families re-encoded", encoded, samples.size());
+        families.values().removeIf(family -> generation - family.generation > STALE_RETENTION);
+
+        recount();
+        if (budgetBytes > 0 && totalBytes > budgetBytes) {
+            evictOverBudget();
+        }
+    }
+
+    /**
+     * 저장된 수집 결과를 MetricFamilySamples 목록으로 복원합니다 (연결 실패 시에만 호출).
+     *
+     * @return 저장된 메트릭 패밀리 목록
+     */
+    public synchronized List<MetricFamilySamples> restore() {
+        List<MetricFamilySamples> result = new ArrayList<>(families.size());
+        for (CompactFamily family : families.values()) {
+            result.add(family.toSamples());
+        }
+        return result;
+    }
+
+    public synchronized boolean isEmpty() {
+        return families.isEmpty();
+    }
+
+    public synchronized int familyCount() {
+        return families.size();
+    }
+
+    public synchronized long getBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getSeries() {
+        return totalSeries;
+    }
+
+    private void recount() {
+        long bytes = 0;
+        int series = 0;
+        for (CompactFamily family : families.values()) {
+            bytes += family.bytes;
+            series += family.size;
+        }
+        totalBytes = bytes;
+        totalSeries = series;
+    }
+
+    /**
+     * 예산 이하가 될 때까지 오래된(갱신 세대가 낮은) 패밀리부터 제거합니다.
+     */
+    private void evictOverBudget() {
+        List<CompactFamily> candidates = new ArrayList<>(families.values());
+        candidates.sort((a, b) -> a.generation != b.generation
+                ? Long.compare(a.generation, b.generation)
+                : Long.compare(b.bytes, a.bytes));
+
+        int evicted = 0;
+        Iterator<CompactFamily> iterator = candidates.iterator();
+        while (totalBytes > budgetBytes && iterator.hasNext()) {
+            CompactFamily family = iterator.next();
+            families.remove(family.name);
+            totalBytes -= family.bytes;
+            totalSeries -= family.size;
+            evicted++;
+        }
+        logger.warn("Snapshot cache over memory budget of {} bytes, evicted {} metric families", budgetBytes, evicted);
+    }
+
+    /**
+     * 열 형태로 인코딩된 메트릭 패밀리 하나
+     */
+    private static class CompactFamily {
+        private static final long OBJECT_OVERHEAD = 16;     // 객체 헤더 추정 크기
+        private static final long REFERENCE_SIZE = 8;       // 참조 추정 크기
+
+        private final String name;
+        private final String unit;
+        private final Collector.Type type;
+        private final String help;
+        private long generation;                            // 마지막으로 갱신된 저장 세대
+        private WeakReference<MetricFamilySamples> source;  // 마지막으로 확인한 패밀리 객체 (인코딩 결과가 붙잡지 않음)
+        private final long hash;                            // 인코딩 당시 내용 해시 (ExpositionCache.hash)
+        private final int size;                             // 샘플 수
+
+        private final String[] sampleNames;                 // 샘플 이름 사전 (예: _bucket, _count, _sum)
+        private final int[] sampleNameCodes;                // 샘플별 샘플 이름 코드
+        private final List<List<String>> labelNameSets;     // 레이블 이름 목록 사전
+        private final int[] labelNameCodes;                 // 샘플별 레이블 이름 목록 코드
+        private final String[] labelValueDictionary;        // 레이블 값 사전
+        private final int[] labelValueCodes;                // 모든 샘플의 레이블 값 코드 (샘플 순서대로 연속 저장)
+        private final double[] values;                      // 샘플 값 (힙 저장 시)
+        private final DoubleBuffer offHeapValues;           // 샘플 값 (힙 외부 저장 시)
+        private final long bytes;                           // 추정 메모리 (바이트)
+
+        /**
+         * @param previous 같은 이름의 이전 인코딩 (힙 외부 값 버퍼 재사용, 없으면 null)
+         */
+        CompactFamily(MetricFamilySamples family, long generation, boolean offHeap, CompactFamily previous) {
+            this.source = new WeakReference<>(family);
+            this.hash = ExpositionCache.hash(family);
+            this.name = family.name;
+            this.unit = family.unit;
+            this.type = family.type;
+            this.help = family.help;
+            this.generation = generation;
+            this.size = family.samples.size();
+
+            Map<String, Integer> sampleNameIndex = new HashMap<>();
+            Map<List<String>, Integer> labelNameIndex = new HashMap<>();
+            Map<String, Integer> labelValueIndex = new HashMap<>();
+            List<String> sampleNameList = new ArrayList<>();
+            List<String> labelValueList = new ArrayList<>();
+            this.labelNameSets = new ArrayList<>();
+            this.sampleNameCodes = new int[size];
+            this.labelNameCodes = new int[size];
+
+            int labelValueCount = 0;
+            for (Sample sample : family.samples) {
+                labelValueCount += sample.labelValues.size();
+            }
+            this.labelValueCodes = new int[labelValueCount];
+
+            double[] sampleValues = new double[size];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                Sample sample = family.samples.get(i);
+                sampleNameCodes[i] = sampleNameIndex.computeIfAbsent(sample.name, key -> {
+                    sampleNameList.add(key);
+                    return sampleNameList.size() - 1;
+                });
+                labelNameCodes[i] = labelNameIndex.computeIfAbsent(sample.labelNames, key -> {
+                    labelNameSets.add(key);
+                    return labelNameSets.size() - 1;
+                });
+                for (String labelValue : sample.labelValues) {
+                    labelValueCodes[position++] = labelValueIndex.computeIfAbsent(labelValue, key -> {
+                        labelValueList.add(key);
+                        return labelValueList.size() - 1;
+                    });
+                }
+                sampleValues[i] = sample.value;
+            }
+
+            this.sampleNames = sampleNameList.toArray(new String[0]);
+            this.labelValueDictionary = labelValueList.toArray(new String[0]);
+
+            if (offHeap) {
+                // 이전 버퍼에 들어가면 재사용 (direct buffer는 GC 시에만 해제되므로 매 수집마다 할당하지 않음)
+                DoubleBuffer buffer = previous != null && previous.offHeapValues != null
+                        && previous.offHeapValues.capacity() >= size
+                        ? previous.offHeapValues : ByteBuffer.allocateDirect(size * Double.BYTES).asDoubleBuffer();
+                buffer.clear();
+                buffer.put(sampleValues);
+                this.offHeapValues = buffer;
+                this.values = null;
+            } else {
+                this.values = sampleValues;
+                this.offHeapValues = null;
+            }
+
+            this.bytes = estimateBytes(offHeap);
+        }
+
+        /**
+         * 패밀리 내용이 인코딩 당시와 같은지 확인합니다 (ExpositionCache와 같은 방식).
+         * 수집기가 변경 없는 패밀리 객체를 재사용하면 해시 계산 없이 바로 일치로 판단합니다.
+         */
+        boolean matches(MetricFamilySamples candidate) {
+            if (candidate == source.get()) {
+                return true;
+            }
+            if (candidate.samples.size() != size || ExpositionCache.hash(candidate) != hash) {
+                return false;
+            }
+            source = new WeakReference<>(candidate);
+            return true;
+        }
+
+        /**
+         * 인코딩된 패밀리의 메모리 사용량을 추정합니다 (힙 외부 값 배열 포함).
+         */
+        private long estimateBytes(boolean offHeap) {
+            long estimate = OBJECT_OVERHEAD * 4;
+            estimate += 4L * sampleNameCodes.length + 4L * labelNameCodes.length + 4L * labelValueCodes.length;
+            // 값 배열 (힙 외부 저장 시에도 재사용 중인 버퍼 용량 전체를 예산에 포함)
+            estimate += 8L * (offHeapValues != null ? offHeapValues.capacity() : size);
+            for (String value : labelValueDictionary) {
+                estimate += REFERENCE_SIZE + stringBytes(value);
+            }
+            for (String sampleName : sampleNames) {
+                estimate += REFERENCE_SIZE + stringBytes(sampleName);
+            }
+            for (List<String> labelNames : labelNameSets) {
+                estimate += OBJECT_OVERHEAD + REFERENCE_SIZE * labelNames.size();
+            }
+            estimate += stringBytes(help);
+            return estimate;
+        }
+
+        private static long stringBytes(String value) {
+            return value == null ? 0 : OBJECT_OVERHEAD * 2 + value.length();
+        }
+
+        /**
+         * MetricFamilySamples 객체로 복원합니다.
+         */
+        MetricFamilySamples toSamples() {
+            List<Sample> samples = new ArrayList<>(size);
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                List<String> labelNames = labelNameSets.get(labelNameCodes[i]);
+                String[] labelValues = new String[labelNames.size()];
+                for (int j = 0; j < labelValues.length; j++) {
+                    labelValues[j] = labelValueDictionary[labelValueCodes[position++]];
+                }
+                double value = values != null ? values[i] : offHeapValues.get(i);
+                samples.add(new Sample(sampleNames[sampleNameCodes[i]], labelNames, Arrays.asList(labelValues), value));
+            }
+            return new MetricFamilySamples(name, unit, type, help, samples);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.tibero.exporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 공유 소스 쿼리 결과에서 파생 메트릭의 결과 행을 만드는 클래스
+ * 소스 쿼리는 스크래핑마다 한 번만 실행되고, 파생 메트릭은 그 결과 행을 메모리에서
+ * filter로 거른 뒤 레이블 조합별로 aggregate(count, sum, min, max)하여 레이블 컬럼과 value 컬럼을 만듭니다.
+ * aggregate가 없으면 필터링한 행을 그대로 사용합니다.
+ */
+public class SourceView {
+    private static final String VALUE_COLUMN = "value";  // 집계 결과 컬럼명 (tibero_<name>_value)
+
+    private SourceView() {
+    }
+
+    /**
+     * 소스 쿼리 결과 행에서 파생 메트릭의 결과 행을 만듭니다.
+     *
+     * @param metricConfig 파생 메트릭 설정
+     * @param rows 소스 쿼리 결과 (컬럼명 소문자, 수정하지 않음)
+     * @return 파생 메트릭의 결과 행
+     */
+    public static List<Map<String, Object>> derive(MetricConfig metricConfig, List<Map<String, Object>> rows) {
+        List<Map<String, Object>> filtered = filter(rows, metricConfig.getFilterValues());
+        String function = metricConfig.getAggregate();
+        if (function.isEmpty()) {
+            return filtered;
+        }
+
+        List<String> labelColumns = new ArrayList<>(metricConfig.getLabels().size());
+        for (String label : metricConfig.getLabels()) {
+            labelColumns.add(label.toLowerCase());
+        }
+
+        // 레이블 조합 -> 집계값 (소스 결과 행 순서 유지)
+        Map<List<Object>, Double> groups = new LinkedHashMap<>();
+        for (Map<String, Object> row : filtered) {
+            List<Object> key = new ArrayList<>(labelColumns.size());
+            for (String column : labelColumns) {
+                key.add(row.get(column));
+            }
+            Double value = "count".equals(function) ? Double.valueOf(1) : toDouble(row.get(metricConfig.getValueColumn()));
+            if (value == null) {
+                continue;
+            }
+            groups.merge(key, value, (previous, current) -> combine(function, previous, current));
+        }
+
+        // 레이블 없는 count는 SQL의 COUNT(*)처럼 일치하는 행이 없어도 0을 반환
+        if (groups.isEmpty() && labelColumns.isEmpty() && "count".equals(function)) {
+            groups.put(Collections.emptyList(), 0.0);
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, Double> group : groups.entrySet()) {
+            Map<String, Object> row = new HashMap<>((labelColumns.size() + 1) * 2);
+            for (int i = 0; i < labelColumns.size(); i++) {
+                row.put(labelColumns.get(i), group.getKey().get(i));
+            }
+            row.put(VALUE_COLUMN, group.getValue());
+            results.add(row);
+        }
+        return results;
+    }
+
+    private static List<Map<String, Object>> filter(List<Map<String, Object>> rows, Map<String, Set<String>> filter) {
+        if (filter.isEmpty()) {
+            return rows;
+        }
+        List<Map<String, Object>> filtered = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            if (matches(row, filter)) {
+                filtered.add(row);
+            }
+        }
+        return filtered;
+    }
+
+    private static boolean matches(Map<String, Object> row, Map<String, Set<String>> filter) {
+        for (Map.Entry<String, Set<String>> condition : filter.entrySet()) {
+            Object value = row.get(condition.getKey());
+            if (value == null || !condition.getValue().contains(value.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double combine(String function, double previous, double current) {
+        switch (function) {
+            case "min":
+                return Math.min(previous, current);
+            case "max":
+                return Math.max(previous, current);
+            default:
+                return previous + current;  // count, sum
+        }
+    }
+
+    private static Double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value != null) {
+            try {
+                return Double.parseDouble(value.toString().trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,128 @@
+package com.tibero.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 메트릭 쿼리를 스크래핑 시점에 한꺼번에 실행하지 않고 수집 주기 전체에 나누어 실행하는 스케줄러
+ * 주기마다 각 메트릭에 예상 실행 비용(밀리초)에 비례하는 시간 구간을 배정하고, 구간 안의 임의 위치에서 실행합니다.
+ * 비용이 큰 쿼리 뒤에는 그만큼 긴 간격이 생기므로 데이터베이스에 동시에 걸리는 모니터링 쿼리는 한 개 이하로 유지됩니다.
+ * 시작 시 주기 내 임의의 위상에서 시작하므로 같은 설정의 Exporter들이 동시에 쿼리하지 않습니다.
+ * 모든 메트릭은 주기마다 한 번씩 실행되며, 이전 주기의 실행이 아직 대기 중인 메트릭은 중복 예약하지 않습니다.
+ */
+public class StaggeredScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(StaggeredScheduler.class);
+    private static final double MIN_WEIGHT_MILLIS = 1.0;   // 실행 이력이 없거나 매우 빠른 메트릭의 최소 가중치
+    private static final double JITTER_FRACTION = 0.5;     // 배정된 구간 중 실행 시각을 흔들 수 있는 비율
+
+    private final long intervalMillis;                         // 수집 주기 (밀리초)
+    private final Supplier<List<MetricConfig>> metrics;        // 이번 주기에 실행할 메트릭 목록
+    private final ToDoubleFunction<String> expectedCostMillis; // 메트릭 이름 -> 예상 실행 비용 (밀리초)
+    private final Runnable cycleStart;                         // 주기 시작 시 호출 (공유 소스 결과 초기화 등)
+    private final Consumer<MetricConfig> runner;               // 메트릭 하나를 실행하고 결과를 보관
+    private final ScheduledExecutorService executor;           // 실행 스레드 (한 번에 한 쿼리)
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();  // 예약되었지만 아직 실행되지 않은 메트릭
+
+    /**
+     * StaggeredScheduler 생성자
+     *
+     * @param intervalMillis 수집 주기 (밀리초, 메트릭별 최신성 목표)
+     * @param metrics 주기마다 실행할 메트릭 목록 공급자
+     * @param expectedCostMillis 메트릭 이름별 예상 실행 비용
+     * @param cycleStart 주기 시작 시 호출할 작업
+     * @param runner 메트릭 실행 작업
+     * @param threadName 실행 스레드 이름
+     */
+    public StaggeredScheduler(long intervalMillis, Supplier<List<MetricConfig>> metrics,
+                              ToDoubleFunction<String> expectedCostMillis, Runnable cycleStart,
+                              Consumer<MetricConfig> runner, String threadName) {
+        this.intervalMillis = intervalMillis;
+        this.metrics = metrics;
+        this.expectedCostMillis = expectedCostMillis;
+        this.cycleStart = cycleStart;
+        this.runner = runner;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 주기 내 임의의 위상에서 스케줄링을 시작합니다.
+     */
+    public void start() {
+        long phase = ThreadLocalRandom.current().nextLong(intervalMillis);
+        logger.info("Staggering metric queries across a {}ms interval (first cycle in {}ms)", intervalMillis, phase);
+        executor.scheduleAtFixedRate(this::planCycle, phase, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 이번 주기의 메트릭 실행 시각을 배정합니다.
+     * 메트릭마다 예상 비용에 비례하는 구간을 차례로 배정하고, 구간 앞부분의 임의 위치에 실행을 예약합니다.
+     */
+    private void planCycle() {
+        try {
+            cycleStart.run();
+            List<MetricConfig> planned = new ArrayList<>();
+            for (MetricConfig metricConfig : metrics.get()) {
+                if (pending.add(metricConfig.getName())) {
+                    planned.add(metricConfig);
+                } else {
+                    logger.warn("Metric {} is still waiting from the previous cycle; interval {}ms is too short",
+                            metricConfig.getName(), intervalMillis);
+                }
+            }
+
+            double[] weights = new double[planned.size()];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = Math.max(MIN_WEIGHT_MILLIS, expectedCostMillis.applyAsDouble(planned.get(i).getName()));
+                total += weights[i];
+            }
+
+            double offset = 0;
+            for (int i = 0; i < weights.length; i++) {
+                double slot = intervalMillis * weights[i] / total;
+                long delay = (long) (offset + ThreadLocalRandom.current().nextDouble() * slot * JITTER_FRACTION);
+                MetricConfig metricConfig = planned.get(i);
+                executor.schedule(() -> run(metricConfig), delay, TimeUnit.MILLISECONDS);
+                offset += slot;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to plan metric collection cycle: {}", e.getMessage());
+        }
+    }
+
+    private void run(MetricConfig metricConfig) {
+        pending.remove(metricConfig.getName());
+        try {
+            runner.accept(metricConfig);
+        } catch (RuntimeException e) {
+            logger.error("Scheduled collection of {} failed: {}", metricConfig.getName(), e.getMessage());
+        }
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * 스케줄링을 중단합니다.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+}
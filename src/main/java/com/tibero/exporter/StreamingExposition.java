@@ -0,0 +1,129 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * streaming 메트릭의 샘플을 수집 결과 객체 없이 응답 스트림에 바로 쓰는 클래스
+ * 열린 ResultSet에서 읽은 행을 한 줄씩 텍스트(0.0.4) 또는 OpenMetrics 형식으로 기록하므로
+ * 결과 행 수와 관계없이 메모리 사용량이 fetch size 수준으로 유지됩니다.
+ * 패밀리의 HELP/TYPE 줄은 첫 샘플을 쓸 때 한 번만 기록하므로, 클러스터 노드들의 같은 패밀리도 한 블록으로 이어집니다.
+ * 출력 형식은 Prometheus 클라이언트의 TextFormat과 같습니다.
+ */
+public class StreamingExposition {
+    private final Writer writer;                                // 응답 스트림
+    private final boolean openMetrics;                          // OpenMetrics 형식 여부
+    private final Set<String> names;                            // name[] 요청 이름 (비어 있으면 전체)
+    private final Set<String> writtenFamilies = new HashSet<>(); // HELP/TYPE 줄을 기록한 패밀리
+    private long sampleCount = 0;                               // 기록한 샘플 수
+
+    /**
+     * StreamingExposition 생성자
+     *
+     * @param writer 응답 스트림
+     * @param openMetrics OpenMetrics 형식이면 true, 텍스트 0.0.4 형식이면 false
+     * @param names name[] 쿼리 파라미터로 요청된 이름 (비어 있으면 전체)
+     */
+    public StreamingExposition(Writer writer, boolean openMetrics, Set<String> names) {
+        this.writer = writer;
+        this.openMetrics = openMetrics;
+        this.names = names;
+    }
+
+    /**
+     * 패밀리가 name[] 필터에 포함되는지 확인합니다.
+     *
+     * @param family 메트릭 패밀리 이름
+     * @param counter counter 타입 여부 (샘플 이름 _total도 허용)
+     * @return 응답에 포함해야 하면 true
+     */
+    public boolean accepts(String family, boolean counter) {
+        return names.isEmpty() || names.contains(family) || (counter && names.contains(family + "_total"));
+    }
+
+    /**
+     * 샘플 한 줄을 기록합니다. 패밀리의 첫 샘플이면 HELP/TYPE 줄을 먼저 기록합니다.
+     *
+     * @param family 메트릭 패밀리 이름 (counter는 _total 제외)
+     * @param help 메트릭 설명
+     * @param counter counter 타입 여부 (아니면 gauge)
+     * @param labelNames 레이블 이름 목록
+     * @param labelValues 레이블 값 (labelNames와 같은 순서)
+     * @param value 값
+     * @throws IOException 응답 스트림 쓰기 실패 시 (클라이언트 연결 종료 등)
+     */
+    public void sample(String family, String help, boolean counter, List<String> labelNames,
+                       String[] labelValues, double value) throws IOException {
+        if (writtenFamilies.add(family)) {
+            writeHeader(family, help, counter);
+        }
+
+        writer.write(counter ? family + "_total" : family);
+        if (!labelNames.isEmpty()) {
+            writer.write('{');
+            for (int i = 0; i < labelNames.size(); i++) {
+                if (i > 0 && openMetrics) {
+                    writer.write(',');
+                }
+                writer.write(labelNames.get(i));
+                writer.write("=\"");
+                writeEscaped(labelValues[i], true);
+                writer.write('"');
+                if (!openMetrics) {
+                    writer.write(',');
+                }
+            }
+            writer.write('}');
+        }
+        writer.write(' ');
+        writer.write(Collector.doubleToGoString(value));
+        writer.write('\n');
+        sampleCount++;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    private void writeHeader(String family, String help, boolean counter) throws IOException {
+        String type = counter ? "counter" : "gauge";
+        if (openMetrics) {
+            writer.write("# TYPE " + family + " " + type + "\n");
+            writer.write("# HELP " + family + " ");
+            writeEscaped(help, true);
+        } else {
+            String name = counter ? family + "_total" : family;
+            writer.write("# HELP " + name + " ");
+            writeEscaped(help, false);
+            writer.write("\n# TYPE " + name + " " + type);
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * 역슬래시와 줄바꿈(레이블 값과 OpenMetrics HELP는 큰따옴표 포함)을 이스케이프하여 기록합니다.
+     */
+    private void writeEscaped(String text, boolean quotes) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '"':
+                    writer.write(quotes ? "\\\"" : "\"");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+}
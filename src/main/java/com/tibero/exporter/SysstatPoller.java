@@ -0,0 +1,280 @@
+package com.tibero.exporter;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import io.prometheus.client.GaugeMetricFamily;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스크래핑 간격보다 짧은 주기로 V$SYSSTAT 카운터를 읽어 순간적인 급증(spike)을 포착하는 폴러
+ * 풀에서 고정(pin)한 연결 하나로 미리 준비한 PreparedStatement를 주기마다 실행하고,
+ * 통계별 초당 증가율을 링 버퍼에 보관합니다.
+ * 스크래핑 시에는 지난 스크래핑 이후의 초당 증가율 최댓값, 최솟값, p99를 노출하므로
+ * Prometheus의 rate()로는 평균화되어 사라지는 수 초 단위 급증을 확인할 수 있습니다.
+ * 고정한 연결은 풀의 최대 수명 정책이 적용되도록 PIN_REFRESH_MILLIS마다 반납하고 다시 빌립니다.
+ */
+public class SysstatPoller {
+    private static final Logger logger = LoggerFactory.getLogger(SysstatPoller.class);
+    private static final int CAPACITY = 600;                // 통계별 링 버퍼 크기 (1초 주기 기준 10분)
+    private static final long PIN_REFRESH_MILLIS = 300_000; // 고정 연결을 다시 빌리는 주기 (5분)
+
+    private final ConnectionManager connectionManager;      // 연결 풀
+    private final List<String> statNames;                   // 폴링할 V$SYSSTAT 통계 이름
+    private final long intervalMillis;                      // 폴링 주기 (밀리초)
+    private final String query;                             // 폴링 쿼리
+    private final ScheduledExecutorService executor;        // 폴링 스레드
+
+    private final Map<String, Ring> rings = new HashMap<>();          // 통계 이름 -> 초당 증가율 링 버퍼
+    private final Map<String, Double> lastValues = new HashMap<>();   // 통계 이름 -> 직전 누적값
+    private long lastPollNanos = 0;                                   // 직전 폴링 시각
+    private boolean failureLogged = false;                            // 연속 실패 중 경고를 이미 남겼는지 여부
+
+    // 폴링 스레드만 사용하는 고정 연결과 준비된 문장
+    private Connection pinned;
+    private PreparedStatement statement;
+    private long pinnedAtMillis;
+
+    /**
+     * SysstatPoller 생성자
+     *
+     * @param connectionManager 연결 풀
+     * @param statNames 폴링할 V$SYSSTAT 통계 이름
+     * @param intervalMillis 폴링 주기 (밀리초)
+     * @param threadName 폴링 스레드 이름
+     */
+    public SysstatPoller(ConnectionManager connectionManager, List<String> statNames, long intervalMillis,
+                         String threadName) {
+        this.connectionManager = connectionManager;
+        this.statNames = statNames;
+        this.intervalMillis = intervalMillis;
+        StringBuilder placeholders = new StringBuilder();
+        for (String statName : statNames) {
+            placeholders.append(placeholders.length() == 0 ? "?" : ", ?");
+            rings.put(statName, new Ring());
+        }
+        this.query = "SELECT NAME, VALUE FROM V$SYSSTAT WHERE NAME IN (" + placeholders + ")";
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 설정된 통계 이름 목록을 파싱합니다 (쉼표 구분, 빈 항목 무시).
+     *
+     * @param spec 통계 이름 목록 문자열
+     * @return 통계 이름 목록 (비어 있으면 폴링 비활성화)
+     */
+    public static List<String> parseStatNames(String spec) {
+        List<String> names = new ArrayList<>();
+        if (spec == null) {
+            return names;
+        }
+        for (String name : spec.split(",")) {
+            if (!name.trim().isEmpty() && !names.contains(name.trim())) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 폴링을 시작합니다.
+     */
+    public void start() {
+        logger.info("Polling V$SYSSTAT every {}ms for {}", intervalMillis, statNames);
+        executor.scheduleAtFixedRate(this::poll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 통계를 한 번 읽어 직전 값과의 차이를 초당 증가율로 기록합니다.
+     * 연결이 없거나 실패하면 기준값을 버리고 다음 주기에 다시 시작합니다.
+     */
+    private void poll() {
+        try {
+            PreparedStatement stmt = pinnedStatement();
+            if (stmt == null) {
+                return;
+            }
+            Map<String, Double> values = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    values.merge(rs.getString(1), rs.getDouble(2), Double::sum);
+                }
+            }
+            record(values, System.nanoTime());
+            failureLogged = false;
+        } catch (SQLException e) {
+            if (!failureLogged) {
+                logger.warn("V$SYSSTAT poll failed, retrying every {}ms: {}", intervalMillis, e.getMessage());
+                failureLogged = true;
+            }
+            if (connectionManager.handleFailure(pinned, e) == ConnectionManager.FailureKind.CONNECTION) {
+                unpin();
+            }
+            resetBaseline();
+        } catch (RuntimeException e) {
+            logger.warn("V$SYSSTAT poll failed: {}", e.getMessage());
+            resetBaseline();
+        }
+    }
+
+    /**
+     * 고정 연결의 준비된 문장을 반환합니다. 연결이 없거나 오래되었으면 다시 빌립니다.
+     *
+     * @return 준비된 문장 (연결 풀을 사용할 수 없으면 null)
+     */
+    private PreparedStatement pinnedStatement() throws SQLException {
+        if (pinned != null && System.currentTimeMillis() - pinnedAtMillis > PIN_REFRESH_MILLIS) {
+            unpin();
+        }
+        if (pinned == null) {
+            if (!connectionManager.isAvailable()) {
+                resetBaseline();
+                return null;
+            }
+            Connection conn = connectionManager.getConnection();
+            try {
+                PreparedStatement prepared = conn.prepareStatement(query);
+                prepared.setQueryTimeout((int) Math.max(1, intervalMillis / 1000));
+                for (int i = 0; i < statNames.size(); i++) {
+                    prepared.setString(i + 1, statNames.get(i));
+                }
+                statement = prepared;
+            } catch (SQLException e) {
+                // 준비에 실패한 연결은 고정하지 않고 반납 (연결 오류면 풀에서 제거, 문장은 연결과 함께 닫힘)
+                connectionManager.handleFailure(conn, e);
+                try {
+                    conn.close();
+                } catch (SQLException closeError) {
+                    // 무시
+                }
+                throw e;
+            }
+            pinned = conn;
+            pinnedAtMillis = System.currentTimeMillis();
+        }
+        return statement;
+    }
+
+    private synchronized void record(Map<String, Double> values, long nowNanos) {
+        double elapsedSeconds = (nowNanos - lastPollNanos) / 1e9;
+        boolean hasBaseline = lastPollNanos != 0 && elapsedSeconds > 0;
+        for (Map.Entry<String, Double> entry : values.entrySet()) {
+            Double previous = lastValues.put(entry.getKey(), entry.getValue());
+            Ring ring = rings.get(entry.getKey());
+            if (ring == null || previous == null || !hasBaseline || entry.getValue() < previous) {
+                continue;  // 기준값이 없거나 카운터가 초기화된 경우
+            }
+            ring.add((entry.getValue() - previous) / elapsedSeconds);
+        }
+        lastPollNanos = nowNanos;
+    }
+
+    private synchronized void resetBaseline() {
+        lastValues.clear();
+        lastPollNanos = 0;
+    }
+
+    private void unpin() {
+        Connection conn = pinned;
+        pinned = null;
+        statement = null;
+        if (conn != null) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                // 무시
+            }
+        }
+    }
+
+    /**
+     * 지난 스크래핑 이후의 초당 증가율 통계를 메트릭으로 변환하고 구간을 새로 시작합니다.
+     * 구간에 샘플이 없는 통계는 노출하지 않습니다.
+     *
+     * @param labelNames 레이블 이름 (첫 번째는 통계 이름 레이블)
+     * @param extraLabelValues 통계 이름 뒤에 붙일 레이블 값 (클러스터 노드의 instance_name)
+     * @return tibero_sysstat_rate_max/min/p99, tibero_sysstat_rate_samples 메트릭 패밀리
+     */
+    public synchronized List<MetricFamilySamples> drain(List<String> labelNames, List<String> extraLabelValues) {
+        GaugeMetricFamily maxMetric = new GaugeMetricFamily(TiberoCollector.NAMESPACE + "_sysstat_rate_max",
+                "Highest per-second rate of the V$SYSSTAT statistic since the last scrape", labelNames);
+        GaugeMetricFamily minMetric = new GaugeMetricFamily(TiberoCollector.NAMESPACE + "_sysstat_rate_min",
+                "Lowest per-second rate of the V$SYSSTAT statistic since the last scrape", labelNames);
+        GaugeMetricFamily p99Metric = new GaugeMetricFamily(TiberoCollector.NAMESPACE + "_sysstat_rate_p99",
+                "99th percentile per-second rate of the V$SYSSTAT statistic since the last scrape", labelNames);
+        GaugeMetricFamily samplesMetric = new GaugeMetricFamily(TiberoCollector.NAMESPACE + "_sysstat_rate_samples",
+                "Per-second rate samples of the V$SYSSTAT statistic since the last scrape", labelNames);
+
+        for (String statName : statNames) {
+            double[] window = rings.get(statName).drain();
+            if (window.length == 0) {
+                continue;
+            }
+            Arrays.sort(window);
+            List<String> labelValues = new ArrayList<>(extraLabelValues.size() + 1);
+            labelValues.add(statName);
+            labelValues.addAll(extraLabelValues);
+            maxMetric.addMetric(labelValues, window[window.length - 1]);
+            minMetric.addMetric(labelValues, window[0]);
+            p99Metric.addMetric(labelValues, window[(int) Math.ceil(0.99 * window.length) - 1]);
+            samplesMetric.addMetric(labelValues, window.length);
+        }
+        return Arrays.asList(maxMetric, minMetric, p99Metric, samplesMetric);
+    }
+
+    /**
+     * 폴링을 중단하고 고정 연결을 반납합니다.
+     */
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unpin();
+    }
+
+    /**
+     * 초당 증가율 링 버퍼 (가득 차면 가장 오래된 값을 덮어씀)
+     */
+    private static class Ring {
+        private final double[] values = new double[CAPACITY];
+        private int next = 0;       // 다음에 기록할 위치
+        private int size = 0;       // 지난 drain() 이후 기록된 값 수 (최대 CAPACITY)
+
+        void add(double value) {
+            values[next] = value;
+            next = (next + 1) % CAPACITY;
+            size = Math.min(size + 1, CAPACITY);
+        }
+
+        /**
+         * 지난 drain() 이후 기록된 값을 반환하고 구간을 비웁니다.
+         */
+        double[] drain() {
+            double[] window = new double[size];
+            for (int i = 0; i < size; i++) {
+                window[i] = values[(next - size + i + CAPACITY) % CAPACITY];
+            }
+            size = 0;
+            return window;
+        }
+    }
+}
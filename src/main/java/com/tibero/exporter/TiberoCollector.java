@@ -1,362 +1,1521 @@
 package com.tibero.exporter;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
-import io.prometheus.client.Collector;
-import io.prometheus.client.GaugeMetricFamily;
 import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+import io.prometheus.client.Predicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Tibero 데이터베이스 메트릭을 수집하는 Prometheus Collector 클래스
  * HikariCP 연결 풀을 사용하여 데이터베이스에 연결하고,
  * YAML에 정의된 쿼리를 실행하여 메트릭을 수집합니다.
  */
-public class TiberoCollector extends Collector {
+public class TiberoCollector extends ManagedCollector {
     private static final Logger logger = LoggerFactory.getLogger(TiberoCollector.class);
-    private static final String NAMESPACE = "tibero";  // Prometheus 메트릭 네임스페이스
+    static final String NAMESPACE = "tibero";  // Prometheus 메트릭 네임스페이스
+    static final String UP_HELP = "Whether the last Tibero scrape succeeded";  // tibero_up 설명 (클러스터 병합 시 공유)
+    private static final Pattern NUMERIC_PATTERN = Pattern.compile("-?\\d+(\\.\\d+)?");  // 숫자 문자열 패턴
 
     private final Config config;                        // 설정 정보
     private final List<MetricConfig> metricsConfig;     // 메트릭 설정 목록
-    private HikariDataSource dataSource;                // HikariCP 데이터소스 (연결 풀)
-    private boolean connectionValid = false;            // 연결 상태
-    private long lastConnectionAttempt = 0;             // 마지막 연결 시도 시간
-    private static final long CONNECTION_RETRY_DELAY = 5000; // 재연결 시도 간격 (5초)
+    private final ConnectionManager connectionManager;  // 연결 풀 관리 및 장애 복구
+    private final String instanceName;                  // TAC 인스턴스 레이블 값 (단일 노드 모드는 null)
+    private final ShardSelector shardSelector;          // 복제본 간 샤딩 선택기 (샤딩 미사용 시 null)
+
+    // 마지막 성공한 메트릭 수집 결과 캐싱 (Oracle Exporter 패턴, 열 형태로 압축 저장, 스크래핑 범위별, 클러스터 노드는 null)
+    // 사용 순서로 정렬되며 collectNow()의 락 안에서만 접근
+    private final Map<String, SnapshotStore> snapshotStores;
+
+    // 메트릭 설정에 있는 context, group 이름 (범위별 캐시 키 제한용)
+    private final Set<String> knownContexts = new HashSet<>();
+    private final Set<String> knownGroups = new HashSet<>();
+
+    // 첫 번째 성공한 스크래핑 여부 (시작 후 첫 성공 시점 기록용)
+    private boolean firstScrapeLogged = false;
+
+    // 메트릭별 예상 실행 비용 (밀리초, 지수 이동 평균) - 저비용 쿼리부터 실행하기 위해 사용
+    private final Map<String, Double> expectedCostMillis = new ConcurrentHashMap<>();
+    private static final double COST_SMOOTHING = 0.3;   // 지수 이동 평균 가중치
+
+    // 메트릭 정의별 마지막 실행에서 만든 샘플 이름 (name[] 요청 시 실행 여부 판단)
+    private final Map<String, List<String>> producedSampleNames = new ConcurrentHashMap<>();
+
+    // 메트릭별 시계열 캐시 (레이블 조합 사전 및 변경 없는 메트릭 패밀리 재사용)
+    private final Map<MetricConfig, MetricSeriesCache> seriesCaches = new ConcurrentHashMap<>();
+
+    // 샤딩 시 이번 스크래핑에서 이 복제본이 수집한 메트릭 정의 수
+    private int ownedMetricCount = 0;
+
+    // 메트릭별 마지막 쿼리 실행 통계 (fetch size, 행 수, 데이터베이스 비용 누적값)
+    private final Map<String, QueryStats> queryStats = new ConcurrentHashMap<>();
+
+    // 이번 스크래핑의 공유 소스 쿼리 결과 (소스 설정 -> 결과, 스크래핑마다 초기화)
+    private final Map<MetricConfig, SourceResult> sourceResults = new HashMap<>();
+
+    // 차원 쿼리별 조인 인덱스와 다음 갱신 시각 (epoch 밀리초)
+    private final Map<DimensionConfig, DimensionIndex> dimensionIndexes = new ConcurrentHashMap<>();
+    private final Map<DimensionConfig, Long> dimensionRefreshDue = new ConcurrentHashMap<>();
+    private static final long DIMENSION_RETRY_MILLIS = 60_000;  // 차원 쿼리 실패 후 재시도 간격 (갱신 주기보다 짧을 때)
+
+    // 메트릭 쿼리 전후 세션 통계 샘플러 (비용 측정 미사용 시 null)
+    private final SessionCostSampler costSampler;
+
+    // 메트릭 쿼리의 실행 계획 비용 검사기 (미사용 시 null)
+    private final QueryCostGate costGate;
+
+    // 실행 간격을 늘린 메트릭의 마지막 결과 (메트릭 이름 -> 결과, 실행하지 않는 스크래핑에서 그대로 반환)
+    private final Map<String, List<MetricFamilySamples>> throttledResults = new ConcurrentHashMap<>();
+
+    // 스크래핑 사이의 V$SYSSTAT 초당 증가율 폴러 (미사용 시 null)
+    private final SysstatPoller sysstatPoller;
+
+    // 메트릭 쿼리를 수집 주기 전체에 나누어 실행하는 스케줄러 (미사용 시 null, 스크래핑 시점에 실행)
+    private final StaggeredScheduler scheduler;
+
+    // 쿼리 결과 기록기와 재생기 (미사용 시 null, 재생 중에는 데이터베이스에 연결하지 않음)
+    private final QueryRecorder queryRecorder;
+    private final QueryReplay queryReplay;
+
+    // 스케줄러가 실행한 메트릭별 마지막 결과 (메트릭 이름 -> 결과, 스크래핑 시 그대로 반환)
+    private final Map<String, ScheduledResult> scheduledResults = new ConcurrentHashMap<>();
+
+    // 마감 시각 도달 시 실행 중인 쿼리를 취소하는 감시 스케줄러
+    private final ScheduledExecutorService deadlineWatchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tibero-deadline-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * TiberoCollector 생성자
+     * 설정 정보와 메트릭 설정을 받아 초기화합니다.
+     * 데이터베이스 연결은 start() 호출 시 백그라운드에서 시작됩니다.
+     *
+     * @param config 설정 정보
+     * @param metricsConfig 메트릭 설정 목록
+     */
+    public TiberoCollector(Config config, List<MetricConfig> metricsConfig) {
+        this(config, metricsConfig, new ConnectionManager(config), null, ShardSelector.fromConfig(config));
+    }
+
+    /**
+     * TiberoCollector 생성자 (TAC 클러스터 노드용)
+     * 모든 메트릭에 instance_name 레이블을 추가하며, 연결 실패 시 캐시된 메트릭 대신
+     * tibero_up 0만 반환하여 중단된 노드가 결과에서 빠지도록 합니다.
+     *
+     * @param config 설정 정보
+     * @param metricsConfig 메트릭 설정 목록
+     * @param connectionManager 노드 전용 연결 풀
+     * @param instanceName 인스턴스 레이블 값 (단일 노드 모드는 null)
+     * @param shardSelector 복제본 간 샤딩 선택기 (샤딩 미사용 시 null)
+     */
+    public TiberoCollector(Config config, List<MetricConfig> metricsConfig,
+                           ConnectionManager connectionManager, String instanceName,
+                           ShardSelector shardSelector) {
+        this.config = config;
+        this.metricsConfig = metricsConfig;
+        this.connectionManager = connectionManager;
+        this.instanceName = instanceName;
+        this.shardSelector = shardSelector;
+        this.costSampler = config.isQueryCostSampling() ? new SessionCostSampler() : null;
+        this.costGate = QueryCostGate.fromConfig(config);
+        this.snapshotStores = instanceName == null ? new LinkedHashMap<>(16, 0.75f, true) : null;
+        for (MetricConfig metricConfig : metricsConfig) {
+            knownContexts.add(metricConfig.getContext());
+            knownGroups.add(metricConfig.getGroup());
+        }
+        List<String> pollStats = SysstatPoller.parseStatNames(config.getSysstatPollStats());
+        this.sysstatPoller = pollStats.isEmpty() ? null : new SysstatPoller(connectionManager, pollStats,
+                config.getSysstatPollInterval(),
+                instanceName == null ? "tibero-sysstat-poller" : "tibero-sysstat-poller-" + instanceName);
+        this.scheduler = !config.isScrapeStagger() ? null : new StaggeredScheduler(
+                config.getScrapeInterval() * 1000L, this::scheduledMetrics,
+                name -> expectedCostMillis.getOrDefault(name, 0.0), this::beginScheduledCycle, this::runScheduled,
+                instanceName == null ? "tibero-metric-scheduler" : "tibero-metric-scheduler-" + instanceName);
+        this.queryRecorder = openRecorder(config, instanceName);
+        this.queryReplay = openReplay(config, instanceName);
+    }
+
+    /**
+     * 설정된 경우 쿼리 결과 기록기를 생성합니다. 파일을 만들 수 없으면 기록 없이 수집합니다.
+     */
+    private static QueryRecorder openRecorder(Config config, String instanceName) {
+        if (config.getRecordFile().isEmpty()) {
+            return null;
+        }
+        String file = QueryRecorder.path(config.getRecordFile(), instanceName);
+        try {
+            return new QueryRecorder(file);
+        } catch (IOException e) {
+            logger.error("Cannot record query results to {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 설정된 경우 기록 파일을 읽어 재생기를 생성합니다.
+     *
+     * @throws UncheckedIOException 기록 파일을 읽을 수 없는 경우
+     */
+    private static QueryReplay openReplay(Config config, String instanceName) {
+        if (config.getReplayFile().isEmpty()) {
+            return null;
+        }
+        try {
+            return new QueryReplay(QueryRecorder.path(config.getReplayFile(), instanceName), config.getReplaySpeed());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 연결 풀 초기화를 백그라운드에서 시작합니다.
+     * HTTP 서버가 먼저 바인딩될 수 있도록 연결 완료를 기다리지 않고 반환합니다.
+     */
+    @Override
+    public void start() {
+        if (queryReplay != null) {
+            logger.info("Replaying recorded query results; not connecting to the database");
+            if (scheduler != null) {
+                scheduler.start();
+            }
+            return;
+        }
+        connectionManager.start();
+        if (sysstatPoller != null) {
+            sysstatPoller.start();
+        }
+        if (scheduler != null) {
+            scheduler.start();
+        }
+    }
+
+    /**
+     * 쿼리를 실행하고 결과를 반환합니다 (기본 타임아웃 사용).
+     * 지정된 타임아웃이 있는 오버로드 메소드를 호출합니다.
+     *
+     * @param query 실행할 SQL 쿼리
+     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
+     * @throws SQLException 쿼리 실행 실패 시
+     */
+    private List<Map<String, Object>> executeQuery(String query) throws SQLException {
+        return executeQuery(query, config.getQueryTimeout(), ScrapeDeadline.unbounded(), null);
+    }
+
+    /**
+     * 지정된 타임아웃과 스크래핑 마감 시각 내에서 쿼리를 실행하고 결과를 반환합니다.
+     * 대여한 연결이 끊어져 실패한 경우에만 풀의 다른 연결로 한 번 재시도합니다.
+     * 쿼리 자체의 오류(SQL 문법, 권한 등)와 마감 시각 초과는 재시도하지 않으며,
+     * 재시도까지 연결 오류로 실패하면 연결 풀을 사용 불가 상태로 표시하고 백그라운드 재연결에 맡깁니다.
+     *
+     * @param query 실행할 SQL 쿼리
+     * @param timeout 쿼리 타임아웃 (초)
+     * @param deadline 스크래핑 마감 시각
+     * @param metricConfig 메트릭 설정 (fetch size 및 컬럼 타입 힌트, 내부 쿼리는 null)
+     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
+     * @throws SQLException 쿼리 실행 실패 시
+     */
+    private List<Map<String, Object>> executeQuery(String query, int timeout, ScrapeDeadline deadline,
+                                                   MetricConfig metricConfig) throws SQLException {
+        try {
+            return executeWithDeadline(query, timeout, deadline, metricConfig);
+        } catch (SQLRecoverableException e) {
+            logger.warn("Connection failed during query, retrying on another pooled connection: {}", e.getMessage());
+
+            // 마감 시각이 지났으면 재시도하지 않음
+            if (deadline.isExpired()) {
+                throw e;
+            }
+
+            try {
+                // 추가 재시도 없이 한 번만 재시도
+                return executeQueryNoRetry(query, timeout, deadline, metricConfig);
+            } catch (SQLRecoverableException retryError) {
+                logger.error("Retry failed on another connection: {}", retryError.getMessage());
+                if (queryReplay == null) {
+                    connectionManager.markUnavailable();
+                }
+                throw retryError;
+            }
+        } catch (SQLException e) {
+            logger.error("Query execution failed: {}", e.getMessage());
+            logger.debug("Query: {}", query);
+            throw e;
+        }
+    }
+
+    /**
+     * 마감 시각 감시 하에 쿼리를 한 번 실행합니다.
+     * 마감 시각에 도달하면 연결 대기 중인 스레드를 인터럽트하거나 실행 중인 Statement를 취소하고,
+     * 사용하던 연결은 풀에서 제거(evict)하여 다른 스크래핑에 재사용되지 않도록 합니다.
+     * 대여한 연결이 끊어져 실패한 경우 해당 연결만 제거하고 SQLRecoverableException으로 알립니다.
+     *
+     * @param query 실행할 SQL 쿼리
+     * @param timeout 쿼리 타임아웃 (초)
+     * @param deadline 스크래핑 마감 시각
+     * @param metricConfig 메트릭 설정 (fetch size 및 컬럼 타입 힌트, 내부 쿼리는 null)
+     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
+     * @throws SQLException 쿼리 실행 실패 또는 마감 시각 초과 시
+     */
+    private List<Map<String, Object>> executeWithDeadline(String query, int timeout, ScrapeDeadline deadline,
+                                                          MetricConfig metricConfig) throws SQLException {
+        if (queryReplay != null) {
+            return queryReplay.next(traceName(metricConfig), deadline);
+        }
+        if (queryRecorder == null) {
+            return executeWithDeadline(query, timeout, deadline, metricConfig,
+                    (stmt, watch) -> readResults(stmt, query, metricConfig));
+        }
+        long startedAt = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try {
+            return executeWithDeadline(query, timeout, deadline, metricConfig,
+                    (stmt, watch) -> readResults(stmt, query, metricConfig));
+        } catch (SQLException e) {
+            queryRecorder.recordFailure(traceName(metricConfig), startedAt, System.nanoTime() - startNanos, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 마감 시각 감시 하에 Statement 작업을 한 번 실행합니다 (결과 읽기 방식 지정).
+     *
+     * @param query 실행할 SQL 쿼리 (기록용)
+     * @param timeout 쿼리 타임아웃 (초)
+     * @param deadline 스크래핑 마감 시각
+     * @param metricConfig 메트릭 설정 (내부 쿼리는 null)
+     * @param action 대여한 연결의 Statement로 쿼리를 실행하고 결과를 읽는 작업 (추가로 만든 Statement는 감시에 등록)
+     * @return 작업 결과
+     * @throws SQLException 쿼리 실행 실패 또는 마감 시각 초과 시
+     */
+    private <T> T executeWithDeadline(String query, int timeout, ScrapeDeadline deadline,
+                                      MetricConfig metricConfig, StatementAction<T> action) throws SQLException {
+        if (deadline.isExpired()) {
+            throw new SQLTimeoutException("Scrape deadline exceeded before query start");
+        }
+
+        DeadlineWatch watch = new DeadlineWatch(Thread.currentThread());
+        ScheduledFuture<?> watchTask = null;
+        if (!deadline.isUnbounded()) {
+            watchTask = deadlineWatchdog.schedule(watch::fire, deadline.remainingMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        Connection conn = null;
+        try {
+            ScrapeTrace.Span checkout = ScrapeTrace.begin(ScrapeTrace.Phase.CHECKOUT,
+                    traceName(metricConfig), traceHash(metricConfig, query));
+            try {
+                conn = connectionManager.getConnection();
+            } finally {
+                checkout.end(0);
+            }
+            // 비용 측정 시 같은 연결에서 쿼리 직전 세션 통계를 읽음 (샘플링 쿼리도 마감 시각에 취소)
+            double[] costBefore = costSampler != null && metricConfig != null
+                    ? costSampler.sample(conn, deadline.capTimeoutSeconds(timeout), watch::attach) : null;
+
+            T results;
+            try (Statement stmt = conn.createStatement()) {
+                stmt.setQueryTimeout(deadline.capTimeoutSeconds(timeout));
+                watch.attach(stmt);
+                results = action.run(stmt, watch::attach);
+            }
+
+            if (costBefore != null) {
+                double[] costAfter = costSampler.sample(conn, deadline.capTimeoutSeconds(timeout), watch::attach);
+                if (costAfter != null) {
+                    queryStats.computeIfAbsent(metricConfig.getName(), k -> new QueryStats())
+                            .recordCost(costSampler.delta(costBefore, costAfter));
+                }
+            }
+            return results;
+        } catch (SQLException e) {
+            if (watch.isFired()) {
+                throw new SQLTimeoutException("Scrape deadline exceeded: " + e.getMessage(), e);
+            }
+            if (conn == null) {
+                // 연결 획득 실패는 재시도하지 않음. 실제 연결 불가일 때만 풀을 사용 불가로 표시하고 백그라운드 재연결에 맡기며,
+                // 모든 연결이 사용 중이라 대기 시간이 지난 풀 경합은 이 쿼리만 실패로 처리
+                if (connectionManager.classifyCheckout(e) == ConnectionManager.FailureKind.CONNECTION) {
+                    connectionManager.markUnavailable();
+                } else {
+                    logger.warn("Connection pool busy, query not run: {}", e.getMessage());
+                }
+                throw e;
+            }
+            if (connectionManager.handleFailure(conn, e) == ConnectionManager.FailureKind.CONNECTION) {
+                throw new SQLRecoverableException(e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+            }
+            throw e;
+        } finally {
+            if (watchTask != null) {
+                watchTask.cancel(false);
+            }
+            if (watch.finish()) {
+                // 감시 스케줄러가 보낸 인터럽트 상태를 정리하고 연결을 풀에서 제거
+                Thread.interrupted();
+                if (conn != null) {
+                    connectionManager.evict(conn);
+                }
+            }
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    // 무시
+                }
+            }
+        }
+    }
+
+    /**
+     * Statement로 쿼리를 실행하고 모든 결과 행을 읽어옵니다.
+     * 메트릭별 fetch size(없으면 전역 기본값)를 적용하고,
+     * 컬럼마다 ResultSetMetaData 또는 columntypes 힌트로 정한 타입별 접근자로 값을 읽습니다.
+     * 레이블 컬럼은 숫자 타입이어도 문자열로 읽어 "123.0" 같은 레이블 값이 생기지 않도록 합니다.
+     *
+     * @param stmt 실행할 Statement
+     * @param query 실행할 SQL 쿼리
+     * @param metricConfig 메트릭 설정 (내부 쿼리는 null)
+     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
+     * @throws SQLException 쿼리 실행 실패 시
+     */
+    private List<Map<String, Object>> readResults(Statement stmt, String query, MetricConfig metricConfig) throws SQLException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        stmt.setFetchSize(effectiveFetchSize(metricConfig));
+        String metricName = traceName(metricConfig);
+        String sqlHash = traceHash(metricConfig, query);
+        long startedAt = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+
+        ScrapeTrace.Span execute = ScrapeTrace.begin(ScrapeTrace.Phase.EXECUTE, metricName, sqlHash);
+        ResultSet resultSet;
+        try {
+            resultSet = stmt.executeQuery(query);
+        } finally {
+            execute.end(0);
+        }
+
+        ScrapeTrace.Span fetch = ScrapeTrace.begin(ScrapeTrace.Phase.FETCH, metricName, sqlHash);
+        try (ResultSet rs = resultSet) {
+            ResultSetMetaData metadata = rs.getMetaData();
+            int columnCount = metadata.getColumnCount();
+
+            // 컬럼명(소문자 변환)과 컬럼별 읽기 타입 결정
+            String[] columnNames = new String[columnCount];
+            ColumnType[] columnTypes = new ColumnType[columnCount];
+            for (int i = 1; i <= columnCount; i++) {
+                String columnName = metadata.getColumnName(i).toLowerCase();
+                columnNames[i - 1] = columnName;
+                columnTypes[i - 1] = resolveColumnType(metricConfig, metadata, i, columnName);
+            }
+
+            // 모든 결과 행 가져오기
+            while (rs.next()) {
+                Map<String, Object> row = new HashMap<>(columnCount * 2);
+                for (int i = 1; i <= columnCount; i++) {
+                    row.put(columnNames[i - 1], columnTypes[i - 1].read(rs, i));
+                }
+                results.add(row);
+            }
+
+            if (queryRecorder != null) {
+                queryRecorder.record(metricName, sqlHash, startedAt, System.nanoTime() - startNanos,
+                        columnNames, columnTypes, results);
+            }
+        } finally {
+            fetch.end(results.size());
+        }
+
+        return results;
+    }
+
+    /**
+     * streaming 메트릭 쿼리를 실행하고 결과 행을 메모리에 모으지 않고 응답 스트림에 바로 기록합니다.
+     * 레이블 컬럼은 문자열로, valuecolumn은 double로 읽으며 값이 NULL인 행은 건너뜁니다.
+     *
+     * @param stmt 실행할 Statement
+     * @param metricConfig streaming 메트릭 설정
+     * @param out 응답 스트림 기록기
+     * @return 기록한 행 수
+     * @throws SQLException 쿼리 실행 실패 또는 valuecolumn이 없는 경우
+     * @throws UncheckedIOException 응답 스트림 쓰기 실패 시
+     */
+    private int streamResults(Statement stmt, MetricConfig metricConfig, StreamingExposition out) throws SQLException {
+        stmt.setFetchSize(effectiveFetchSize(metricConfig));
+        String metricName = metricConfig.getName();
+        String sqlHash = metricConfig.getSqlHash();
+
+        ScrapeTrace.Span execute = ScrapeTrace.begin(ScrapeTrace.Phase.EXECUTE, metricName, sqlHash);
+        ResultSet resultSet;
+        try {
+            resultSet = stmt.executeQuery(metricConfig.getRequest());
+        } finally {
+            execute.end(0);
+        }
+
+        int rows = 0;
+        ScrapeTrace.Span fetch = ScrapeTrace.begin(ScrapeTrace.Phase.FETCH, metricName, sqlHash);
+        try (ResultSet rs = resultSet) {
+            ResultSetMetaData metadata = rs.getMetaData();
+            List<String> labels = metricConfig.getLabels();
+            int[] labelIndexes = new int[labels.size()];
+            Arrays.fill(labelIndexes, -1);
+            int valueIndex = -1;
+            for (int i = 1; i <= metadata.getColumnCount(); i++) {
+                String columnName = metadata.getColumnName(i).toLowerCase();
+                if (columnName.equals(metricConfig.getValueColumn())) {
+                    valueIndex = i;
+                }
+                for (int j = 0; j < labels.size(); j++) {
+                    if (columnName.equalsIgnoreCase(labels.get(j))) {
+                        labelIndexes[j] = i;
+                    }
+                }
+            }
+            if (valueIndex < 0) {
+                throw new SQLException("valuecolumn " + metricConfig.getValueColumn() + " not found in result");
+            }
+
+            String family = metricConfig.familyName(metricConfig.getValueColumn());
+            List<String> labelNames = new ArrayList<>(labels);
+            if (instanceName != null) {
+                labelNames.add(MetricSeriesCache.INSTANCE_LABEL);
+            }
+            String[] labelValues = new String[labelNames.size()];
+            if (instanceName != null) {
+                labelValues[labels.size()] = instanceName;
+            }
+
+            while (rs.next()) {
+                double value = rs.getDouble(valueIndex);
+                if (rs.wasNull()) {
+                    continue;
+                }
+                for (int j = 0; j < labelIndexes.length; j++) {
+                    String labelValue = labelIndexes[j] > 0 ? rs.getString(labelIndexes[j]) : null;
+                    labelValues[j] = labelValue != null ? labelValue : "";
+                }
+                try {
+                    out.sample(family, metricConfig.getHelp(), metricConfig.isCounter(), labelNames, labelValues, value);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows++;
+            }
+        } finally {
+            fetch.end(rows);
+        }
+        return rows;
+    }
+
+    /**
+     * JFR 이벤트와 스크래핑 기록에 사용할 메트릭 이름을 반환합니다.
+     *
+     * @param metricConfig 메트릭 설정 (내부 연결 확인 쿼리는 null)
+     * @return 메트릭 이름 (내부 쿼리는 "up")
+     */
+    private static String traceName(MetricConfig metricConfig) {
+        return metricConfig != null ? metricConfig.getName() : "up";
+    }
+
+    /**
+     * JFR 이벤트와 스크래핑 기록에 사용할 SQL 해시를 반환합니다.
+     * 메트릭 쿼리는 로드 시 계산된 값을 사용합니다.
+     */
+    private static String traceHash(MetricConfig metricConfig, String query) {
+        return metricConfig != null ? metricConfig.getSqlHash() : ScrapeTrace.sqlHash(query);
+    }
+
+    /**
+     * 메트릭에 적용할 JDBC fetch size를 반환합니다.
+     *
+     * @param metricConfig 메트릭 설정 (내부 쿼리는 null)
+     * @return 메트릭별 fetch size, 설정되지 않았으면 전역 기본값
+     */
+    private int effectiveFetchSize(MetricConfig metricConfig) {
+        if (metricConfig != null && metricConfig.getFetchSize() > 0) {
+            return metricConfig.getFetchSize();
+        }
+        return config.getFetchSize();
+    }
 
-    // 마지막 성공한 메트릭 수집 결과 캐싱 (Oracle Exporter 패턴)
-    private List<MetricFamilySamples> lastSuccessfulMetrics = new ArrayList<>();
+    /**
+     * 컬럼의 읽기 타입을 결정합니다.
+     * 우선순위: columntypes 힌트 > 차원 쿼리의 모든 컬럼, 레이블 컬럼, 차원 조인 키 컬럼(문자열) > ResultSetMetaData의 SQL 타입
+     * 차원 조인 키는 양쪽 모두 문자열로 읽어야 NUMBER 키가 "5"와 "5.0"으로 어긋나지 않습니다.
+     */
+    private ColumnType resolveColumnType(MetricConfig metricConfig, ResultSetMetaData metadata,
+                                         int column, String columnName) throws SQLException {
+        if (metricConfig != null) {
+            ColumnType hint = metricConfig.getColumnTypes().get(columnName);
+            if (hint != null) {
+                return hint;
+            }
+            if (metricConfig.isDimensionQuery()) {
+                return ColumnType.STRING;
+            }
+            for (String label : metricConfig.getLabels()) {
+                if (columnName.equalsIgnoreCase(label)) {
+                    return ColumnType.STRING;
+                }
+            }
+            for (DimensionConfig dimension : metricConfig.getDimensionConfigs()) {
+                for (String keyColumn : dimension.getKeyColumns()) {
+                    if (columnName.equalsIgnoreCase(keyColumn)) {
+                        return ColumnType.STRING;
+                    }
+                }
+            }
+        }
+        return ColumnType.fromMetadata(metadata, column);
+    }
+
+    /**
+     * 재시도 없이 쿼리를 실행합니다 (연결 오류 후 재시도에 사용).
+     * executeQuery()에서 끊어진 연결을 제거한 뒤 호출되며, 추가 재시도를 하지 않습니다.
+     *
+     * @param query 실행할 SQL 쿼리
+     * @param timeout 쿼리 타임아웃 (초)
+     * @param deadline 스크래핑 마감 시각
+     * @param metricConfig 메트릭 설정 (fetch size 및 컬럼 타입 힌트, 내부 쿼리는 null)
+     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
+     * @throws SQLException 쿼리 실행 실패 시
+     */
+    private List<Map<String, Object>> executeQueryNoRetry(String query, int timeout, ScrapeDeadline deadline,
+                                                          MetricConfig metricConfig) throws SQLException {
+        return executeWithDeadline(query, timeout, deadline, metricConfig);
+    }
+
+    /**
+     * Prometheus로부터 호출되는 메트릭 수집 메소드 (synchronized).
+     * 모든 메트릭을 수집하고 Prometheus 형식으로 반환합니다.
+     * Oracle Exporter 패턴을 따라 성공한 메트릭을 캐싱하고,
+     * 연결 실패 시 캐시된 메트릭을 반환하여 안정성을 높입니다.
+     * 스크래핑 마감 시각이 있으면 예상 비용이 낮은 메트릭부터 실행하고,
+     * 마감 시각까지 완료되지 못한 메트릭은 tibero_scrape_skipped로 표시합니다.
+     * 스크래핑 범위(ScrapeScope)가 바인딩되어 있으면 범위에 속한 메트릭만 실행하며, 캐시도 범위별로 따로 둡니다.
+     * 분산 실행(--scrape.stagger)을 사용하면 쿼리를 실행하지 않고 스케줄러가 보관한 최신 결과를 반환합니다.
+     *
+     * @return Prometheus 메트릭 패밀리 샘플 리스트
+     */
+    @Override
+    public List<MetricFamilySamples> collect() {
+        return scheduler != null ? collectScheduled() : collectNow();
+    }
+
+    /**
+     * 스크래핑 시점에 메트릭 쿼리를 실행하여 수집합니다.
+     *
+     * @return Prometheus 메트릭 패밀리 샘플 리스트
+     */
+    private synchronized List<MetricFamilySamples> collectNow() {
+        List<MetricFamilySamples> mfs = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        ScrapeDeadline deadline = ScrapeDeadline.current();
+        ScrapeScope scope = ScrapeScope.current();
+        beginRecordingCycle();
+        SnapshotStore snapshotStore = snapshotStores == null || !isCacheable(scope) ? null
+                : snapshotStores.computeIfAbsent(scope.getKey(),
+                        k -> new SnapshotStore(snapshotBudgetBytes(), config.isSnapshotOffHeap()));
+
+        // Exporter 상태 메트릭 (tibero_up)
+        GaugeMetricFamily upMetric = new GaugeMetricFamily(
+                NAMESPACE + "_up",
+                UP_HELP,
+                labelNames()
+        );
+
+        // 스크래핑 소요 시간 메트릭 (tibero_scrape_duration_seconds)
+        GaugeMetricFamily scrapeDurationMetric = new GaugeMetricFamily(
+                NAMESPACE + "_scrape_duration_seconds",
+                "Tibero scrape duration",
+                labelNames()
+        );
+
+        try {
+            // 연결 테스트 (간단한 쿼리 실행)
+            executeQuery("SELECT 1 FROM DUAL", config.getQueryTimeout(), deadline, null);
+            upMetric.addMetric(labelValues(), 1);
+        } catch (SQLException e) {
+            logger.debug("Database connectivity check failed, returning cached metrics: {}", e.getMessage());
+            // 캐시된 메트릭이 있으면 반환 (Oracle Exporter 패턴, 클러스터 노드는 결과에서 제외)
+            if (snapshotStore != null && !snapshotStore.isEmpty()) {
+                logger.debug("Returning {} cached metrics from previous scrape", snapshotStore.familyCount());
+                return snapshotStore.restore();
+            }
+            // 캐시가 없으면 오류 메트릭 반환
+            upMetric.addMetric(labelValues(), 0);
+            mfs.add(upMetric);
+            scrapeDurationMetric.addMetric(labelValues(), (System.currentTimeMillis() - startTime) / 1000.0);
+            mfs.add(scrapeDurationMetric);
+            return mfs;
+        }
+
+        // 마감 시각 내에 완료되지 못한 메트릭 (tibero_scrape_skipped)
+        GaugeMetricFamily skippedMetric = new GaugeMetricFamily(
+                NAMESPACE + "_scrape_skipped",
+                "Metric definitions skipped or cancelled because the scrape deadline was reached",
+                labelNames("metric")
+        );
+
+        // 모든 메트릭 수집 (예상 비용이 낮은 순서, 샤딩 시 이 복제본의 몫만)
+        sourceResults.clear();
+        for (MetricConfig metricConfig : orderByExpectedCost(ownedMetrics())) {
+            if (metricConfig.isStreaming() || !requested(metricConfig, scope)) {
+                continue;  // streaming 메트릭은 응답 시 stream()으로 기록
+            }
+            if (deadline.isExpired()) {
+                skippedMetric.addMetric(labelValues(metricConfig.getName()), 1);
+                continue;
+            }
+            if (!admitted(metricConfig, deadline)) {
+                // 실행 간격을 늘린 메트릭은 실행하지 않는 스크래핑에서 마지막 결과를 반환 (거부된 메트릭은 결과 없음)
+                mfs.addAll(throttledResults.getOrDefault(metricConfig.getName(), Collections.emptyList()));
+                continue;
+            }
+            long metricStart = System.nanoTime();
+            try {
+                List<MetricFamilySamples> families =
+                        rememberSampleNames(metricConfig, collectMetric(metricConfig, deadline));
+                if (costGate != null && costGate.isThrottled(metricConfig)) {
+                    throttledResults.put(metricConfig.getName(), families);
+                }
+                mfs.addAll(families);
+            } catch (ScrapeDeadlineExceededException e) {
+                logger.warn("Metric {} cancelled at scrape deadline", metricConfig.getName());
+                skippedMetric.addMetric(labelValues(metricConfig.getName()), 1);
+            } catch (Exception e) {
+                logger.error("Error collecting metric {}: {}", metricConfig.getName(), e.getMessage());
+            }
+            recordCost(metricConfig.getName(), (System.nanoTime() - metricStart) / 1_000_000.0);
+        }
+
+        if (!skippedMetric.samples.isEmpty()) {
+            logger.warn("Scrape deadline of {}ms reached, {} metrics skipped",
+                    deadline.getBudgetMillis(), skippedMetric.samples.size());
+        }
+
+        // 상태 메트릭 추가
+        mfs.add(upMetric);
+        mfs.add(skippedMetric);
+        addStatusMetrics(mfs, scope);
+        scrapeDurationMetric.addMetric(labelValues(), (System.currentTimeMillis() - startTime) / 1000.0);
+        mfs.add(scrapeDurationMetric);
+
+        // 성공한 수집 결과 캐싱 (name[] 요청은 일부 메트릭만 실행하므로 캐시를 갱신하지 않음)
+        if (snapshotStore != null && scope.getSampleNameFilter() == null) {
+            snapshotStore.update(mfs);
+            logger.debug("Cached {} metrics for future use ({} bytes)", mfs.size(), snapshotStore.getBytes());
+            evictSnapshots(scope.getKey());
+            mfs.addAll(snapshotMetrics(snapshotStore));
+        }
+
+        if (!firstScrapeLogged) {
+            firstScrapeLogged = true;
+            logger.info("First successful scrape completed {}ms after JVM start",
+                    System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+        }
+
+        return mfs;
+    }
+
+    /**
+     * 스케줄러가 보관한 메트릭별 최신 결과를 반환합니다 (쿼리를 실행하지 않음).
+     * 연결 풀을 사용할 수 없으면 tibero_up 0과 함께 마지막 결과를 반환하며,
+     * 결과의 최신성은 tibero_metric_age_seconds로 확인할 수 있습니다.
+     *
+     * @return Prometheus 메트릭 패밀리 샘플 리스트
+     */
+    private List<MetricFamilySamples> collectScheduled() {
+        List<MetricFamilySamples> mfs = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        ScrapeScope scope = ScrapeScope.current();
+
+        GaugeMetricFamily upMetric = new GaugeMetricFamily(
+                NAMESPACE + "_up",
+                UP_HELP,
+                labelNames()
+        );
+        upMetric.addMetric(labelValues(), isAvailable() ? 1 : 0);
+
+        GaugeMetricFamily ageMetric = new GaugeMetricFamily(
+                NAMESPACE + "_metric_age_seconds",
+                "Seconds since the scheduled query of the metric definition last completed",
+                labelNames("metric")
+        );
+        for (MetricConfig metricConfig : metricsConfig) {
+            if (metricConfig.isStreaming() || !owns(metricConfig) || !requested(metricConfig, scope)) {
+                continue;
+            }
+            ScheduledResult result = scheduledResults.get(metricConfig.getName());
+            if (result != null) {
+                mfs.addAll(result.samples);
+                ageMetric.addMetric(labelValues(metricConfig.getName()), (startTime - result.completedAt) / 1000.0);
+            }
+        }
+
+        mfs.add(upMetric);
+        mfs.add(ageMetric);
+        addStatusMetrics(mfs, scope);
+        GaugeMetricFamily scrapeDurationMetric = new GaugeMetricFamily(
+                NAMESPACE + "_scrape_duration_seconds",
+                "Tibero scrape duration",
+                labelNames()
+        );
+        scrapeDurationMetric.addMetric(labelValues(), (System.currentTimeMillis() - startTime) / 1000.0);
+        mfs.add(scrapeDurationMetric);
+        return mfs;
+    }
+
+    /**
+     * 메트릭이 이번 스크래핑 범위에서 요청되었는지 확인합니다.
+     * 샘플 이름 필터(name[])가 있으면 마지막 실행에서 만든 샘플 이름 중 하나라도 필터를 통과해야 하며,
+     * 아직 결과가 없어 샘플 이름을 알 수 없는 메트릭은 실행합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @param scope 스크래핑 범위
+     * @return 쿼리를 실행해야 하면 true
+     */
+    private boolean requested(MetricConfig metricConfig, ScrapeScope scope) {
+        if (!scope.includes(metricConfig)) {
+            return false;
+        }
+        Predicate<String> filter = scope.getSampleNameFilter();
+        List<String> sampleNames = filter != null ? producedSampleNames.get(metricConfig.getName()) : null;
+        if (sampleNames == null) {
+            return true;
+        }
+        for (String sampleName : sampleNames) {
+            if (filter.test(sampleName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 메트릭 실행 결과의 샘플 이름을 기록합니다 (결과가 없으면 이전 기록 유지).
+     * 패밀리 타입별로 만들어질 수 있는 샘플 이름(_total, _bucket 등)을 모두 기록합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @param families 실행 결과
+     * @return families (그대로 반환)
+     */
+    private List<MetricFamilySamples> rememberSampleNames(MetricConfig metricConfig,
+                                                          List<MetricFamilySamples> families) {
+        if (families.isEmpty()) {
+            return families;
+        }
+        List<String> sampleNames = new ArrayList<>(families.size() * 2);
+        for (MetricFamilySamples family : families) {
+            sampleNames.add(family.name);
+            switch (family.type) {
+                case COUNTER:
+                    sampleNames.add(family.name + "_total");
+                    sampleNames.add(family.name + "_created");
+                    break;
+                case HISTOGRAM:
+                    sampleNames.add(family.name + "_bucket");
+                    sampleNames.add(family.name + "_count");
+                    sampleNames.add(family.name + "_sum");
+                    sampleNames.add(family.name + "_created");
+                    break;
+                case SUMMARY:
+                    sampleNames.add(family.name + "_count");
+                    sampleNames.add(family.name + "_sum");
+                    sampleNames.add(family.name + "_created");
+                    break;
+                default:
+                    break;
+            }
+        }
+        producedSampleNames.put(metricConfig.getName(), sampleNames);
+        return families;
+    }
+
+    /**
+     * 스케줄러가 주기마다 실행할 메트릭 목록을 반환합니다 (샤딩 시 이 복제본의 몫, streaming 메트릭 제외).
+     * 계획 비용 검사에서 거부되었거나 늘어난 실행 간격에서 차례가 아닌 메트릭은 빠지며, 이전 결과가 그대로 노출됩니다.
+     */
+    private List<MetricConfig> scheduledMetrics() {
+        List<MetricConfig> scheduled = new ArrayList<>();
+        for (MetricConfig metricConfig : ownedMetrics()) {
+            if (!metricConfig.isStreaming() && admitted(metricConfig, ScrapeDeadline.unbounded())) {
+                scheduled.add(metricConfig);
+            }
+        }
+        return scheduled;
+    }
+
+    /**
+     * 계획 비용 검사를 사용하면 메트릭을 지금 실행할지 결정합니다 (미사용 시 항상 true).
+     * 메트릭이 실행하는 쿼리(공유 소스를 쓰는 메트릭은 소스 쿼리)의 계획 비용을 아직 구하지 않았으면 먼저 구합니다.
+     * Java 수집 플러그인은 SQL 문이 없으므로 검사하지 않습니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @param deadline 스크래핑 마감 시각 (EXPLAIN PLAN에 적용)
+     * @return 실행해야 하면 true (거부되었거나 늘어난 실행 간격에서 차례가 아니면 false)
+     */
+    private boolean admitted(MetricConfig metricConfig, ScrapeDeadline deadline) {
+        if (costGate == null || metricConfig.isPlugin()) {
+            return true;
+        }
+        MetricConfig query = QueryCostGate.queryOf(metricConfig);
+        if (!costGate.isEstimated(query)) {
+            estimatePlanCost(query, deadline);
+        }
+        return costGate.admit(metricConfig, System.currentTimeMillis());
+    }
+
+    /**
+     * 쿼리의 계획 비용을 구해 검사기에 기록합니다.
+     * 계획 비용 파일이 없으면 EXPLAIN PLAN을 실행하며, 재생 중이거나 계획을 구할 수 없으면 비용을 알 수 없는 것으로 기록합니다.
+     * 연결 문제나 마감 시각 초과로 실패하면 기록하지 않고 다음 실행 전에 다시 시도합니다.
+     *
+     * @param query 쿼리 설정
+     * @param deadline 스크래핑 마감 시각
+     */
+    private void estimatePlanCost(MetricConfig query, ScrapeDeadline deadline) {
+        if (costGate.recordFixed(query)) {
+            return;
+        }
+        if (queryReplay != null) {
+            costGate.record(query, Double.NaN);
+            return;
+        }
+        if (!isAvailable()) {
+            return;
+        }
+        try {
+            double cost = executeWithDeadline(query.getRequest(), config.getQueryTimeout(), deadline, null,
+                    (stmt, watch) -> QueryCostGate.explain(stmt, query.getRequest()));
+            costGate.record(query, cost);
+        } catch (SQLException e) {
+            if (deadline.isExpired() || e instanceof SQLRecoverableException || !isAvailable()) {
+                return;
+            }
+            logger.warn("Cannot obtain the execution plan cost of {}: {}", query.getName(), e.getMessage());
+            costGate.record(query, Double.NaN);
+        }
+    }
+
+    /**
+     * 스케줄러의 새 주기를 시작합니다. 공유 소스 쿼리는 주기마다 한 번만 실행됩니다.
+     */
+    private synchronized void beginScheduledCycle() {
+        sourceResults.clear();
+        beginRecordingCycle();
+    }
+
+    /**
+     * 쿼리 결과 기록/재생의 주기 경계를 표시합니다.
+     */
+    private void beginRecordingCycle() {
+        if (queryRecorder != null) {
+            queryRecorder.beginCycle();
+        }
+        if (queryReplay != null) {
+            queryReplay.beginCycle();
+        }
+    }
+
+    /**
+     * 쿼리를 실행할 수 있는지 확인합니다 (재생 중에는 항상 true).
+     */
+    private boolean isAvailable() {
+        return queryReplay != null || connectionManager.isAvailable();
+    }
+
+    /**
+     * 스케줄러가 배정한 시각에 메트릭 하나를 실행하고 결과를 보관합니다.
+     * 연결 풀을 사용할 수 없으면 실행하지 않고 이전 결과를 유지합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     */
+    private void runScheduled(MetricConfig metricConfig) {
+        if (!isAvailable()) {
+            return;
+        }
+        long metricStart = System.nanoTime();
+        List<MetricFamilySamples> samples;
+        synchronized (this) {
+            samples = rememberSampleNames(metricConfig, collectMetric(metricConfig, ScrapeDeadline.unbounded()));
+        }
+        scheduledResults.put(metricConfig.getName(), new ScheduledResult(samples, System.currentTimeMillis()));
+        recordCost(metricConfig.getName(), (System.nanoTime() - metricStart) / 1_000_000.0);
+    }
+
+    /**
+     * 수집 방식과 관계없이 공통으로 추가하는 Exporter 자체 상태 메트릭을 추가합니다.
+     *
+     * @param mfs 메트릭 패밀리 목록
+     * @param scope 이번 스크래핑 범위
+     */
+    private void addStatusMetrics(List<MetricFamilySamples> mfs, ScrapeScope scope) {
+        mfs.addAll(queryStatsMetrics());
+        if (costSampler != null) {
+            mfs.addAll(queryCostMetrics());
+        }
+        if (costGate != null) {
+            mfs.addAll(planCostMetrics());
+        }
+        // 범위 지정 스크래핑이 전체 스크래핑의 구간을 가져가지 않도록 전체 범위에서만 노출
+        if (sysstatPoller != null && scope.isAll()) {
+            mfs.addAll(sysstatPoller.drain(labelNames("name"), labelValues()));
+        }
+        if (shardSelector != null) {
+            mfs.addAll(shardMetrics());
+        }
+        if (!dimensionIndexes.isEmpty()) {
+            mfs.addAll(dimensionMetrics());
+        }
+    }
+
+    @Override
+    public boolean hasStreamingMetrics() {
+        for (MetricConfig metricConfig : metricsConfig) {
+            if (metricConfig.isStreaming()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isCacheable(ScrapeScope scope) {
+        return scope.isCacheable(knownContexts, knownGroups);
+    }
+
+    @Override
+    public boolean hasMetrics(ScrapeScope scope) {
+        for (MetricConfig metricConfig : metricsConfig) {
+            if (scope.includes(metricConfig)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
-     * TiberoCollector 생성자
-     * 설정 정보와 메트릭 설정을 받아 초기화하고 데이터베이스에 연결합니다.
+     * 모든 streaming 메트릭을 응답 스트림에 기록합니다.
+     * 응답 쓰기가 느린 클라이언트가 다른 스크래핑과 예약 수집을 막지 않도록 수집기 락을 잡지 않습니다.
      *
-     * @param config 설정 정보
-     * @param metricsConfig 메트릭 설정 목록
+     * @param out 응답 스트림 기록기
+     * @throws IOException 응답 스트림 쓰기 실패 시
      */
-    public TiberoCollector(Config config, List<MetricConfig> metricsConfig) {
-        this.config = config;
-        this.metricsConfig = metricsConfig;
-        connect();
+    @Override
+    public void stream(StreamingExposition out) throws IOException {
+        for (MetricConfig metricConfig : metricsConfig) {
+            streamMetric(metricConfig, out);
+        }
     }
 
     /**
-     * 데이터베이스 연결 풀을 초기화합니다.
-     * HikariCP를 사용하여 연결 풀을 생성하고, 연결 유효성을 검증합니다.
-     * 빠른 재연결 시도를 방지하기 위해 5초 지연 시간을 두고 있습니다.
+     * streaming 메트릭 하나를 응답 스트림에 기록합니다 (클러스터 모드에서는 노드별로 이어서 호출).
+     * streaming 메트릭이 아니거나, 샤딩 시 이 복제본의 몫이 아니거나, 스크래핑 범위나 name[] 필터에 없으면 아무것도 하지 않습니다.
+     * streaming 메트릭은 결과 행을 모으지 않으므로 기록되지 않으며, 재생 중에는 건너뜁니다.
+     * 쿼리가 실패하면 오류 로그만 남기며, 이미 기록한 행은 응답에 남습니다.
+     * 결과 행을 읽는 동안 응답 소켓에 바로 쓰므로 수집기 락(collectNow, 예약 수집)을 잡지 않으며,
+     * 사용하는 공유 상태(쿼리 실행 통계, 계획 비용 검사기, 비용 샘플러, 연결 풀)는 모두 동시 호출에 안전합니다.
+     *
+     * @param metricConfig 메트릭 설정
+     * @param out 응답 스트림 기록기
+     * @throws IOException 응답 스트림 쓰기 실패 시
      */
-    private synchronized void connect() {
-        long currentTime = System.currentTimeMillis();
-
-        // 빠른 재연결 시도 방지 (5초 이내 재시도 무시)
-        if (currentTime - lastConnectionAttempt < CONNECTION_RETRY_DELAY) {
-            logger.debug("Skipping connect attempt (retry delay not elapsed)");
+    public void streamMetric(MetricConfig metricConfig, StreamingExposition out) throws IOException {
+        if (!metricConfig.isStreaming() || queryReplay != null || !owns(metricConfig) || !ScrapeScope.current().includes(metricConfig)
+                || !out.accepts(metricConfig.familyName(metricConfig.getValueColumn()), metricConfig.isCounter())) {
+            return;
+        }
+        ScrapeDeadline deadline = ScrapeDeadline.current();
+        // 결과를 보관하지 않으므로 계획 비용 검사는 거부만 적용하고, 실행 간격을 늘린 메트릭도 매번 실행
+        if (!admitted(metricConfig, deadline) && !costGate.isThrottled(metricConfig)) {
             return;
         }
+        int timeout = metricConfig.getQueryTimeout() > 0 ? metricConfig.getQueryTimeout() : config.getQueryTimeout();
+        try {
+            int rows = executeWithDeadline(metricConfig.getRequest(), timeout, deadline, metricConfig,
+                    (stmt, watch) -> streamResults(stmt, metricConfig, out));
+            queryStats.computeIfAbsent(metricConfig.getName(), k -> new QueryStats())
+                    .record(effectiveFetchSize(metricConfig), rows);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (SQLException e) {
+            logger.error("{} streaming query failed: {}", metricConfig.getName(), e.getMessage());
+        }
+    }
 
-        lastConnectionAttempt = currentTime;
+    /**
+     * 샤딩 시 메트릭 설정이 이 복제본의 몫인지 확인합니다 (샤딩 미사용 시 항상 true).
+     */
+    private boolean owns(MetricConfig metricConfig) {
+        if (shardSelector == null) {
+            return true;
+        }
+        String key = instanceName != null ? instanceName + "/" + metricConfig.getName() : metricConfig.getName();
+        return shardSelector.owns(key);
+    }
 
-        try {
-            // 기존 데이터소스가 있으면 닫기
-            if (dataSource != null) {
-                try {
-                    dataSource.close();
-                } catch (Exception e) {
-                    // 무시
-                }
-                dataSource = null;
-                connectionValid = false;
+    /**
+     * 이 복제본이 수집해야 하는 메트릭 설정 목록을 반환합니다.
+     * 샤딩을 사용하면 구성원 파일 변경을 확인한 뒤 일관성 해싱으로 이 복제본의 몫만 골라냅니다.
+     * 분배 키는 메트릭 이름이며, 클러스터 모드에서는 노드별로 나누어지도록 인스턴스 이름을 앞에 붙입니다.
+     *
+     * @return 수집할 메트릭 설정 목록
+     */
+    private List<MetricConfig> ownedMetrics() {
+        if (shardSelector == null) {
+            return metricsConfig;
+        }
+        shardSelector.refresh();
+        List<MetricConfig> owned = new ArrayList<>();
+        for (MetricConfig metricConfig : metricsConfig) {
+            if (owns(metricConfig)) {
+                owned.add(metricConfig);
             }
+        }
+        ownedMetricCount = owned.size();
+        return owned;
+    }
+
+    /**
+     * 샤딩 상태를 Exporter 자체 메트릭으로 변환합니다.
+     *
+     * @return tibero_shard_members, tibero_shard_owned_metrics 메트릭 패밀리
+     */
+    private List<MetricFamilySamples> shardMetrics() {
+        GaugeMetricFamily membersMetric = new GaugeMetricFamily(
+                NAMESPACE + "_shard_members",
+                "Number of exporter replicas sharing the metric definitions",
+                labelNames("shard")
+        );
+        membersMetric.addMetric(labelValues(shardSelector.getSelf()), shardSelector.memberCount());
+
+        GaugeMetricFamily ownedMetric = new GaugeMetricFamily(
+                NAMESPACE + "_shard_owned_metrics",
+                "Number of metric definitions collected by this replica",
+                labelNames("shard")
+        );
+        ownedMetric.addMetric(labelValues(shardSelector.getSelf()), ownedMetricCount);
 
-            // Tibero JDBC 드라이버 로드
-            Class.forName("com.tmax.tibero.jdbc.TbDriver");
-            logger.debug("Tibero JDBC driver loaded successfully");
+        return Arrays.asList(membersMetric, ownedMetric);
+    }
 
-            String jdbcUrl = config.getJdbcUrl();
-            logger.info("Initializing Tibero connection pool: {}", jdbcUrl);
+    /**
+     * 모든 범위의 스냅샷이 함께 쓰는 메모리 예산을 반환합니다 (바이트, 0이면 무제한).
+     */
+    private long snapshotBudgetBytes() {
+        return config.getSnapshotMemoryBudget() * 1024L * 1024L;
+    }
 
-            // HikariCP 설정
-            HikariConfig hikariConfig = new HikariConfig();
-            hikariConfig.setDriverClassName("com.tmax.tibero.jdbc.TbDriver");  // 드라이버 클래스 명시
-            hikariConfig.setJdbcUrl(jdbcUrl);
-            hikariConfig.setUsername(config.getDbUser());
-            hikariConfig.setPassword(config.getDbPassword());
-            hikariConfig.setMaximumPoolSize(config.getMaxPoolSize());      // 최대 연결 수
-            hikariConfig.setMinimumIdle(config.getMinIdle());              // 최소 유휴 연결 수
-            hikariConfig.setConnectionTimeout(config.getConnectionTimeout()); // 연결 타임아웃
-            hikariConfig.setIdleTimeout(config.getIdleTimeout());          // 유휴 타임아웃
-            hikariConfig.setMaxLifetime(config.getMaxLifetime());          // 최대 연결 수명
-            hikariConfig.setConnectionTestQuery("SELECT 1 FROM DUAL");     // 연결 검증 쿼리
-            hikariConfig.setPoolName("TiberoExporterPool");
-            hikariConfig.setInitializationFailTimeout(-1);                 // 초기화 실패해도 시작 허용
+    /**
+     * 범위별 스냅샷 사용량의 합계가 메모리 예산을 넘거나 범위 수가 최대치를 넘으면
+     * 가장 오래 사용하지 않은 범위의 스냅샷을 통째로 제거합니다 (이번 스크래핑 범위는 제외).
+     *
+     * @param currentKey 이번 스크래핑 범위의 캐시 키
+     */
+    private void evictSnapshots(String currentKey) {
+        long budget = snapshotBudgetBytes();
+        long total = 0;
+        for (SnapshotStore store : snapshotStores.values()) {
+            total += store.getBytes();
+        }
+        Iterator<Map.Entry<String, SnapshotStore>> it = snapshotStores.entrySet().iterator();
+        while (it.hasNext() && (snapshotStores.size() > ScrapeScope.MAX_CACHED_SCOPES || budget > 0 && total > budget)) {
+            Map.Entry<String, SnapshotStore> eldest = it.next();
+            if (eldest.getKey().equals(currentKey)) {
+                continue;
+            }
+            total -= eldest.getValue().getBytes();
+            it.remove();
+            logger.debug("Evicted cached metrics of scope [{}] ({} bytes in use)", eldest.getKey(), total);
+        }
+    }
 
-            // 데이터소스 생성
-            dataSource = new HikariDataSource(hikariConfig);
+    /**
+     * 수집 결과 스냅샷의 메모리 사용량을 Exporter 자체 메트릭으로 변환합니다.
+     *
+     * @param snapshotStore 이번 스크래핑 범위의 스냅샷
+     * @return tibero_snapshot_bytes, tibero_snapshot_series, tibero_snapshot_bytes_per_series 메트릭 패밀리
+     */
+    private List<MetricFamilySamples> snapshotMetrics(SnapshotStore snapshotStore) {
+        long bytes = snapshotStore.getBytes();
+        int series = snapshotStore.getSeries();
+
+        GaugeMetricFamily bytesMetric = new GaugeMetricFamily(
+                NAMESPACE + "_snapshot_bytes",
+                "Estimated memory used by the cached last successful scrape",
+                bytes
+        );
+        GaugeMetricFamily seriesMetric = new GaugeMetricFamily(
+                NAMESPACE + "_snapshot_series",
+                "Number of series held by the cached last successful scrape",
+                series
+        );
+        GaugeMetricFamily perSeriesMetric = new GaugeMetricFamily(
+                NAMESPACE + "_snapshot_bytes_per_series",
+                "Estimated memory per cached series",
+                series > 0 ? (double) bytes / series : 0
+        );
 
-            // 연결 유효성 검증
-            validateConnection();
-            connectionValid = true;
+        return Arrays.asList(bytesMetric, seriesMetric, perSeriesMetric);
+    }
 
-            logger.info("Tibero database connection pool initialized");
-            logger.info("Connection pool config - max: {}, min: {}, timeout: {}ms",
-                    config.getMaxPoolSize(), config.getMinIdle(), config.getConnectionTimeout());
+    /**
+     * 메트릭별 쿼리 실행 통계를 Exporter 자체 메트릭으로 변환합니다.
+     *
+     * @return tibero_query_fetch_size, tibero_query_rows, tibero_query_fetch_roundtrips 메트릭 패밀리
+     */
+    private List<MetricFamilySamples> queryStatsMetrics() {
+        List<String> labelNames = labelNames("metric");
+        GaugeMetricFamily fetchSizeMetric = new GaugeMetricFamily(
+                NAMESPACE + "_query_fetch_size",
+                "JDBC fetch size applied to the metric query",
+                labelNames
+        );
+        GaugeMetricFamily rowsMetric = new GaugeMetricFamily(
+                NAMESPACE + "_query_rows",
+                "Rows returned by the last execution of the metric query",
+                labelNames
+        );
+        GaugeMetricFamily roundTripsMetric = new GaugeMetricFamily(
+                NAMESPACE + "_query_fetch_roundtrips",
+                "Estimated fetch round trips needed by the last execution of the metric query",
+                labelNames
+        );
 
-        } catch (ClassNotFoundException e) {
-            connectionValid = false;
-            logger.error("Tibero JDBC driver not found: {}", e.getMessage());
-            logger.error("Make sure tibero7-jdbc.jar is included in the classpath");
-        } catch (Exception e) {
-            connectionValid = false;
-            logger.error("Connection pool initialization failed: {}", e.getMessage());
-            logger.debug("Connection error details:", e);
+        for (Map.Entry<String, QueryStats> entry : queryStats.entrySet()) {
+            List<String> labelValues = labelValues(entry.getKey());
+            QueryStats stats = entry.getValue();
+            fetchSizeMetric.addMetric(labelValues, stats.getFetchSize());
+            rowsMetric.addMetric(labelValues, stats.getRows());
+            roundTripsMetric.addMetric(labelValues, stats.getFetchRoundTrips());
         }
+
+        return Arrays.asList(fetchSizeMetric, rowsMetric, roundTripsMetric);
     }
-    
+
     /**
-     * 강제로 데이터베이스에 재연결을 시도합니다.
-     * 지연 시간을 무시하고 즉시 재연결합니다.
+     * 쿼리별 실행 계획 비용과 검사 결과를 Exporter 자체 메트릭으로 변환합니다.
+     *
+     * @return tibero_query_plan_cost, tibero_query_plan_cost_over_budget, tibero_query_refresh_interval_seconds 메트릭 패밀리
      */
-    private synchronized void forceReconnect() {
-        logger.warn("Force reconnecting to database...");
-        lastConnectionAttempt = 0;  // 지연 시간 리셋
-        connectionValid = false;
-        connect();
+    private List<MetricFamilySamples> planCostMetrics() {
+        List<String> labelNames = labelNames("metric");
+        GaugeMetricFamily costMetric = new GaugeMetricFamily(
+                NAMESPACE + "_query_plan_cost",
+                "Optimizer cost of the metric query's execution plan, checked before its first run",
+                labelNames
+        );
+        GaugeMetricFamily overBudgetMetric = new GaugeMetricFamily(
+                NAMESPACE + "_query_plan_cost_over_budget",
+                "Whether the metric query's plan cost exceeds --query.plan-cost-budget",
+                labelNames
+        );
+        for (Map.Entry<String, Double> entry : costGate.getCosts().entrySet()) {
+            if (entry.getValue().isNaN()) {
+                continue;  // 계획을 구할 수 없었던 쿼리
+            }
+            costMetric.addMetric(labelValues(entry.getKey()), entry.getValue());
+            if (costGate.getBudget() > 0) {
+                overBudgetMetric.addMetric(labelValues(entry.getKey()),
+                        entry.getValue() > costGate.getBudget() ? 1 : 0);
+            }
+        }
+
+        GaugeMetricFamily intervalMetric = new GaugeMetricFamily(
+                NAMESPACE + "_query_refresh_interval_seconds",
+                "Interval at which an over-budget metric definition is re-queried (--query.plan-cost-action throttle)",
+                labelNames
+        );
+        for (MetricConfig metricConfig : metricsConfig) {
+            if (costGate.isThrottled(metricConfig)) {
+                intervalMetric.addMetric(labelValues(metricConfig.getName()), costGate.refreshSeconds(metricConfig));
+            }
+        }
+        return Arrays.asList(costMetric, overBudgetMetric, intervalMetric);
     }
 
     /**
-     * 간단한 쿼리를 실행하여 데이터베이스 연결을 검증합니다.
-     * SELECT 1 FROM DUAL 쿼리를 실행하여 연결이 정상인지 확인합니다.
+     * 메트릭별 데이터베이스 비용 누적값을 Exporter 자체 메트릭으로 변환합니다.
      *
-     * @throws SQLException 연결이 유효하지 않거나 쿼리 실행 실패 시
+     * @return tibero_query_db_executions_total 및 세션 통계 항목별 tibero_query_db_*_total 메트릭 패밀리
      */
-    private void validateConnection() throws SQLException {
-        if (dataSource == null) {
-            throw new SQLException("No database connection pool");
+    private List<MetricFamilySamples> queryCostMetrics() {
+        List<String> labelNames = labelNames("metric");
+        SessionCostSampler.Stat[] stats = SessionCostSampler.Stat.values();
+
+        CounterMetricFamily executionsMetric = new CounterMetricFamily(
+                NAMESPACE + "_query_db_executions",
+                "Metric query executions whose database cost was measured",
+                labelNames
+        );
+        CounterMetricFamily[] costMetrics = new CounterMetricFamily[stats.length];
+        for (SessionCostSampler.Stat stat : stats) {
+            costMetrics[stat.ordinal()] = new CounterMetricFamily(
+                    NAMESPACE + "_query_db_" + stat.getMetricSuffix(), stat.getHelp(), labelNames);
         }
 
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT 1 FROM DUAL")) {
-            if (!rs.next()) {
-                throw new SQLException("Connection validation query returned no result");
+        for (Map.Entry<String, QueryStats> entry : queryStats.entrySet()) {
+            double[] totals = entry.getValue().getCostTotals();
+            if (totals == null) {
+                continue;
+            }
+            List<String> labelValues = labelValues(entry.getKey());
+            executionsMetric.addMetric(labelValues, entry.getValue().getCostSamples());
+            for (int i = 0; i < totals.length; i++) {
+                costMetrics[i].addMetric(labelValues, totals[i]);
             }
         }
+
+        List<MetricFamilySamples> mfs = new ArrayList<>(stats.length + 1);
+        mfs.add(executionsMetric);
+        Collections.addAll(mfs, costMetrics);
+        return mfs;
     }
 
     /**
-     * 연결 풀이 아직 유효한지 확인합니다.
-     * 데이터소스가 닫혀있지 않은지 검사합니다.
+     * Exporter 자체 메트릭의 레이블 이름 목록을 만듭니다.
+     * 클러스터 노드 수집기이면 instance_name 레이블을 마지막에 추가합니다.
      *
-     * @return 연결이 유효하면 true, 그렇지 않으면 false
+     * @param names 레이블 이름
+     * @return 레이블 이름 목록
      */
-    private boolean isConnectionValid() {
-        if (dataSource == null || !connectionValid) {
-            return false;
+    private List<String> labelNames(String... names) {
+        List<String> result = new ArrayList<>(names.length + 1);
+        Collections.addAll(result, names);
+        if (instanceName != null) {
+            result.add(MetricSeriesCache.INSTANCE_LABEL);
         }
+        return result;
+    }
 
-        try {
-            return !dataSource.isClosed();
-        } catch (Exception e) {
-            logger.warn("Connection pool validation failed: {}", e.getMessage());
-            connectionValid = false;
-            return false;
+    /**
+     * labelNames()에 대응하는 레이블 값 목록을 만듭니다.
+     *
+     * @param values 레이블 값
+     * @return 레이블 값 목록
+     */
+    private List<String> labelValues(String... values) {
+        List<String> result = new ArrayList<>(values.length + 1);
+        Collections.addAll(result, values);
+        if (instanceName != null) {
+            result.add(instanceName);
         }
+        return result;
     }
 
     /**
-     * 데이터베이스에 재연결을 시도합니다.
-     * 연결 상태를 무효화하고 connect() 메소드를 호출하여 재연결합니다.
+     * 메트릭 설정 목록을 예상 실행 비용이 낮은 순서로 정렬합니다.
+     * 아직 실행 이력이 없는 메트릭은 비용 0으로 간주하여 먼저 실행합니다.
+     *
+     * @param metrics 메트릭 설정 목록
+     * @return 정렬된 새 목록
      */
-    private void reconnect() {
-        logger.warn("Attempting database reconnect...");
-        connectionValid = false;
-        connect();
+    private List<MetricConfig> orderByExpectedCost(List<MetricConfig> metrics) {
+        List<MetricConfig> ordered = new ArrayList<>(metrics);
+        ordered.sort(Comparator.comparingDouble(m -> expectedCostMillis.getOrDefault(m.getName(), 0.0)));
+        return ordered;
     }
 
     /**
-     * 쿼리를 실행하고 결과를 반환합니다 (기본 타임아웃 사용).
-     * 지정된 타임아웃이 있는 오버로드 메소드를 호출합니다.
+     * 메트릭 실행 시간을 지수 이동 평균으로 기록합니다.
      *
-     * @param query 실행할 SQL 쿼리
-     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
-     * @throws SQLException 쿼리 실행 실패 시
+     * @param metricName 메트릭 이름
+     * @param elapsedMillis 이번 실행 소요 시간 (밀리초)
      */
-    private List<Map<String, Object>> executeQuery(String query) throws SQLException {
-        return executeQuery(query, config.getQueryTimeout());
+    private void recordCost(String metricName, double elapsedMillis) {
+        expectedCostMillis.merge(metricName, elapsedMillis,
+                (previous, current) -> previous + COST_SMOOTHING * (current - previous));
     }
 
     /**
-     * 지정된 타임아웃으로 쿼리를 실행하고 결과를 반환합니다.
-     * 연결 풀에서 연결을 가져와 쿼리를 실행하고, 실패 시 한 번 재시도합니다.
+     * 메트릭(또는 공유 소스)의 쿼리를 실행하고 쿼리 실행 통계를 기록합니다.
+     * 메트릭별 타임아웃이 설정되어 있으면 해당 값을 사용하고, 없으면 기본값을 사용합니다.
      *
-     * @param query 실행할 SQL 쿼리
-     * @param timeout 쿼리 타임아웃 (초)
-     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
+     * @param metricConfig 메트릭 또는 공유 소스 설정
+     * @param deadline 스크래핑 마감 시각
+     * @return 쿼리 결과
      * @throws SQLException 쿼리 실행 실패 시
      */
-    private List<Map<String, Object>> executeQuery(String query, int timeout) throws SQLException {
-        List<Map<String, Object>> results = new ArrayList<>();
+    private List<Map<String, Object>> runQuery(MetricConfig metricConfig, ScrapeDeadline deadline) throws SQLException {
+        int timeout = metricConfig.getQueryTimeout() > 0 ?
+                     metricConfig.getQueryTimeout() : config.getQueryTimeout();
+        List<Map<String, Object>> results = executeQuery(metricConfig.getRequest(), timeout, deadline, metricConfig);
+        queryStats.computeIfAbsent(metricConfig.getName(), k -> new QueryStats())
+                .record(effectiveFetchSize(metricConfig), results.size());
+        return results;
+    }
 
-        // 쿼리 실행 전 연결 풀 유효성 확인
-        if (!isConnectionValid()) {
-            forceReconnect();  // 강제 재연결 (지연 시간 무시)
-            if (!isConnectionValid()) {
-                logger.error("Database connection pool is not valid after reconnect attempt");
-                logger.error("Check database connectivity: host={}, port={}, user={}", 
-                    config.getDbHost(), config.getDbPort(), config.getDbUser());
-                throw new SQLException("Database connection pool is not valid");
-            }
+    /**
+     * Java 수집 플러그인을 풀에서 대여한 연결 하나로 실행합니다.
+     * 마감 시각 감시, 연결 오류 분류, 비용 측정은 YAML 메트릭 쿼리와 같으며, 기록한 샘플 수를 행 수로 기록합니다.
+     * 플러그인이 SampleSink.createStatement()로 만든 Statement는 마감 시각에 취소됩니다.
+     * 플러그인 결과는 기록되지 않으므로 재생 중에는 실행하지 않습니다.
+     *
+     * @param metricConfig 플러그인 메트릭 정의
+     * @param deadline 스크래핑 마감 시각
+     * @return 플러그인이 기록한 메트릭 패밀리 (실패 시 빈 리스트)
+     * @throws ScrapeDeadlineExceededException 마감 시각에 도달해 중단된 경우
+     */
+    private List<MetricFamilySamples> collectPlugin(MetricConfig metricConfig, ScrapeDeadline deadline) {
+        if (queryReplay != null) {
+            return Collections.emptyList();
         }
-
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.setQueryTimeout(timeout);
-
-            try (ResultSet rs = stmt.executeQuery(query)) {
-                ResultSetMetaData metadata = rs.getMetaData();
-                int columnCount = metadata.getColumnCount();
-
-                // 컬럼명 가져오기 (소문자로 변환)
-                List<String> columnNames = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    columnNames.add(metadata.getColumnName(i).toLowerCase());
-                }
-
-                // 모든 결과 행 가져오기
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        row.put(columnNames.get(i - 1), rs.getObject(i));
-                    }
-                    results.add(row);
-                }
-            }
+        MetricPlugin plugin = metricConfig.getPlugin();
+        SampleSink sink = new SampleSink(metricConfig, instanceName);
+        int timeout = metricConfig.getQueryTimeout() > 0 ? metricConfig.getQueryTimeout() : config.getQueryTimeout();
+        try {
+            int samples = executeWithDeadline(metricConfig.getRequest(), timeout, deadline, metricConfig,
+                    (stmt, watch) -> {
+                        ScrapeTrace.Span execute = ScrapeTrace.begin(ScrapeTrace.Phase.EXECUTE,
+                                metricConfig.getName(), metricConfig.getSqlHash());
+                        try {
+                            // 플러그인이 sink.createStatement()로 만든 Statement도 마감 시각에 취소되도록 감시에 등록
+                            sink.bind(stmt.getConnection(), deadline, watch);
+                            plugin.collect(stmt.getConnection(), deadline, sink);
+                        } finally {
+                            sink.unbind();
+                            execute.end(sink.getSampleCount());
+                        }
+                        return sink.getSampleCount();
+                    });
+            queryStats.computeIfAbsent(metricConfig.getName(), k -> new QueryStats())
+                    .record(effectiveFetchSize(metricConfig), samples);
         } catch (SQLException e) {
-            logger.error("Query execution failed: {}", e.getMessage());
-            logger.debug("Query: {}", query);
-
-            // 재연결 후 한 번 재시도
-            try {
-                logger.warn("Retrying query after reconnect...");
-                reconnect();
-                if (isConnectionValid()) {
-                    // 추가 재시도 없이 한 번만 재시도
-                    return executeQueryNoRetry(query);
-                }
-            } catch (SQLException reconnectError) {
-                logger.error("Reconnect and retry failed: {}", reconnectError.getMessage());
+            if (deadline.isExpired()) {
+                throw new ScrapeDeadlineExceededException(metricConfig.getName());
             }
-            throw e;
+            logger.error("{} plugin failed: {}", metricConfig.getName(), e.getMessage());
+            return Collections.emptyList();
+        } catch (RuntimeException e) {
+            logger.error("{} plugin failed: {}", metricConfig.getName(), e.toString());
+            return Collections.emptyList();
         }
-
-        return results;
+        return sink.families();
     }
 
     /**
-     * 재시도 없이 쿼리를 실행합니다 (재연결 후 사용).
-     * executeQuery()에서 재연결 후 호출되며, 추가 재시도를 하지 않습니다.
+     * 메트릭 결과 행에 차원 쿼리의 컬럼을 조인 키로 채웁니다 (메트릭 레이블 중 결과 행에 없는 컬럼만).
+     * 소스 쿼리 결과를 그대로 쓰는 파생 메트릭은 다른 메트릭과 공유하는 행이므로 복사한 뒤 채웁니다.
      *
-     * @param query 실행할 SQL 쿼리
-     * @return 쿼리 결과 (행마다 Map<컬럼명, 값> 형태)
-     * @throws SQLException 쿼리 실행 실패 시
+     * @param metricConfig 메트릭 설정
+     * @param results 메트릭 결과 행
+     * @param deadline 스크래핑 마감 시각 (차원 갱신 쿼리에 적용)
+     * @return 레이블이 채워진 결과 행
      */
-    private List<Map<String, Object>> executeQueryNoRetry(String query) throws SQLException {
-        List<Map<String, Object>> results = new ArrayList<>();
-
-        try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.setQueryTimeout(config.getQueryTimeout());
-
-            try (ResultSet rs = stmt.executeQuery(query)) {
-                ResultSetMetaData metadata = rs.getMetaData();
-                int columnCount = metadata.getColumnCount();
-
-                List<String> columnNames = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    columnNames.add(metadata.getColumnName(i).toLowerCase());
-                }
-
-                while (rs.next()) {
-                    Map<String, Object> row = new HashMap<>();
-                    for (int i = 1; i <= columnCount; i++) {
-                        row.put(columnNames.get(i - 1), rs.getObject(i));
-                    }
-                    results.add(row);
-                }
+    private List<Map<String, Object>> enrich(MetricConfig metricConfig, List<Map<String, Object>> results,
+                                             ScrapeDeadline deadline) {
+        List<Map<String, Object>> enriched = results;
+        if (metricConfig.isDerived() && metricConfig.getAggregate().isEmpty()) {
+            enriched = new ArrayList<>(results.size());
+            for (Map<String, Object> row : results) {
+                enriched.add(new HashMap<>(row));
             }
         }
-
-        return results;
+        for (DimensionConfig dimension : metricConfig.getDimensionConfigs()) {
+            DimensionIndex index = dimensionIndex(dimension, deadline);
+            if (index == null) {
+                continue;
+            }
+            for (Map<String, Object> row : enriched) {
+                index.enrich(dimension, metricConfig.getLabelColumnList(), row);
+            }
+        }
+        return enriched;
     }
 
     /**
-     * Prometheus로부터 호출되는 메트릭 수집 메소드 (synchronized).
-     * 모든 메트릭을 수집하고 Prometheus 형식으로 반환합니다.
-     * Oracle Exporter 패턴을 따라 성공한 메트릭을 캐싱하고,
-     * 연결 실패 시 캐시된 메트릭을 반환하여 안정성을 높입니다.
+     * 차원 쿼리의 조인 인덱스를 반환합니다. 갱신 주기가 지났으면 차원 쿼리를 다시 실행합니다.
+     * 갱신에 실패하면 이전 인덱스를 계속 사용하고, 갱신 주기와 DIMENSION_RETRY_MILLIS 중 짧은 간격 뒤에 다시 시도합니다.
      *
-     * @return Prometheus 메트릭 패밀리 샘플 리스트
+     * @param dimension 차원 설정
+     * @param deadline 스크래핑 마감 시각
+     * @return 조인 인덱스 (한 번도 성공하지 못했으면 null)
      */
-    @Override
-    public synchronized List<MetricFamilySamples> collect() {
-        List<MetricFamilySamples> mfs = new ArrayList<>();
-        long startTime = System.currentTimeMillis();
+    private DimensionIndex dimensionIndex(DimensionConfig dimension, ScrapeDeadline deadline) {
+        DimensionIndex index = dimensionIndexes.get(dimension);
+        long now = System.currentTimeMillis();
+        Long due = dimensionRefreshDue.get(dimension);
+        if (due != null && now < due) {
+            return index;
+        }
+        long refreshMillis = dimension.getRefreshSeconds() * 1000L;
+        try {
+            index = new DimensionIndex(dimension, runQuery(dimension.getQuery(), deadline), now);
+            dimensionIndexes.put(dimension, index);
+            dimensionRefreshDue.put(dimension, now + refreshMillis);
+            logger.debug("Dimension {} refreshed with {} keys", dimension.getName(), index.size());
+        } catch (SQLException e) {
+            logger.warn("Dimension {} refresh failed, {}: {}", dimension.getName(),
+                    index != null ? "keeping the previous index" : "labels stay empty", e.getMessage());
+            dimensionRefreshDue.put(dimension, now + Math.min(refreshMillis, DIMENSION_RETRY_MILLIS));
+        }
+        return index;
+    }
 
-        // Exporter 상태 메트릭 (tibero_up)
-        GaugeMetricFamily upMetric = new GaugeMetricFamily(
-                NAMESPACE + "_up",
-                "Whether the last Tibero scrape succeeded",
-                Collections.emptyList()
+    /**
+     * 차원 인덱스 상태를 Exporter 자체 메트릭으로 변환합니다.
+     *
+     * @return tibero_dimension_keys, tibero_dimension_age_seconds 메트릭 패밀리
+     */
+    private List<MetricFamilySamples> dimensionMetrics() {
+        GaugeMetricFamily keysMetric = new GaugeMetricFamily(
+                NAMESPACE + "_dimension_keys",
+                "Join keys held in the in-memory index of the dimension query",
+                labelNames("dimension")
         );
-
-        // 스크래핑 소요 시간 메트릭 (tibero_scrape_duration_seconds)
-        GaugeMetricFamily scrapeDurationMetric = new GaugeMetricFamily(
-                NAMESPACE + "_scrape_duration_seconds",
-                "Tibero scrape duration",
-                Collections.emptyList()
+        GaugeMetricFamily ageMetric = new GaugeMetricFamily(
+                NAMESPACE + "_dimension_age_seconds",
+                "Seconds since the dimension query was last refreshed successfully",
+                labelNames("dimension")
         );
-
-        try {
-            // 연결 테스트 (간단한 쿼리 실행)
-            executeQuery("SELECT 1 FROM DUAL");
-            upMetric.addMetric(Collections.emptyList(), 1);
-        } catch (SQLException e) {
-            logger.debug("Database connectivity check failed, returning cached metrics: {}", e.getMessage());
-            // 캐시된 메트릭이 있으면 반환 (Oracle Exporter 패턴)
-            if (!lastSuccessfulMetrics.isEmpty()) {
-                logger.debug("Returning {} cached metrics from previous scrape", lastSuccessfulMetrics.size());
-                return new ArrayList<>(lastSuccessfulMetrics);
-            }
-            // 캐시가 없으면 오류 메트릭 반환
-            upMetric.addMetric(Collections.emptyList(), 0);
-            mfs.add(upMetric);
-            scrapeDurationMetric.addMetric(Collections.emptyList(), (System.currentTimeMillis() - startTime) / 1000.0);
-            mfs.add(scrapeDurationMetric);
-            return mfs;
+        long now = System.currentTimeMillis();
+        for (Map.Entry<DimensionConfig, DimensionIndex> entry : dimensionIndexes.entrySet()) {
+            List<String> labelValues = labelValues(entry.getKey().getName());
+            keysMetric.addMetric(labelValues, entry.getValue().size());
+            ageMetric.addMetric(labelValues, (now - entry.getValue().getLoadedAt()) / 1000.0);
         }
+        return Arrays.asList(keysMetric, ageMetric);
+    }
 
-        // 모든 메트릭 수집
-        for (MetricConfig metricConfig : metricsConfig) {
+    /**
+     * 공유 소스 쿼리의 이번 스크래핑 결과를 반환합니다.
+     * 스크래핑마다 처음 참조될 때 한 번만 실행하며, 실패도 기록하여 같은 스크래핑에서 다시 실행하지 않습니다.
+     *
+     * @param source 공유 소스 설정
+     * @param deadline 스크래핑 마감 시각
+     * @return 소스 쿼리 결과 (파생 메트릭 간에 공유되므로 수정하지 않음)
+     * @throws SQLException 소스 쿼리 실행 실패 시
+     */
+    private List<Map<String, Object>> sourceRows(MetricConfig source, ScrapeDeadline deadline) throws SQLException {
+        SourceResult result = sourceResults.get(source);
+        if (result == null) {
             try {
-                mfs.addAll(collectMetric(metricConfig));
-            } catch (Exception e) {
-                logger.error("Error collecting metric {}: {}", metricConfig.getName(), e.getMessage());
+                result = new SourceResult(runQuery(source, deadline), null);
+            } catch (SQLException e) {
+                result = new SourceResult(null, e);
             }
+            sourceResults.put(source, result);
         }
-
-        // 상태 메트릭 추가
-        mfs.add(upMetric);
-        scrapeDurationMetric.addMetric(Collections.emptyList(), (System.currentTimeMillis() - startTime) / 1000.0);
-        mfs.add(scrapeDurationMetric);
-
-        // 성공한 수집 결과 캐싱
-        lastSuccessfulMetrics = new ArrayList<>(mfs);
-        logger.debug("Cached {} metrics for future use", mfs.size());
-
-        return mfs;
+        if (result.error != null) {
+            throw result.error;
+        }
+        return result.rows;
     }
 
     /**
@@ -365,24 +1524,38 @@ public class TiberoCollector extends Collector {
      * 메트릭별 타임아웃이 설정되어 있으면 해당 값을 사용하고, 없으면 기본값을 사용합니다.
      *
      * @param metricConfig 수집할 메트릭 설정
+     * @param deadline 스크래핑 마감 시각
      * @return Prometheus 메트릭 패밀리 샘플 리스트
+     * @throws ScrapeDeadlineExceededException 마감 시각에 도달해 쿼리가 취소된 경우
      */
-    private List<MetricFamilySamples> collectMetric(MetricConfig metricConfig) {
+    private List<MetricFamilySamples> collectMetric(MetricConfig metricConfig, ScrapeDeadline deadline) {
         logger.debug("Collecting metric: {}", metricConfig.getName());
+        if (metricConfig.isPlugin()) {
+            return collectPlugin(metricConfig, deadline);
+        }
 
         List<MetricFamilySamples> mfs = new ArrayList<>();
         List<Map<String, Object>> results;
 
         try {
-            // 메트릭별 타임아웃이 설정되어 있으면 사용, 아니면 기본값 사용
-            int timeout = metricConfig.getQueryTimeout() > 0 ?
-                         metricConfig.getQueryTimeout() : config.getQueryTimeout();
-            results = executeQuery(metricConfig.getRequest(), timeout);
+            if (metricConfig.isDerived()) {
+                // 공유 소스 쿼리 결과를 메모리에서 필터링/집계
+                results = SourceView.derive(metricConfig, sourceRows(metricConfig.getSourceConfig(), deadline));
+            } else {
+                results = runQuery(metricConfig, deadline);
+            }
         } catch (SQLException e) {
+            if (deadline.isExpired()) {
+                throw new ScrapeDeadlineExceededException(metricConfig.getName());
+            }
             logger.error("{} query execution failed: {}", metricConfig.getName(), e.getMessage());
             return mfs;
         }
 
+        if (!metricConfig.getDimensionConfigs().isEmpty()) {
+            results = enrich(metricConfig, results, deadline);
+        }
+
         if (results.isEmpty()) {
             logger.debug("No results for metric {}", metricConfig.getName());
             if (metricConfig.isIgnoreZero()) {
@@ -390,17 +1563,29 @@ public class TiberoCollector extends Collector {
             }
         }
 
-        // 중복된 메트릭 패밀리를 피하기 위해 컬럼명 기준으로 그룹화
-        Map<String, MetricFamilySamples> metricsByColumn = new HashMap<>();
+        // histogram / summary 타입은 결과 행을 버킷(분위수) 단위로 조립
+        if (metricConfig.isHistogram() || metricConfig.isSummary()) {
+            ScrapeTrace.Span conversion = ScrapeTrace.begin(ScrapeTrace.Phase.CONVERT,
+                    metricConfig.getName(), metricConfig.getSqlHash());
+            MetricFamilySamples distribution = DistributionAssembler.assemble(metricConfig, results, instanceName);
+            if (distribution != null) {
+                mfs.add(distribution);
+            }
+            conversion.end(results.size());
+            return mfs;
+        }
+
+        // 레이블 조합과 메트릭 패밀리를 스크래핑 간에 재사용하는 캐시
+        MetricSeriesCache seriesCache = seriesCaches.computeIfAbsent(metricConfig,
+                m -> new MetricSeriesCache(m, instanceName));
+        seriesCache.begin();
+        ScrapeTrace.Span conversion = ScrapeTrace.begin(ScrapeTrace.Phase.CONVERT,
+                metricConfig.getName(), metricConfig.getSqlHash());
 
         // 결과 처리
         for (Map<String, Object> row : results) {
-            // 레이블 값 추출
-            List<String> labelValues = new ArrayList<>();
-            for (String label : metricConfig.getLabels()) {
-                Object value = row.get(label.toLowerCase());
-                labelValues.add(value != null ? value.toString() : "");
-            }
+            // 레이블 값 추출 (사전에 등록된 레이블 조합 재사용)
+            List<String> labelValues = seriesCache.labelValues(row);
 
             // 값 컬럼 찾기(레이블 컬럼 제외)
             for (Map.Entry<String, Object> entry : row.entrySet()) {
@@ -408,26 +1593,13 @@ public class TiberoCollector extends Collector {
                 Object colValue = entry.getValue();
 
                 // 레이블 컬럼은 건너뜀
-                boolean isLabel = false;
-                for (String label : metricConfig.getLabels()) {
-                    if (colName.equalsIgnoreCase(label)) {
-                        isLabel = true;
-                        break;
-                    }
-                }
-                if (isLabel) continue;
+                if (metricConfig.isLabelColumn(colName)) continue;
 
                 // 숫자 값인지 확인
                 if (!isNumeric(colValue)) {
                     continue;
                 }
 
-                // fieldtoname 매핑이 있으면 사용하고 없으면 컬럼명을 메트릭 이름으로 사용
-                String metricName = metricConfig.getFieldtoname().get(colName.toUpperCase());
-                if (metricName == null) {
-                    metricName = colName.toLowerCase();
-                }
-
                 // 값을 double로 변환
                 double value;
                 try {
@@ -443,36 +1615,16 @@ public class TiberoCollector extends Collector {
                 }
 
                 // 중복을 피하기 위해 컨텍스트 대신 메트릭 이름을 사용해 전체 이름 생성
-                String fullName = NAMESPACE + "_" + metricConfig.getName() + "_" + metricName;
-
-                // 메트릭 패밀리 생성 또는 가져오기
-                if (!metricsByColumn.containsKey(fullName)) {
-                    if ("counter".equalsIgnoreCase(metricConfig.getMetrictype())) {
-                        metricsByColumn.put(fullName, new CounterMetricFamily(
-                                fullName,
-                                metricConfig.getHelp(),
-                                metricConfig.getLabels()
-                        ));
-                    } else {
-                        metricsByColumn.put(fullName, new GaugeMetricFamily(
-                                fullName,
-                                metricConfig.getHelp(),
-                                metricConfig.getLabels()
-                        ));
-                    }
-                }
+                // (fieldtoname 매핑이 있으면 사용하고 없으면 컬럼명 사용, 로드 시 사전 컴파일됨)
+                String fullName = metricConfig.familyName(colName);
 
-                // 메트릭 값 추가
-                MetricFamilySamples metricFamily = metricsByColumn.get(fullName);
-                if (metricFamily instanceof GaugeMetricFamily) {
-                    ((GaugeMetricFamily) metricFamily).addMetric(labelValues, value);
-                } else if (metricFamily instanceof CounterMetricFamily) {
-                    ((CounterMetricFamily) metricFamily).addMetric(labelValues, value);
-                }
+                // 시계열 값 기록 (기존 슬롯이면 값만 갱신)
+                seriesCache.set(fullName, labelValues, value);
             }
         }
 
-        mfs.addAll(metricsByColumn.values());
+        mfs.addAll(seriesCache.finish());
+        conversion.end(results.size());
         return mfs;
     }
 
@@ -488,7 +1640,7 @@ public class TiberoCollector extends Collector {
         if (value instanceof Number) return true;
         if (value instanceof String) {
             String str = (String) value;
-            return str.matches("-?\\d+(\\.\\d+)?");
+            return NUMERIC_PATTERN.matcher(str).matches();
         }
         return false;
     }
@@ -514,16 +1666,125 @@ public class TiberoCollector extends Collector {
      * 데이터베이스 연결 풀을 종료합니다.
      * Exporter 종료 시 호출되어 모든 연결을 정리합니다.
      */
+    @Override
     public void close() {
-        if (dataSource != null) {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        deadlineWatchdog.shutdownNow();
+        if (sysstatPoller != null) {
+            sysstatPoller.close();
+        }
+        connectionManager.close();
+        if (queryRecorder != null) {
+            queryRecorder.close();
+        }
+    }
+
+    /**
+     * 마감 시각에 도달해 메트릭 수집이 중단되었음을 알리는 예외
+     */
+    private static class ScrapeDeadlineExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ScrapeDeadlineExceededException(String metricName) {
+            super("Scrape deadline exceeded while collecting " + metricName);
+        }
+    }
+
+    /**
+     * 대여한 연결의 Statement로 실행하는 쿼리 작업 (결과를 모으거나 응답 스트림에 바로 기록)
+     */
+    @FunctionalInterface
+    private interface StatementAction<T> {
+        /**
+         * @param stmt 마감 시각 감시에 등록된 Statement
+         * @param watch 작업 중 추가로 만든 Statement를 마감 시각 감시에 등록하는 함수
+         */
+        T run(Statement stmt, Consumer<Statement> watch) throws SQLException;
+    }
+
+    /**
+     * 스케줄러가 실행한 메트릭 하나의 결과와 완료 시각
+     */
+    private static class ScheduledResult {
+        private final List<MetricFamilySamples> samples;  // 메트릭 패밀리 (MetricSeriesCache가 만든 불변 객체)
+        private final long completedAt;                   // 실행 완료 시각 (epoch 밀리초)
+
+        ScheduledResult(List<MetricFamilySamples> samples, long completedAt) {
+            this.samples = samples;
+            this.completedAt = completedAt;
+        }
+    }
+
+    /**
+     * 스크래핑 한 번 동안 공유되는 소스 쿼리 결과 (성공 시 rows, 실패 시 error)
+     */
+    private static class SourceResult {
+        private final List<Map<String, Object>> rows;  // 소스 쿼리 결과
+        private final SQLException error;              // 소스 쿼리 실패 원인
+
+        SourceResult(List<Map<String, Object>> rows, SQLException error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    /**
+     * 단일 쿼리 실행을 감시하는 클래스
+     * 마감 시각에 fire()가 호출되면 연결 대기 중인 스레드는 인터럽트하고,
+     * 실행 중인 Statement는 cancel()로 취소합니다.
+     */
+    private static class DeadlineWatch {
+        private final Thread owner;         // 쿼리를 실행 중인 스레드
+        private Statement statement;        // 실행 중인 Statement (연결 대기 중이면 null)
+        private boolean fired = false;      // 마감 시각 도달 여부
+        private boolean finished = false;   // 쿼리 실행 종료 여부
+
+        DeadlineWatch(Thread owner) {
+            this.owner = owner;
+        }
+
+        synchronized void attach(Statement stmt) {
+            this.statement = stmt;
+            if (fired) {
+                // 연결 획득 직후 마감 시각에 도달한 경우 즉시 취소
+                cancelStatement();
+            }
+        }
+
+        synchronized boolean isFired() {
+            return fired;
+        }
+
+        /**
+         * 쿼리 실행 종료를 표시합니다. 이후에는 fire()가 아무 동작도 하지 않습니다.
+         *
+         * @return 마감 시각에 도달했었으면 true
+         */
+        synchronized boolean finish() {
+            finished = true;
+            return fired;
+        }
+
+        synchronized void fire() {
+            if (finished) {
+                return;
+            }
+            fired = true;
+            if (statement != null) {
+                cancelStatement();
+            } else {
+                // HikariCP는 연결 대기 중 인터럽트되면 SQLException을 던짐
+                owner.interrupt();
+            }
+        }
+
+        private void cancelStatement() {
             try {
-                dataSource.close();
-                logger.info("Database connection pool closed");
-            } catch (Exception e) {
-                logger.error("Error while closing connection pool: {}", e.getMessage());
-            } finally {
-                dataSource = null;
-                connectionValid = false;
+                statement.cancel();
+            } catch (SQLException e) {
+                logger.debug("Statement cancel failed: {}", e.getMessage());
             }
         }
     }
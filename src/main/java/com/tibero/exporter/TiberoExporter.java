@@ -1,5 +1,7 @@
 package com.tibero.exporter;
 
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.exporter.HTTPServer;
 import io.prometheus.client.hotspot.DefaultExports;
@@ -8,7 +10,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,9 +28,12 @@ public class TiberoExporter {
     private static final String BUILD_DATE = "2026-01-01";
 
     private final Config config;                    // 설정 정보
-    private TiberoCollector collector;              // 메트릭 수집기
+    private ManagedCollector collector;             // 메트릭 수집기 (단일 노드 또는 TAC 클러스터)
     private HTTPServer httpServer;                  // Prometheus HTTP 서버
+    private HaElection election;                    // 능동/대기 선출기 (미사용 시 null)
+    private LogTailer logTailer;                    // 인스턴스 로그 파일 추적기 (미사용 시 null)
     private volatile boolean running = true;        // 실행 상태 플래그
+    private static boolean cdsTrainingRun = false;  // AppCDS 학습 실행 여부 (--cds.training-run)
 
     /**
      * TiberoExporter 생성자
@@ -37,15 +46,57 @@ public class TiberoExporter {
 
     /**
      * Exporter를 시작합니다.
-     * 메트릭 설정을 로드하고, 수집기를 초기화하며, HTTP 서버를 시작합니다.
+     * 메트릭 설정을 로드하고, HTTP 서버를 먼저 바인딩한 뒤 연결 풀 초기화를 백그라운드에서 시작합니다.
+     * 연결 풀이 준비되기 전의 스크래핑은 tibero_up 0을 즉시 반환합니다.
      *
      * @throws IOException HTTP 서버 시작 실패 시
      */
     public void start() throws IOException {
         logger.info("Starting Tibero Exporter v{}", VERSION);
-        logger.info("Connecting to {}:{}", config.getDbHost(), config.getDbPort());
+        if (config.isClusterMode()) {
+            logger.info("Connecting to cluster nodes {}", config.getClusterNodeList());
+        } else {
+            logger.info("Connecting to {}:{}", config.getDbHost(), config.getDbPort());
+        }
+
+        InetSocketAddress address = new InetSocketAddress(config.getListenAddress(), config.getListenPort());
+        initialize(address);
+
+        // 연결 풀 초기화 (백그라운드, 능동/대기 구성에서는 리더가 되었을 때)
+        if (election != null) {
+            election.start();
+        } else {
+            collector.start();
+        }
+
+        // 로그 파일 추적 (데이터베이스 연결과 무관하게 능동/대기 모두 실행)
+        if (logTailer != null) {
+            logTailer.start();
+        }
+
+        logger.info("Tibero Exporter started");
+        logger.info("Metrics endpoint: http://{}:{}/metrics", config.getListenAddress(), config.getListenPort());
+
+        // 실행 유지 (인터럽트 될 때까지)
+        while (running) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                logger.info("Exporter interrupted");
+                break;
+            }
+        }
+    }
 
-        // 메트릭 설정 로드
+    /**
+     * 메트릭 설정을 로드하고 수집기를 등록한 뒤 HTTP 서버를 시작합니다.
+     * 데이터베이스 연결은 시작하지 않습니다.
+     *
+     * @param address HTTP 서버 바인딩 주소
+     * @throws IOException HTTP 서버 시작 실패 시
+     */
+    private void initialize(InetSocketAddress address) throws IOException {
+        // 메트릭 설정 로드 (로드 시 사전 컴파일됨)
         List<MetricConfig> metricsConfig = MetricsLoader.loadMetricsConfig(config.getMetricsFile());
         logger.info("Loaded {} metrics from {}", metricsConfig.size(), config.getMetricsFile());
 
@@ -59,32 +110,79 @@ public class TiberoExporter {
             }
         }
 
-        // 수집기 초기화
-        collector = new TiberoCollector(config, metricsConfig);
+        // Java 수집 플러그인 로드 (클래스패스와 --plugin.dir의 ServiceLoader 등록 구현)
+        metricsConfig.addAll(MetricsLoader.loadPlugins(config.getPluginDir(), metricsConfig));
+
+        // 수집기 초기화 (클러스터 노드 목록이 있으면 노드별 병렬 수집)
+        if (config.isClusterMode()) {
+            collector = new ClusterCollector(config, metricsConfig);
+        } else {
+            collector = new TiberoCollector(config, metricsConfig);
+        }
 
         // 수집기 등록
         CollectorRegistry.defaultRegistry.register(collector);
 
+        // 인스턴스 로그 파일 추적기 등록
+        List<String> logPaths = LogTailer.parsePaths(config.getLogFiles());
+        if (!logPaths.isEmpty()) {
+            logTailer = new LogTailer(logPaths, LogTailer.loadPatterns(config.getLogPatternsFile()),
+                    config.getLogPollInterval());
+            CollectorRegistry.defaultRegistry.register(logTailer);
+        }
+
+        // 능동/대기 구성 (잠금을 얻은 프로세스만 데이터베이스에 연결)
+        if (!config.getHaLockFile().isEmpty() && !cdsTrainingRun) {
+            election = new HaElection(config.getHaLockFile(), collector::start);
+        }
+
         // JVM 메트릭 등록 (Tibero 메트릭만 표시하기 위해 비활성화)
         // DefaultExports.initialize();
 
         // HTTP 서버 시작
-        logger.info("Starting HTTP server at {}:{}", config.getListenAddress(), config.getListenPort());
-        InetSocketAddress address = new InetSocketAddress(config.getListenAddress(), config.getListenPort());
-        httpServer = new HTTPServer(address, CollectorRegistry.defaultRegistry, true);
-
-        logger.info("Tibero Exporter started");
-        logger.info("Metrics endpoint: http://{}:{}/metrics", config.getListenAddress(), config.getListenPort());
+        logger.info("Starting HTTP server at {}:{}", address.getHostString(), address.getPort());
+        HttpServer server = HttpServer.create(address, 3);
+        httpServer = new HTTPServer(server, CollectorRegistry.defaultRegistry, true);
+
+        // 스크래핑 타임아웃 헤더 전달, 증분 렌더링, 스크래핑 기록을 위해 메트릭 핸들러 교체
+        ScrapeTraceLog traceLog = new ScrapeTraceLog(config.getScrapeTraceSize());
+        HttpHandler metricsHandler = new MetricsHttpHandler(CollectorRegistry.defaultRegistry, collector, config, traceLog,
+                election);
+        server.removeContext("/");
+        server.createContext("/", metricsHandler);
+        server.removeContext("/metrics");
+        server.createContext("/metrics", metricsHandler);
+
+        // 최근 스크래핑의 단계별 타임라인
+        if (traceLog.isEnabled()) {
+            server.createContext(ScrapeTraceLog.PATH, traceLog);
+        }
+    }
 
-        // 실행 유지 (인터럽트 될 때까지)
-        while (running) {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                logger.info("Exporter interrupted");
-                break;
+    /**
+     * AppCDS 아카이브 생성을 위한 학습 실행을 수행합니다.
+     * 데이터베이스에 연결하지 않고 메트릭 로드, HTTP 서버 기동, /metrics 요청 한 번까지
+     * 시작 경로의 클래스를 모두 로드한 뒤 종료합니다.
+     * -XX:ArchiveClassesAtExit 옵션과 함께 실행되어 로드된 클래스가 아카이브에 기록됩니다.
+     *
+     * @throws IOException HTTP 서버 시작 또는 요청 실패 시
+     */
+    public void trainingRun() throws IOException {
+        logger.info("Running class-data-sharing training run");
+        initialize(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress()
+                + ":" + httpServer.getPort() + "/metrics");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            while (in.read() != -1) {
+                // 응답을 끝까지 읽어 노출 경로의 클래스를 로드
             }
+        } finally {
+            connection.disconnect();
         }
+
+        stop();
     }
 
     /**
@@ -99,6 +197,14 @@ public class TiberoExporter {
             httpServer.close();
         }
 
+        if (election != null) {
+            election.close();
+        }
+
+        if (logTailer != null) {
+            logTailer.close();
+        }
+
         if (collector != null) {
             collector.close();
         }
@@ -160,10 +266,54 @@ public class TiberoExporter {
                         config.setDbDsn(args[++i]);
                         break;
 
+                    case "--db.cluster-nodes":
+                        config.setClusterNodes(args[++i]);
+                        break;
+
+                    case "--db.cluster-pool-size":
+                        config.setClusterPoolSize(Integer.parseInt(args[++i]));
+                        break;
+
+                    case "--shard.self":
+                        config.setShardSelf(args[++i]);
+                        break;
+
+                    case "--shard.peers":
+                        config.setShardPeers(args[++i]);
+                        break;
+
+                    case "--shard.peers-file":
+                        config.setShardPeersFile(args[++i]);
+                        break;
+
                     case "--query.timeout":
                         config.setQueryTimeout(Integer.parseInt(args[++i]));
                         break;
 
+                    case "--query.fetch-size":
+                        config.setFetchSize(Integer.parseInt(args[++i]));
+                        break;
+
+                    case "--query.cost-sampling":
+                        config.setQueryCostSampling(true);
+                        break;
+
+                    case "--query.plan-cost":
+                        config.setPlanCost(true);
+                        break;
+
+                    case "--query.plan-cost-budget":
+                        config.setPlanCostBudget(Double.parseDouble(args[++i]));
+                        break;
+
+                    case "--query.plan-cost-action":
+                        config.setPlanCostAction(args[++i]);
+                        break;
+
+                    case "--query.plan-cost-file":
+                        config.setPlanCostFile(args[++i]);
+                        break;
+
                     case "--default.metrics":
                         config.setMetricsFile(args[++i]);
                         break;
@@ -180,6 +330,70 @@ public class TiberoExporter {
                         config.setScrapeInterval(Integer.parseInt(args[++i]));
                         break;
 
+                    case "--scrape.stagger":
+                        config.setScrapeStagger(true);
+                        break;
+
+                    case "--scrape.timeout-offset":
+                        config.setScrapeTimeoutOffset(Double.parseDouble(args[++i]));
+                        break;
+
+                    case "--debug.scrape-trace-size":
+                        config.setScrapeTraceSize(Integer.parseInt(args[++i]));
+                        break;
+
+                    case "--snapshot.memory-budget":
+                        config.setSnapshotMemoryBudget(Integer.parseInt(args[++i]));
+                        break;
+
+                    case "--snapshot.off-heap":
+                        config.setSnapshotOffHeap(true);
+                        break;
+
+                    case "--sysstat.poll-stats":
+                        config.setSysstatPollStats(args[++i]);
+                        break;
+
+                    case "--sysstat.poll-interval":
+                        config.setSysstatPollInterval(Integer.parseInt(args[++i]));
+                        break;
+
+                    case "--ha.lock-file":
+                        config.setHaLockFile(args[++i]);
+                        break;
+
+                    case "--plugin.dir":
+                        config.setPluginDir(args[++i]);
+                        break;
+
+                    case "--log.files":
+                        config.setLogFiles(args[++i]);
+                        break;
+
+                    case "--log.patterns":
+                        config.setLogPatternsFile(args[++i]);
+                        break;
+
+                    case "--log.poll-interval":
+                        config.setLogPollInterval(Integer.parseInt(args[++i]));
+                        break;
+
+                    case "--record.file":
+                        config.setRecordFile(args[++i]);
+                        break;
+
+                    case "--replay.file":
+                        config.setReplayFile(args[++i]);
+                        break;
+
+                    case "--replay.speed":
+                        config.setReplaySpeed(Double.parseDouble(args[++i]));
+                        break;
+
+                    case "--cds.training-run":
+                        cdsTrainingRun = true;
+                        break;
+
                     case "--help":
                     case "-h":
                         printHelp();
@@ -222,17 +436,51 @@ public class TiberoExporter {
         System.out.println("  --db.password PASS           Database password");
         System.out.println("  --db.name NAME               Database name/SID (default: tibero)");
         System.out.println("  --db.dsn DSN                 Full DSN connection string");
+        System.out.println("  --db.cluster-nodes NODES     TAC nodes to collect from concurrently, [name=]host:port,... (default: single node)");
+        System.out.println("  --db.cluster-pool-size N     Maximum connections per cluster node (default: 2)");
+        System.out.println("  --shard.self ID              This replica's shard member ID");
+        System.out.println("  --shard.peers IDS            Shard member IDs sharing the metrics, comma separated");
+        System.out.println("  --shard.peers-file FILE      File listing shard member IDs, one per line (re-read on change)");
         System.out.println("  --query.timeout SECONDS      Query timeout in seconds (default: 30)");
+        System.out.println("  --query.fetch-size ROWS      Default JDBC fetch size (default: 100)");
+        System.out.println("  --query.cost-sampling        Measure each metric query's database cost from session statistics");
+        System.out.println("  --query.plan-cost            Check each metric query's execution plan cost before its first run");
+        System.out.println("  --query.plan-cost-budget N   Plan cost budget per metric query (default: 0 = expose cost only)");
+        System.out.println("  --query.plan-cost-action ACT Over-budget handling: flag, reject or throttle (default: flag)");
+        System.out.println("  --query.plan-cost-file FILE  YAML file of plan costs per query name used instead of EXPLAIN PLAN");
         System.out.println("  --default.metrics FILE       Default metrics file path (default: default_metrics.yaml)");
         System.out.println("  --custom.metrics FILE        Custom metrics file path");
         System.out.println("  --jdbc.jar FILE              Tibero JDBC driver JAR path");
         System.out.println("  --scrape.interval SECONDS    Metrics scrape interval in seconds (default: 15)");
+        System.out.println("  --scrape.stagger             Spread metric queries across the scrape interval and serve the latest results");
+        System.out.println("  --scrape.timeout-offset SEC  Seconds subtracted from the Prometheus scrape timeout (default: 0.5)");
+        System.out.println("  --debug.scrape-trace-size N  Recent scrapes kept for /debug/scrape-trace, 0 disables (default: 10)");
+        System.out.println("  --snapshot.memory-budget MB  Memory budget for the cached last successful scrape, 0 = unlimited (default: 64)");
+        System.out.println("  --snapshot.off-heap          Store cached sample values off-heap");
+        System.out.println("  --sysstat.poll-stats NAMES   V$SYSSTAT statistics polled between scrapes for spike capture, comma separated");
+        System.out.println("  --sysstat.poll-interval MS   Polling interval for --sysstat.poll-stats in milliseconds (default: 1000)");
+        System.out.println("  --ha.lock-file FILE          Active/standby pair: only the exporter holding this lock queries the database");
+        System.out.println("  --plugin.dir DIR             Directory of metric plugin JARs (MetricPlugin via ServiceLoader)");
+        System.out.println("  --log.files FILES            Tibero log files to tail for error codes and events, comma separated");
+        System.out.println("  --log.patterns FILE          YAML file of named log patterns (default: error, checkpoint, log_switch)");
+        System.out.println("  --log.poll-interval MS       Log tailing interval in milliseconds (default: 1000)");
+        System.out.println("  --record.file FILE           Record every metric query result set with timing to FILE (per-cycle frames)");
+        System.out.println("  --replay.file FILE           Serve metrics from a --record.file recording instead of the database");
+        System.out.println("  --replay.speed FACTOR        Replay speed for recorded query times, 0 = no delay (default: 1)");
+        System.out.println("  --cds.training-run           Load classes without a database and exit (used to build the AppCDS archive)");
         System.out.println("\nEnvironment variables:");
         System.out.println("  DB_HOST, DB_PORT, DB_USER, DB_PASSWORD, DB_NAME");
         System.out.println("  LISTEN_ADDRESS, LISTEN_PORT");
-        System.out.println("  QUERY_TIMEOUT, SCRAPE_INTERVAL");
-        System.out.println("  DEFAULT_METRICS_FILE, CUSTOM_METRICS_FILE");
+        System.out.println("  QUERY_TIMEOUT, QUERY_FETCH_SIZE, QUERY_COST_SAMPLING, QUERY_PLAN_COST, QUERY_PLAN_COST_BUDGET, QUERY_PLAN_COST_ACTION, QUERY_PLAN_COST_FILE, SCRAPE_INTERVAL, SCRAPE_STAGGER, SCRAPE_TIMEOUT_OFFSET, SCRAPE_TRACE_SIZE");
+        System.out.println("  DEFAULT_METRICS_FILE, CUSTOM_METRICS_FILE, PLUGIN_DIR");
         System.out.println("  TIBERO_JDBC_JAR, DATA_SOURCE_NAME");
+        System.out.println("  TIBERO_CLUSTER_NODES, CLUSTER_POOL_SIZE");
+        System.out.println("  SHARD_SELF, SHARD_PEERS, SHARD_PEERS_FILE");
+        System.out.println("  SNAPSHOT_MEMORY_BUDGET_MB, SNAPSHOT_OFF_HEAP");
+        System.out.println("  SYSSTAT_POLL_STATS, SYSSTAT_POLL_INTERVAL_MS");
+        System.out.println("  HA_LOCK_FILE");
+        System.out.println("  LOG_FILES, LOG_PATTERNS_FILE, LOG_POLL_INTERVAL_MS");
+        System.out.println("  RECORD_FILE, REPLAY_FILE, REPLAY_SPEED");
     }
 
     /**
@@ -263,6 +511,17 @@ public class TiberoExporter {
         // Exporter 생성 및 시작
         final TiberoExporter exporter = new TiberoExporter(config);
 
+        // AppCDS 학습 실행 (데이터베이스 연결 없이 클래스만 로드하고 종료)
+        if (cdsTrainingRun) {
+            try {
+                exporter.trainingRun();
+                System.exit(0);
+            } catch (IOException e) {
+                logger.error("Training run failed: {}", e.getMessage(), e);
+                System.exit(1);
+            }
+        }
+
         // 종료 훅 설정 (Ctrl+C 등의 종료 신호 처리)
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             logger.info("Shutdown signal received");